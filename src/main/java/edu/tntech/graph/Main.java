@@ -8,7 +8,6 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.TimeoutException;
 import java.util.logging.Logger;
 
 public class Main {
@@ -23,11 +22,14 @@ public class Main {
 //        testSet();
         try {
 //            testSet();
+            Map<String, String> arguments = parseArgs(args);
             StreamConsumer streamConsumer = StreamConsumer.getInstance();
-            streamConsumer.consume();
+            if (arguments.containsKey(GRAPH_FILE_INDEX)) {
+                streamConsumer.consumeFile(arguments.get(GRAPH_FILE_INDEX));
+            } else {
+                streamConsumer.consume();
+            }
             log.info("Consumption completed");
-        } catch (TimeoutException e) {
-            e.printStackTrace();
         } catch (IOException e) {
             e.printStackTrace();
         } catch (InterruptedException e) {
@@ -71,7 +73,6 @@ public class Main {
                 if (argument.equals(GRAPH_FILE_OPTION) || argument.equals(GRAPH_FILE_SHORT_OPTION)) {
                     arguments.put(GRAPH_FILE_INDEX, args[++i]);
                 }
-                i++;
             }
         }
         return arguments;
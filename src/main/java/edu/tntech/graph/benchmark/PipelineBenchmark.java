@@ -0,0 +1,79 @@
+package edu.tntech.graph.benchmark;
+
+import edu.tntech.graph.stream.InProcessStreamSource;
+import edu.tntech.graph.stream.StreamConsumer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * End to end benchmark of the sampling pipeline fed by the in-process stream source, no broker needed.
+ * <p>
+ * Uses the regular config.properties (sample size, windows, output files).
+ * Usage: PipelineBenchmark [graphs] [nodes per graph]
+ */
+public class PipelineBenchmark {
+
+    private static final int QUEUE_SIZE = 4096;
+
+    public static void main(String... args) throws IOException, InterruptedException {
+        int graphCount = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int nodesPerGraph = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        List<byte[]> messages = _createMessages(graphCount, nodesPerGraph);
+        InProcessStreamSource source = new InProcessStreamSource(QUEUE_SIZE);
+
+        long[] maxLag = new long[1];
+        Thread producer = new Thread(() -> {
+            try {
+                long sent = 0;
+                for (byte[] message : messages) {
+                    source.put(message);
+                    sent++;
+                    maxLag[0] = Math.max(maxLag[0], sent - source.getAcknowledgedTag());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                source.complete();
+            }
+        }, "benchmark-producer");
+
+        long start = System.nanoTime();
+        producer.start();
+        StreamConsumer.getInstance().consume(source);
+        long elapsed = System.nanoTime() - start;
+        producer.join();
+
+        System.out.printf("%d items in %.2f s: %.0f items/s, acknowledged %d, max unacknowledged %d%n",
+                messages.size(), elapsed / 1e9, messages.size() / (elapsed / 1e9),
+                source.getAcknowledgedTag(), maxLag[0]);
+    }
+
+    /**
+     * Creates chains of nodes, each edge streamed right after its target node
+     *
+     * @param graphCount    number of graphs
+     * @param nodesPerGraph nodes in each graph
+     * @return encoded messages
+     */
+    private static List<byte[]> _createMessages(int graphCount, int nodesPerGraph) {
+        List<byte[]> messages = new ArrayList<>(graphCount * nodesPerGraph * 2);
+        int edgeId = 0;
+        for (int graph = 1; graph <= graphCount; graph++) {
+            for (int node = 1; node <= nodesPerGraph; node++) {
+                messages.add(("{\"node\":{\"attributes\":{\"id\":\"" + node + "\",\"graph_id\":\"" + graph
+                        + "\",\"label\":\"node-" + (node % 7) + "\"}}}").getBytes(StandardCharsets.UTF_8));
+                if (node > 1) {
+                    edgeId++;
+                    messages.add(("{\"edge\":{\"directed\":true,\"attributes\":{\"id\":\"" + edgeId
+                            + "\",\"graph_id\":\"" + graph + "\",\"source\":\"" + (node - 1) + "\",\"target\":\""
+                            + node + "\",\"label\":\"edge-" + (node % 3) + "\"}}}").getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,136 @@
+package edu.tntech.graph.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.tntech.graph.enumerator.GraphPropertyType;
+import edu.tntech.graph.helper.GraphHelper;
+import edu.tntech.graph.pojo.Edge;
+import edu.tntech.graph.pojo.GraphProperty;
+import edu.tntech.graph.pojo.Node;
+import edu.tntech.graph.stream.JsonStreamItemDecoder;
+import edu.tntech.graph.stream.StreamItemDecoder;
+import edu.tntech.graph.stream.StreamItemProcessor;
+import edu.tntech.graph.stream.TreeStreamItemDecoder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Micro benchmark comparing the stream item decoding paths.
+ * <p>
+ * Usage: StreamItemDecoderBenchmark [messages] [iterations]
+ */
+public class StreamItemDecoderBenchmark {
+
+    private static final int WARM_UP_ITERATIONS = 5;
+
+    private interface DecodePath {
+        GraphProperty decode(byte[] body) throws IOException;
+    }
+
+    public static void main(String... args) throws IOException {
+        int messageCount = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        List<byte[]> messages = _createMessages(messageCount);
+
+        ObjectMapper legacyMapper = new ObjectMapper();
+        StreamItemDecoder treeDecoder = new TreeStreamItemDecoder();
+        StreamItemDecoder streamingDecoder = new JsonStreamItemDecoder();
+
+        _run("legacy (readTree per message)", messages, iterations, body -> _legacyDecode(legacyMapper, body));
+        _run("tree decoder", messages, iterations, body -> treeDecoder.decode(body, 0, body.length));
+        _run("streaming decoder", messages, iterations, body -> streamingDecoder.decode(body, 0, body.length));
+    }
+
+    /**
+     * Decodes the item the way the consumer did before the decoders were introduced
+     *
+     * @param mapper processor mapper
+     * @param body   message body
+     * @return decoded item
+     * @throws IOException
+     */
+    private static GraphProperty _legacyDecode(ObjectMapper mapper, byte[] body) throws IOException {
+        StreamItemProcessor itemProcessor = new StreamItemProcessor();
+        itemProcessor.setStreamedItem(new String(body, StandardCharsets.UTF_8));
+        if (itemProcessor.getStreamedItemType() == GraphPropertyType.NODE) {
+            Node node = mapper.convertValue(itemProcessor.getStreamedItem(), Node.class);
+            node.setId(GraphHelper.getGraphIndex(node));
+            return node;
+        }
+        Edge edge = mapper.convertValue(itemProcessor.getStreamedItem(), Edge.class);
+        edge.setId(GraphHelper.getGraphIndex(edge));
+        edge.setTarget(GraphHelper.getEdgeTargetAttribute(edge));
+        edge.setSource(GraphHelper.getEdgeSourceAttribute(edge));
+        return edge;
+    }
+
+    /**
+     * Runs the decode path and prints the throughput
+     *
+     * @param name       name of the path
+     * @param messages   messages to decode
+     * @param iterations measured iterations
+     * @param path       decode path
+     * @throws IOException
+     */
+    private static void _run(String name, List<byte[]> messages, int iterations, DecodePath path)
+            throws IOException {
+        long checksum = 0;
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            checksum += _decodeAll(messages, path);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            checksum += _decodeAll(messages, path);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long items = (long) messages.size() * iterations;
+        System.out.printf("%-32s %8.1f ns/item %12.0f items/s (checksum %d)%n", name,
+                elapsed / (double) items, items / (elapsed / 1e9), checksum);
+    }
+
+    private static long _decodeAll(List<byte[]> messages, DecodePath path) throws IOException {
+        long checksum = 0;
+        for (byte[] body : messages) {
+            GraphProperty item = path.decode(body);
+            checksum += item.getId().length();
+        }
+        return checksum;
+    }
+
+    /**
+     * Creates node and edge messages in the format produced by the stream generator
+     *
+     * @param messageCount number of messages
+     * @return encoded messages
+     */
+    private static List<byte[]> _createMessages(int messageCount) {
+        List<byte[]> messages = new ArrayList<>(messageCount);
+        int graphId = 1;
+        int nodeId = 1;
+        for (int i = 0; i < messageCount; i++) {
+            String message;
+            if (i % 2 == 0) {
+                message = "{\"node\":{\"id\":\"" + nodeId + "\",\"timeStamp\":\"" + i + "\",\"attributes\":{"
+                        + "\"id\":\"" + nodeId + "\",\"graph_id\":\"" + graphId + "\",\"label\":\"provider\"}}}";
+                nodeId++;
+            } else {
+                message = "{\"edge\":{\"id\":\"" + i + "\",\"source\":\"" + (nodeId - 1) + "\",\"target\":\""
+                        + nodeId + "\",\"directed\":true,\"timeStamp\":\"" + i + "\",\"attributes\":{"
+                        + "\"id\":\"" + i + "\",\"graph_id\":\"" + graphId + "\",\"source\":\"" + (nodeId - 1)
+                        + "\",\"target\":\"" + nodeId + "\",\"label\":\"prescribe\"}}}";
+            }
+            if (nodeId > 10) {
+                nodeId = 1;
+                graphId++;
+            }
+            messages.add(message.getBytes(StandardCharsets.UTF_8));
+        }
+        return messages;
+    }
+}
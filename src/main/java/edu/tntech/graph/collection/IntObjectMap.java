@@ -0,0 +1,254 @@
+package edu.tntech.graph.collection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Open addressing hash map from primitive int keys to objects, without boxing.
+ * <p>
+ * Removal shifts the following entries back, so there are no tombstones, and the map shrinks once it is
+ * mostly empty, so random draws stay cheap after a burst of removals. Iterate with
+ * {@link #capacity()}, {@link #valueAt(int)} and {@link #keyAt(int)}: slots whose value is null are empty.
+ * Null values are not allowed. Not thread safe.
+ *
+ * @param <V> value type
+ */
+public class IntObjectMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+    private static final int RANDOM_PROBES = 32;
+    //the map halves once less than this share of its slots is used
+    private static final int SHRINK_DIVISOR = 8;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+    private int resizeAt;
+    //capacity the map was created with, it never shrinks below it
+    private final int minCapacity;
+
+    public IntObjectMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntObjectMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        this.minCapacity = capacity;
+        this._allocate(capacity);
+    }
+
+    /**
+     * Creates a copy of the map sharing its values, copying the arrays without rehashing
+     *
+     * @param other map to copy
+     */
+    public IntObjectMap(IntObjectMap<V> other) {
+        this.keys = other.keys.clone();
+        this.values = other.values.clone();
+        this.size = other.size;
+        this.mask = other.mask;
+        this.resizeAt = other.resizeAt;
+        this.minCapacity = other.minCapacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return values[this._find(key)] != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        return (V) values[this._find(key)];
+    }
+
+    /**
+     * Puts the value for the key
+     *
+     * @param key   key
+     * @param value value, not null
+     * @return previous value, null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported");
+        }
+        int slot = this._find(key);
+        V previous = (V) values[slot];
+        if (previous == null) {
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+        if (size > resizeAt) {
+            this._resize(keys.length << 1);
+        }
+        return previous;
+    }
+
+    /**
+     * Removes the key
+     *
+     * @param key key
+     * @return removed value, null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int slot = this._find(key);
+        V previous = (V) values[slot];
+        if (previous == null) {
+            return null;
+        }
+        size--;
+
+        // shift back the entries of the probe sequence so lookups never stop at the emptied slot
+        int free = slot;
+        int next = (free + 1) & mask;
+        while (values[next] != null) {
+            int home = _hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                keys[free] = keys[next];
+                values[free] = values[next];
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[free] = null;
+        if (size < values.length / SHRINK_DIVISOR && values.length > minCapacity) {
+            this._resize(values.length >> 1);
+        }
+        return previous;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Gets the number of slots, for iteration
+     *
+     * @return capacity
+     */
+    public int capacity() {
+        return values.length;
+    }
+
+    /**
+     * Gets the value of the slot
+     *
+     * @param slot slot index, lower than {@link #capacity()}
+     * @return value, null for empty slots
+     */
+    @SuppressWarnings("unchecked")
+    public V valueAt(int slot) {
+        return (V) values[slot];
+    }
+
+    /**
+     * Gets the slot holding the key, valid until the map is changed
+     *
+     * @param key key
+     * @return slot index, -1 if the key is not in the map
+     */
+    public int slotOf(int key) {
+        int slot = this._find(key);
+        return values[slot] == null ? -1 : slot;
+    }
+
+    /**
+     * Gets the key of a non empty slot
+     *
+     * @param slot slot index, lower than {@link #capacity()}
+     * @return key
+     */
+    public int keyAt(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * Draws a value uniformly, by probing random slots, or by counting the values up to a random rank if every
+     * probe hit an empty slot
+     *
+     * @param random source of randomness
+     * @return random value, null if the map is empty
+     */
+    @SuppressWarnings("unchecked")
+    public V getRandom(Random random) {
+        if (size == 0) {
+            return null;
+        }
+        for (int i = 0; i < RANDOM_PROBES; i++) {
+            int slot = random.nextInt(values.length);
+            if (values[slot] != null) {
+                return (V) values[slot];
+            }
+        }
+        int rank = random.nextInt(size);
+        int slot = 0;
+        while (values[slot] == null || rank-- > 0) {
+            slot++;
+        }
+        return (V) values[slot];
+    }
+
+    /**
+     * Copies the values into a list
+     *
+     * @return values
+     */
+    public List<V> values() {
+        List<V> list = new ArrayList<>(size);
+        for (int i = 0; i < values.length; i++) {
+            V value = this.valueAt(i);
+            if (value != null) {
+                list.add(value);
+            }
+        }
+        return list;
+    }
+
+    private int _find(int key) {
+        int slot = _hash(key) & mask;
+        while (values[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void _allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void _resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        this._allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = this._find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int _hash(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
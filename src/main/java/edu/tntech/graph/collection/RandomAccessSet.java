@@ -0,0 +1,195 @@
+package edu.tntech.graph.collection;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Set of elements keyed by a primitive long, stored densely in an array for uniform random draws.
+ * <p>
+ * An open addressing index maps each key to the position of its element. Removal moves the last element
+ * into the freed position, so the elements stay contiguous and {@link #getRandom(Random)} is a single
+ * array read. Nothing is allocated per operation once the arrays have grown. Not thread safe.
+ *
+ * @param <E> element type
+ */
+public class RandomAccessSet<E> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private Object[] elements;
+    private long[] elementKeys;
+    private int size;
+
+    //index from key to position + 1, 0 for empty slots
+    private long[] indexKeys;
+    private int[] indexPositions;
+    private int mask;
+
+    public RandomAccessSet() {
+        this.elements = new Object[DEFAULT_CAPACITY];
+        this.elementKeys = new long[DEFAULT_CAPACITY];
+        this._allocateIndex(Integer.highestOneBit((int) (DEFAULT_CAPACITY / LOAD_FACTOR) - 1) << 1);
+    }
+
+    /**
+     * Creates a copy of the set sharing its elements, copying the arrays without rehashing
+     *
+     * @param other set to copy
+     */
+    public RandomAccessSet(RandomAccessSet<E> other) {
+        this.elements = other.elements.clone();
+        this.elementKeys = other.elementKeys.clone();
+        this.size = other.size;
+        this.indexKeys = other.indexKeys.clone();
+        this.indexPositions = other.indexPositions.clone();
+        this.mask = other.mask;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(long key) {
+        return indexPositions[this._find(key)] != 0;
+    }
+
+    /**
+     * Adds the element, replacing the element of the same key
+     *
+     * @param key     key of the element
+     * @param element element, not null
+     * @return replaced element, null if the key was not in the set
+     */
+    @SuppressWarnings("unchecked")
+    public E add(long key, E element) {
+        if (element == null) {
+            throw new IllegalArgumentException("Null elements are not supported");
+        }
+        int slot = this._find(key);
+        if (indexPositions[slot] != 0) {
+            int position = indexPositions[slot] - 1;
+            E previous = (E) elements[position];
+            elements[position] = element;
+            return previous;
+        }
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size << 1);
+            elementKeys = Arrays.copyOf(elementKeys, size << 1);
+        }
+        elements[size] = element;
+        elementKeys[size] = key;
+        indexKeys[slot] = key;
+        indexPositions[slot] = ++size;
+        if (size > indexKeys.length * LOAD_FACTOR) {
+            this._resizeIndex(indexKeys.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Removes the element of the key
+     *
+     * @param key key of the element
+     * @return removed element, null if the key was not in the set
+     */
+    @SuppressWarnings("unchecked")
+    public E remove(long key) {
+        int slot = this._find(key);
+        if (indexPositions[slot] == 0) {
+            return null;
+        }
+        int position = indexPositions[slot] - 1;
+        E removed = (E) elements[position];
+        this._removeSlot(slot);
+
+        // move the last element into the gap
+        int last = --size;
+        if (position != last) {
+            elements[position] = elements[last];
+            elementKeys[position] = elementKeys[last];
+            indexPositions[this._find(elementKeys[position])] = position + 1;
+        }
+        elements[last] = null;
+        return removed;
+    }
+
+    /**
+     * Gets the element at a position, positions are dense but change on removal
+     *
+     * @param position position lower than {@link #size()}
+     * @return element
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int position) {
+        return (E) elements[position];
+    }
+
+    /**
+     * Draws an element uniformly at random
+     *
+     * @param random source of randomness
+     * @return random element, null if the set is empty
+     */
+    public E getRandom(Random random) {
+        return size == 0 ? null : this.get(random.nextInt(size));
+    }
+
+    public void clear() {
+        Arrays.fill(elements, 0, size, null);
+        Arrays.fill(indexPositions, 0);
+        size = 0;
+    }
+
+    private int _find(long key) {
+        int slot = _hash(key) & mask;
+        while (indexPositions[slot] != 0 && indexKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Empties the index slot, shifting back the entries of its probe sequence
+     *
+     * @param slot index slot
+     */
+    private void _removeSlot(int slot) {
+        int free = slot;
+        int next = (free + 1) & mask;
+        while (indexPositions[next] != 0) {
+            int home = _hash(indexKeys[next]) & mask;
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                indexKeys[free] = indexKeys[next];
+                indexPositions[free] = indexPositions[next];
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        indexPositions[free] = 0;
+    }
+
+    private void _allocateIndex(int capacity) {
+        indexKeys = new long[capacity];
+        indexPositions = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private void _resizeIndex(int capacity) {
+        this._allocateIndex(capacity);
+        for (int position = 0; position < size; position++) {
+            int slot = this._find(elementKeys[position]);
+            indexKeys[slot] = elementKeys[position];
+            indexPositions[slot] = position + 1;
+        }
+    }
+
+    private static int _hash(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
@@ -0,0 +1,34 @@
+package edu.tntech.graph.enumerator;
+
+/**
+ * Choice of the pending edge dropped when the pending edge buffer is full
+ */
+public enum EvictionPolicy {
+    OLDEST("oldest"),
+    LARGEST_GRAPH("largest-graph");
+
+    private String label;
+
+    private EvictionPolicy(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return this.label;
+    }
+
+    /**
+     * Gets the policy of the configured label
+     *
+     * @param label policy label
+     * @return eviction policy
+     */
+    public static EvictionPolicy fromLabel(String label) {
+        for (EvictionPolicy policy : values()) {
+            if (policy.label.equalsIgnoreCase(label)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("Unknown pending edge eviction policy " + label);
+    }
+}
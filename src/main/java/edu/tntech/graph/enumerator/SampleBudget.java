@@ -0,0 +1,34 @@
+package edu.tntech.graph.enumerator;
+
+/**
+ * Unit of the sample size of the whole graph sampling
+ */
+public enum SampleBudget {
+    GRAPHS("graphs"),
+    NODES("nodes");
+
+    private String label;
+
+    private SampleBudget(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return this.label;
+    }
+
+    /**
+     * Gets the budget of the configured label
+     *
+     * @param label budget label
+     * @return sample budget
+     */
+    public static SampleBudget fromLabel(String label) {
+        for (SampleBudget budget : values()) {
+            if (budget.label.equalsIgnoreCase(label)) {
+                return budget;
+            }
+        }
+        throw new IllegalArgumentException("Unknown sample budget " + label);
+    }
+}
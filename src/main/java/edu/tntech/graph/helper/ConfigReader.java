@@ -29,6 +29,15 @@ public class ConfigReader {
         }
     }
 
+    /**
+     * Creates a configuration from properties instead of the config file
+     *
+     * @param properties configuration properties
+     */
+    public ConfigReader(Properties properties) {
+        this.properties = properties;
+    }
+
     public String getProperty(String key) throws PropertyNotFoundException {
         String config = this.properties.getProperty(key);
         if (config == null) {
@@ -37,6 +46,31 @@ public class ConfigReader {
         return config;
     }
 
+    public String getProperty(String key, String defaultValue) {
+        return this.properties.getProperty(key, defaultValue);
+    }
+
+    /**
+     * Gets a property of a prefixed group, falling back to the property without the prefix
+     *
+     * @param prefix       group prefix, e.g. sampler.2.
+     * @param key          property key
+     * @param defaultValue value when neither property is set
+     * @return property value
+     */
+    public String getProperty(String prefix, String key, String defaultValue) {
+        return this.properties.getProperty(prefix + key, this.getProperty(key, defaultValue));
+    }
+
+    /**
+     * Replaces the configuration read by every component, to run them without the config file
+     *
+     * @param config configuration
+     */
+    public static void setInstance(ConfigReader config) {
+        configReader = config;
+    }
+
     public static ConfigReader getInstance() throws FileNotFoundException {
         if (configReader == null) {
             configReader = new ConfigReader();
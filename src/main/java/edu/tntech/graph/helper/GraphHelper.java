@@ -6,6 +6,7 @@ import edu.tntech.graph.pojo.GraphProperty;
 import edu.tntech.graph.pojo.Sample;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 
 public class GraphHelper {
@@ -17,41 +18,51 @@ public class GraphHelper {
     public static final String GRAPH_EDGE_TARGET_KEY = "target";
 
     public static String getGraphId(GraphProperty property) {
-        return (property.getAttributes().containsKey(GRAPH_ID_KEY)) ?
-                property.getAttributes().get(GRAPH_ID_KEY) : null;
+        return property.getGraphId();
     }
 
     public static String getGraphComment(GraphProperty property) {
-        return (property.getAttributes().containsKey(GRAPH_COMMENT_KEY)) ?
-                property.getAttributes().get(GRAPH_COMMENT_KEY) : null;
+        return property.getComment();
     }
 
     public static String getGraphLabel(GraphProperty property) {
-        return (property.getAttributes().containsKey(GRAPH_LABEL_KEY)) ?
-                "\"" + property.getAttributes().get(GRAPH_LABEL_KEY) + "\"" : null;
+        String label = property.getLabel();
+        return label != null ? "\"" + label + "\"" : null;
     }
 
     public static String getGraphIndex(GraphProperty property) {
-        return (property.getAttributes().containsKey(GRAPH_INDEX_KEY)) ?
-                property.getAttributes().get(GRAPH_INDEX_KEY) : null;
+        return property.getId();
     }
 
     public static String getEdgeSourceAttribute(Edge edge) {
-        return (edge.getAttributes().containsKey(GRAPH_EDGE_SOURCE_KEY)) ?
-                edge.getAttributes().get(GRAPH_EDGE_SOURCE_KEY) : null;
+        return edge.getSource();
     }
 
     public static String getEdgeTargetAttribute(Edge edge) {
-        return (edge.getAttributes().containsKey(GRAPH_EDGE_TARGET_KEY)) ?
-                edge.getAttributes().get(GRAPH_EDGE_TARGET_KEY) : null;
+        return edge.getTarget();
     }
 
     public static void setEdgeTargetAttribute(Edge edge, String targetId) {
-        edge.getAttributes().put(GRAPH_EDGE_TARGET_KEY, targetId);
+        edge.setTarget(targetId);
     }
 
     public static void setEdgeSourceAttribute(Edge edge, String sourceId) {
-        edge.getAttributes().put(GRAPH_EDGE_SOURCE_KEY, sourceId);
+        edge.setSource(sourceId);
+    }
+
+    /**
+     * Stores the sample as json, returning once the file is on disk
+     *
+     * @param sample sample to store
+     * @throws IOException
+     */
+    public static void storeSample(Sample sample) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        File sampleFile = new File(Helper.getInstance().getAbsolutePath(Sample.SAMPLE_FILE));
+        try (FileOutputStream stream = new FileOutputStream(sampleFile)) {
+            stream.write(mapper.writeValueAsBytes(sample));
+            stream.getFD().sync();
+        }
     }
 
     public static Sample getStoredSample() throws IOException{
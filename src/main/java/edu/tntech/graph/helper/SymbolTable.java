@@ -0,0 +1,113 @@
+package edu.tntech.graph.helper;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns graph ids, labels and node or edge ids to dense ints.
+ * <p>
+ * Each graph id is looked up once, when its item is decoded; the processor, sampler and writer then key
+ * everything by the int. Labels repeat across most items, so they are kept once in their own table and the
+ * items only hold the index. Node and edge ids that are not plain decimal ints are interned in a third
+ * table, the decimal ones need no lookup. Comments are not interned: they are mostly unique and would grow the table
+ * forever. Indexes are handed out in arrival order and never reused.
+ * <p>
+ * Interning new symbols is serialized, reading a symbol takes no lock: the symbols are kept in an array
+ * copied when it grows and republished through a volatile field after every addition.
+ */
+public class SymbolTable {
+
+    private static SymbolTable instance = null;
+    private static SymbolTable labels = null;
+    private static SymbolTable ids = null;
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private final ConcurrentHashMap<String, Integer> indexes;
+    private final Object lock;
+    private volatile String[] symbols;
+    private volatile int size;
+
+    private SymbolTable() {
+        this.indexes = new ConcurrentHashMap<>();
+        this.lock = new Object();
+        this.symbols = new String[DEFAULT_CAPACITY];
+    }
+
+    public static synchronized SymbolTable getInstance() {
+        if (instance == null) {
+            instance = new SymbolTable();
+        }
+        return instance;
+    }
+
+    /**
+     * Gets the dictionary of labels
+     *
+     * @return label table
+     */
+    public static synchronized SymbolTable getLabels() {
+        if (labels == null) {
+            labels = new SymbolTable();
+        }
+        return labels;
+    }
+
+    /**
+     * Gets the dictionary of the node and edge ids that are not decimal ints
+     *
+     * @return id table
+     */
+    public static synchronized SymbolTable getIds() {
+        if (ids == null) {
+            ids = new SymbolTable();
+        }
+        return ids;
+    }
+
+    /**
+     * Gets the index of the symbol, assigning the next one to new symbols
+     *
+     * @param symbol symbol
+     * @return index, -1 for null
+     */
+    public int intern(String symbol) {
+        if (symbol == null) {
+            return -1;
+        }
+        Integer index = indexes.get(symbol);
+        if (index != null) {
+            return index;
+        }
+        synchronized (lock) {
+            index = indexes.get(symbol);
+            if (index == null) {
+                index = size;
+                String[] grown = index < symbols.length ? symbols : Arrays.copyOf(symbols, index << 1);
+                grown[index] = symbol;
+                // publishes the symbol before its index
+                symbols = grown;
+                size = index + 1;
+                indexes.put(symbol, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Gets the symbol of the index
+     *
+     * @param index index returned by {@link #intern(String)}
+     * @return symbol, null for -1
+     */
+    public String getSymbol(int index) {
+        if (index < 0) {
+            return null;
+        }
+        return symbols[index];
+    }
+
+    public int size() {
+        return size;
+    }
+}
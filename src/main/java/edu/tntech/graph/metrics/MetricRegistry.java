@@ -0,0 +1,72 @@
+package edu.tntech.graph.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Process wide registry of named counters and gauges, reported at every window.
+ */
+public class MetricRegistry {
+    private static final Logger log = Logger.getLogger(MetricRegistry.class.getName());
+
+    private static MetricRegistry instance = null;
+
+    private final Map<String, LongAdder> counters;
+    private final Map<String, LongSupplier> gauges;
+
+    private MetricRegistry() {
+        this.counters = new ConcurrentHashMap<>();
+        this.gauges = new ConcurrentHashMap<>();
+    }
+
+    public static synchronized MetricRegistry getInstance() {
+        if (instance == null) {
+            instance = new MetricRegistry();
+        }
+        return instance;
+    }
+
+    /**
+     * Gets (or creates) the counter with the name
+     *
+     * @param name metric name
+     * @return counter
+     */
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    /**
+     * Registers a gauge, replacing any gauge with the same name
+     *
+     * @param name  metric name
+     * @param gauge supplier of the current value
+     */
+    public void gauge(String name, LongSupplier gauge) {
+        gauges.put(name, gauge);
+    }
+
+    /**
+     * Gets the current value of every metric
+     *
+     * @return metric name to value, sorted by name
+     */
+    public Map<String, Long> snapshot() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.sum()));
+        gauges.forEach((name, gauge) -> values.put(name, gauge.getAsLong()));
+        return values;
+    }
+
+    /**
+     * Logs the current value of every metric
+     */
+    public void report() {
+        log.log(Level.INFO, "Metrics: {0}", snapshot());
+    }
+}
@@ -1,6 +1,375 @@
 package edu.tntech.graph.parser;
 
+import edu.tntech.graph.helper.SymbolTable;
+import edu.tntech.graph.pojo.Edge;
+import edu.tntech.graph.pojo.GraphProperty;
+import edu.tntech.graph.pojo.Node;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Parser of GBAD graph (.g) files.
+ * <p>
+ * The file is memory mapped and tokenized in place: <code>XP #</code> lines start a graph,
+ * <code>v</code> lines are nodes and <code>d</code>, <code>u</code> and <code>e</code> lines are edges. The
+ * comment of an <code>XP</code> line (<code>XP # 1 //1194700146</code>) is the time stamp of every item of the
+ * graph. Negative example graphs (<code>XN #</code>) are not part of the stream and are skipped. Numbers are
+ * read straight from the bytes and labels are decoded and interned once per distinct label, so no String or
+ * attribute map is built per line. Every node and edge is handed to the listener as soon as it is read.
+ */
 public class Parser {
 
+    private static final long CHUNK_SIZE = 1L << 28;
+    private static final int ID_CACHE_SIZE = 1 << 16;
+    private static final int LABEL_CACHE_SIZE = 1 << 12;
+
+    /**
+     * Receives the parsed graph items
+     */
+    @FunctionalInterface
+    public interface ItemListener {
+        void onItem(GraphProperty item) throws InterruptedException;
+    }
+
+    private final ItemListener listener;
+
+    private final String[] idCache;
+    private final byte[][] labelCacheKeys;
+    private final int[] labelCacheValues;
+
+    private MappedByteBuffer buffer;
+    private int position;
+    private int limit;
+
+    private String graphId;
+    private int graphIndex;
+    private String graphTimeStamp;
+    private boolean negativeGraph;
+    private int edgeCount;
+    private long itemCount;
+
+    public Parser(ItemListener listener) {
+        this.listener = listener;
+        this.idCache = new String[ID_CACHE_SIZE];
+        this.labelCacheKeys = new byte[LABEL_CACHE_SIZE][];
+        this.labelCacheValues = new int[LABEL_CACHE_SIZE];
+    }
+
+    /**
+     * Parses the graph file
+     *
+     * @param file graph file
+     * @return number of nodes and edges read
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public long parse(Path file) throws IOException, InterruptedException {
+        graphId = null;
+        negativeGraph = false;
+        edgeCount = 0;
+        itemCount = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long offset = 0;
+            while (offset < size) {
+                long chunkSize = Math.min(CHUNK_SIZE, size - offset);
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, chunkSize);
+                limit = (int) chunkSize;
+                if (offset + chunkSize < size) {
+                    // only parse complete lines, the rest is mapped again with the next chunk
+                    limit = this._lastLineEnd();
+                    if (limit == 0) {
+                        throw new IOException("Line longer than " + CHUNK_SIZE + " bytes at offset " + offset);
+                    }
+                }
+                this._parseChunk();
+                offset += limit;
+            }
+        } finally {
+            buffer = null;
+        }
+        return itemCount;
+    }
+
+    /**
+     * Gets the end of the last complete line of the mapped chunk
+     *
+     * @return position after the last new line, 0 if there is none
+     */
+    private int _lastLineEnd() {
+        for (int i = limit - 1; i >= 0; i--) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Parses every line of the mapped chunk
+     *
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private void _parseChunk() throws IOException, InterruptedException {
+        position = 0;
+        while (position < limit) {
+            this._skipSpaces();
+            if (position >= limit) {
+                break;
+            }
+            byte type = buffer.get(position);
+            if (type == 'X') {
+                this._readGraph();
+            } else if (negativeGraph) {
+                // items of a negative graph are skipped with their line
+            } else if (type == 'v') {
+                position++;
+                this._readNode();
+            } else if (type == 'd' || type == 'u' || type == 'e') {
+                position++;
+                this._readEdge(type != 'u');
+            }
+            this._skipLine();
+        }
+    }
+
+    /**
+     * Reads the <code>XP # n //time stamp</code> line starting a new graph, or the <code>XN # n</code> line
+     * starting a negative graph whose items are skipped
+     *
+     * @throws IOException
+     */
+    private void _readGraph() throws IOException {
+        position++;
+        negativeGraph = position < limit && buffer.get(position) == 'N';
+        if (position < limit && (buffer.get(position) == 'P' || negativeGraph)) {
+            position++;
+        }
+        if (negativeGraph) {
+            return;
+        }
+        this._skipSpaces();
+        if (position < limit && buffer.get(position) == '#') {
+            position++;
+        }
+        graphId = String.valueOf(this._readInt());
+        graphIndex = SymbolTable.getInstance().intern(graphId);
+        graphTimeStamp = this._readComment();
+        edgeCount = 0;
+    }
+
+    /**
+     * Reads the <code>//</code> comment ending the line after optional spaces
+     *
+     * @return comment without its marker and surrounding spaces, null if the line has none
+     */
+    private String _readComment() {
+        this._skipSpaces();
+        if (position + 1 >= limit || buffer.get(position) != '/' || buffer.get(position + 1) != '/') {
+            return null;
+        }
+        position += 2;
+        this._skipSpaces();
+        int start = position;
+        int end = position;
+        while (position < limit && buffer.get(position) != '\n') {
+            if (!this._isSpace(buffer.get(position))) {
+                end = position + 1;
+            }
+            position++;
+        }
+        if (start == end) {
+            return null;
+        }
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the <code>v id label</code> line
+     *
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private void _readNode() throws IOException, InterruptedException {
+        String id = this._getIdString(this._readInt());
+        int label = this._readLabel();
+
+        Node node = new Node();
+        node.setId(id);
+        node.setGraphIndex(graphIndex);
+        node.setLabelIndex(label);
+        node.setTimeStamp(graphTimeStamp);
+        this._emit(node);
+    }
+
+    /**
+     * Reads the <code>d|u|e source target label</code> line
+     *
+     * @param directed true for directed edges
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private void _readEdge(boolean directed) throws IOException, InterruptedException {
+        String source = this._getIdString(this._readInt());
+        String target = this._getIdString(this._readInt());
+        int label = this._readLabel();
+        String id = this._getIdString(++edgeCount);
+
+        Edge edge = new Edge();
+        edge.setId(id);
+        edge.setSource(source);
+        edge.setTarget(target);
+        edge.setDirected(directed);
+        edge.setGraphIndex(graphIndex);
+        edge.setLabelIndex(label);
+        edge.setTimeStamp(graphTimeStamp);
+        this._emit(edge);
+    }
+
+    private void _emit(GraphProperty item) throws IOException, InterruptedException {
+        if (graphId == null) {
+            throw new IOException("Graph item found before the first XP line");
+        }
+        listener.onItem(item);
+        itemCount++;
+    }
+
+    /**
+     * Reads an unsigned integer after optional spaces
+     *
+     * @return integer value
+     * @throws IOException
+     */
+    private int _readInt() throws IOException {
+        this._skipSpaces();
+        int start = position;
+        int value = 0;
+        while (position < limit) {
+            byte digit = buffer.get(position);
+            if (digit < '0' || digit > '9') {
+                break;
+            }
+            value = value * 10 + (digit - '0');
+            position++;
+        }
+        if (start == position) {
+            throw new IOException("Number expected in graph " + graphId);
+        }
+        return value;
+    }
+
+    /**
+     * Reads a quoted or bare label after optional spaces
+     *
+     * @return label index in the label dictionary, -1 if the line has none
+     */
+    private int _readLabel() {
+        this._skipSpaces();
+        if (position >= limit || this._isCommentOrLineEnd()) {
+            return -1;
+        }
+        int start;
+        int end;
+        if (buffer.get(position) == '"') {
+            start = ++position;
+            while (position < limit && buffer.get(position) != '"' && buffer.get(position) != '\n') {
+                position++;
+            }
+            end = position;
+            if (position < limit && buffer.get(position) == '"') {
+                position++;
+            }
+        } else {
+            start = position;
+            while (position < limit && !this._isSpace(buffer.get(position)) && buffer.get(position) != '\n') {
+                position++;
+            }
+            end = position;
+        }
+        return this._getLabel(start, end);
+    }
+
+    /**
+     * Gets the label index of the bytes, decoding and interning each distinct label only once
+     *
+     * @param start start of the label
+     * @param end   end of the label
+     * @return label index
+     */
+    private int _getLabel(int start, int end) {
+        int length = end - start;
+        int hash = length;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + buffer.get(i);
+        }
+        int slot = (hash ^ (hash >>> 16)) & (LABEL_CACHE_SIZE - 1);
+
+        byte[] cached = labelCacheKeys[slot];
+        if (cached != null && cached.length == length && this._sameBytes(cached, start)) {
+            return labelCacheValues[slot];
+        }
+
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        int label = SymbolTable.getLabels().intern(new String(bytes, StandardCharsets.UTF_8));
+        labelCacheKeys[slot] = bytes;
+        labelCacheValues[slot] = label;
+        return label;
+    }
+
+    private boolean _sameBytes(byte[] bytes, int start) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != buffer.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String _getIdString(int id) {
+        if (id >= ID_CACHE_SIZE) {
+            return String.valueOf(id);
+        }
+        String cached = idCache[id];
+        if (cached == null) {
+            cached = String.valueOf(id);
+            idCache[id] = cached;
+        }
+        return cached;
+    }
+
+    private void _skipSpaces() {
+        while (position < limit && this._isSpace(buffer.get(position))) {
+            position++;
+        }
+    }
+
+    private void _skipLine() {
+        while (position < limit && buffer.get(position) != '\n') {
+            position++;
+        }
+        position++;
+    }
+
+    private boolean _isSpace(byte value) {
+        return value == ' ' || value == '\t' || value == '\r';
+    }
 
+    private boolean _isCommentOrLineEnd() {
+        byte value = buffer.get(position);
+        return value == '\n' || value == '%'
+                || (value == '/' && position + 1 < limit && buffer.get(position + 1) == '/');
+    }
 }
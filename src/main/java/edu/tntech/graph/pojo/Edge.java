@@ -3,7 +3,8 @@ package edu.tntech.graph.pojo;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import edu.tntech.graph.helper.GraphHelper;
 
-import java.util.Objects;
+import java.util.Map;
+
 
 public class Edge extends GraphProperty {
 
@@ -14,6 +15,11 @@ public class Edge extends GraphProperty {
 
     private boolean directed;
 
+    @JsonIgnore
+    private int sourceId = -1;
+    @JsonIgnore
+    private int targetId = -1;
+
     @JsonIgnore
     private Node sourceVertex;
     @JsonIgnore
@@ -24,12 +30,13 @@ public class Edge extends GraphProperty {
     }
 
     @JsonIgnore
-    public Integer getSourceId() {
-        return Integer.parseInt(source);
+    public int getSourceId() {
+        return sourceId;
     }
 
     public void setSource(String source) {
         this.source = source;
+        this.sourceId = internId(source);
     }
 
     public String getTarget() {
@@ -37,12 +44,13 @@ public class Edge extends GraphProperty {
     }
 
     @JsonIgnore
-    public Integer getTargetId() {
-        return Integer.parseInt(target);
+    public int getTargetId() {
+        return targetId;
     }
 
     public void setTarget(String target) {
         this.target = target;
+        this.targetId = internId(target);
     }
 
     public boolean isDirected() {
@@ -69,11 +77,40 @@ public class Edge extends GraphProperty {
         this.targetVertex = targetVertex;
     }
 
+    @Override
+    public Map<String, String> getAttributes() {
+        Map<String, String> attributes = super.getAttributes();
+        this.putAttribute(attributes, GraphHelper.GRAPH_EDGE_SOURCE_KEY, source);
+        this.putAttribute(attributes, GraphHelper.GRAPH_EDGE_TARGET_KEY, target);
+        return attributes;
+    }
+
+    @Override
+    public String getAttribute(String key) {
+        if (GraphHelper.GRAPH_EDGE_SOURCE_KEY.equals(key)) {
+            return source;
+        } else if (GraphHelper.GRAPH_EDGE_TARGET_KEY.equals(key)) {
+            return target;
+        }
+        return super.getAttribute(key);
+    }
+
+    @Override
+    public void setAttribute(String key, String value) {
+        if (GraphHelper.GRAPH_EDGE_SOURCE_KEY.equals(key)) {
+            this.setSource(value);
+        } else if (GraphHelper.GRAPH_EDGE_TARGET_KEY.equals(key)) {
+            this.setTarget(value);
+        } else {
+            super.setAttribute(key, value);
+        }
+    }
+
     @Override
     public String toString() {
         return "{" +
                 "id='" + id + '\'' +
-                "label='" + GraphHelper.getGraphLabel(this) + "'" +
+                "label='" + this.getLabel() + "'" +
 //                ", source='" + source + '\'' +
 //                ", target='" + target + '\'' +
 //                ", directed=" + directed +
@@ -87,15 +124,11 @@ public class Edge extends GraphProperty {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
 
-        Edge edge = (Edge) o;
-
-
-        return this.getId().equals(edge.getId());
+        return super.equals(o);
     }
 
     @Override
     public int hashCode() {
-//        return GraphHelper.getGraphIndex(this).hashCode();
-        return Objects.hash(super.hashCode(), GraphHelper.getEdgeSourceAttribute(this), GraphHelper.getEdgeTargetAttribute(this), GraphHelper.getGraphId(this));
+        return super.hashCode();
     }
 }
@@ -1,20 +1,41 @@
 package edu.tntech.graph.pojo;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import edu.tntech.graph.helper.GraphHelper;
+import edu.tntech.graph.helper.SymbolTable;
 
 import java.io.Serializable;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Objects;
 
+@JsonPropertyOrder({"id", "attributes", "timeStamp"})
 public class GraphProperty implements Serializable {
     protected String id;
-    protected Map<String, String> attributes;
     protected String timeStamp;
 
 
     @JsonIgnore
     protected int timeStep;
 
+    @JsonIgnore
+    protected int idNumber = -1;
+
+    @JsonIgnore
+    protected int graphIndex = -1;
+
+    //label index in the label dictionary
+    @JsonIgnore
+    protected int labelIndex = -1;
+
+    //comments are mostly unique (time stamps), so they are kept as is rather than interned
+    @JsonIgnore
+    protected String comment;
+
+    //attributes other than the well known keys, null while there are none
+    @JsonIgnore
+    protected Map<String, String> extraAttributes;
+
     public int getTimeStep() {
         return timeStep;
     }
@@ -27,23 +48,174 @@ public class GraphProperty implements Serializable {
         return id;
     }
 
+    public void setId(String id) {
+        this.id = id;
+        this.idNumber = internId(id);
+    }
+
+    /**
+     * Gets the int key of the id, the id itself for decimal ids
+     *
+     * @return id key, -1 without id
+     */
     @JsonIgnore
-    public Integer getIdNumber() {
-        return Integer.parseInt(id);
+    public int getIdNumber() {
+        return idNumber;
     }
 
-    public void setId(String id) {
-        this.id = id;
+    /**
+     * Gets the interned graph id
+     *
+     * @return graph index from the {@link SymbolTable}, -1 without graph id
+     */
+    @JsonIgnore
+    public int getGraphIndex() {
+        return graphIndex;
+    }
+
+    @JsonIgnore
+    public void setGraphIndex(int graphIndex) {
+        this.graphIndex = graphIndex;
+    }
+
+    @JsonIgnore
+    public String getGraphId() {
+        return SymbolTable.getInstance().getSymbol(graphIndex);
+    }
+
+    @JsonIgnore
+    public void setGraphId(String graphId) {
+        this.graphIndex = SymbolTable.getInstance().intern(graphId);
+    }
+
+    /**
+     * Gets the index of the label in the label dictionary
+     *
+     * @return label index from {@link SymbolTable#getLabels()}, -1 without label
+     */
+    @JsonIgnore
+    public int getLabelIndex() {
+        return labelIndex;
+    }
+
+    @JsonIgnore
+    public void setLabelIndex(int labelIndex) {
+        this.labelIndex = labelIndex;
+    }
+
+    @JsonIgnore
+    public String getLabel() {
+        return SymbolTable.getLabels().getSymbol(labelIndex);
+    }
+
+    @JsonIgnore
+    public void setLabel(String label) {
+        this.labelIndex = SymbolTable.getLabels().intern(label);
+    }
+
+    @JsonIgnore
+    public String getComment() {
+        return comment;
+    }
+
+    @JsonIgnore
+    public void setComment(String comment) {
+        this.comment = comment;
     }
 
+    /**
+     * Gets the attributes as a map, built from the typed fields (json representation of the attributes)
+     *
+     * @return attributes
+     */
     public Map<String, String> getAttributes() {
+        Map<String, String> attributes = new HashMap<>();
+        if (extraAttributes != null) {
+            attributes.putAll(extraAttributes);
+        }
+        this.putAttribute(attributes, GraphHelper.GRAPH_INDEX_KEY, id);
+        this.putAttribute(attributes, GraphHelper.GRAPH_ID_KEY, this.getGraphId());
+        this.putAttribute(attributes, GraphHelper.GRAPH_LABEL_KEY, this.getLabel());
+        this.putAttribute(attributes, GraphHelper.GRAPH_COMMENT_KEY, this.getComment());
         return attributes;
     }
 
+    /**
+     * Sets every attribute of the map
+     *
+     * @param attributes attributes
+     */
     public void setAttributes(Map<String, String> attributes) {
-        this.attributes = attributes;
+        this.extraAttributes = null;
+        if (attributes != null) {
+            attributes.forEach(this::setAttribute);
+        }
+    }
+
+    /**
+     * Gets the number of attributes other than the well known keys
+     *
+     * @return extra attribute count
+     */
+    @JsonIgnore
+    public int getExtraAttributeCount() {
+        return extraAttributes == null ? 0 : extraAttributes.size();
+    }
+
+    /**
+     * Gets an attribute
+     *
+     * @param key attribute key
+     * @return value, null if the attribute is not set
+     */
+    public String getAttribute(String key) {
+        switch (key) {
+            case GraphHelper.GRAPH_INDEX_KEY:
+                return id;
+            case GraphHelper.GRAPH_ID_KEY:
+                return this.getGraphId();
+            case GraphHelper.GRAPH_LABEL_KEY:
+                return this.getLabel();
+            case GraphHelper.GRAPH_COMMENT_KEY:
+                return this.getComment();
+            default:
+                return extraAttributes == null ? null : extraAttributes.get(key);
+        }
     }
 
+    /**
+     * Sets an attribute, the well known keys go to their typed field
+     *
+     * @param key   attribute key
+     * @param value attribute value
+     */
+    public void setAttribute(String key, String value) {
+        switch (key) {
+            case GraphHelper.GRAPH_INDEX_KEY:
+                this.setId(value);
+                break;
+            case GraphHelper.GRAPH_ID_KEY:
+                this.setGraphId(value);
+                break;
+            case GraphHelper.GRAPH_LABEL_KEY:
+                this.setLabel(value);
+                break;
+            case GraphHelper.GRAPH_COMMENT_KEY:
+                this.setComment(value);
+                break;
+            default:
+                if (extraAttributes == null) {
+                    extraAttributes = new HashMap<>(4);
+                }
+                extraAttributes.put(key, value);
+        }
+    }
+
+    protected void putAttribute(Map<String, String> attributes, String key, String value) {
+        if (value != null) {
+            attributes.put(key, value);
+        }
+    }
 
     public String getTimeStamp() {
         return timeStamp;
@@ -59,11 +231,48 @@ public class GraphProperty implements Serializable {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         GraphProperty obj = (GraphProperty) o;
-        return getIdNumber() == obj.getIdNumber();
+        return idNumber == obj.idNumber && graphIndex == obj.graphIndex;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id);
+        return 31 * graphIndex + idNumber;
+    }
+
+    /**
+     * Maps an id to its int key once, when it is set. A decimal id in the int range is its own key, any other
+     * id is interned in {@link SymbolTable#getIds()} and keyed below -1, so distinct ids never share a key.
+     *
+     * @param id id string
+     * @return id key, -1 for null
+     */
+    protected static int internId(String id) {
+        if (id == null) {
+            return -1;
+        }
+        int value = _parseId(id);
+        return value >= 0 ? value : -2 - SymbolTable.getIds().intern(id);
+    }
+
+    /**
+     * Parses an id written as a decimal int without sign or leading zeros, the only spelling of its value
+     *
+     * @param id id string
+     * @return id number, -1 if the id is not such an int
+     */
+    private static int _parseId(String id) {
+        int length = id.length();
+        if (length == 0 || length > 10 || (length > 1 && id.charAt(0) == '0')) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            char digit = id.charAt(i);
+            if (digit < '0' || digit > '9') {
+                return -1;
+            }
+            value = value * 10 + (digit - '0');
+        }
+        return value <= Integer.MAX_VALUE ? (int) value : -1;
     }
 }
@@ -1,56 +1,635 @@
 package edu.tntech.graph.pojo;
 
-import edu.tntech.graph.helper.GraphHelper;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import edu.tntech.graph.collection.IntObjectMap;
+import edu.tntech.graph.collection.RandomAccessSet;
+import edu.tntech.graph.helper.SymbolTable;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 public class Sample {
     public static final String STORE_SAMPLE_INDEX = "store-sample";
     public static final String SAMPLE_FILE = "sample.json";
 
-    private Map<String, Map<Integer, Node>> sampleNodes;
-    private Map<String, Map<Integer,Edge>> sampleEdges;
+    //graph index -> node id -> node
+    private IntObjectMap<IntObjectMap<Node>> sampleNodes;
+    //graph index -> edge id -> edge
+    private IntObjectMap<IntObjectMap<Edge>> sampleEdges;
 
+    //graph index -> node id -> edges incident to the node
+    private IntObjectMap<IntObjectMap<List<Edge>>> incidentEdges;
+
+    //graph index -> node id -> priority key the node was selected with, for merging samples
+    private IntObjectMap<IntObjectMap<Double>> nodePriorities;
+
+    //every sampled node and edge, for uniform draws over the whole sample
+    private RandomAccessSet<Node> nodeSet;
+    private RandomAccessSet<Edge> edgeSet;
+
+    //graph index -> true, graphs changed since the previous snapshot
+    private IntObjectMap<Boolean> changedGraphs;
+
+    //graph index -> true, graphs whose node, edge and priority maps are not shared with a snapshot
+    private IntObjectMap<Boolean> ownedGraphs;
+
+    //snapshots are read only, their incident edge index and random access sets are built on first use
+    private boolean frozen;
+    private int nodeCount;
+    private int edgeCount;
+
+    /**
+     * Gets a copy of the sampled nodes keyed by graph id (json representation of the sample)
+     *
+     * @return graph id -> node id -> node
+     */
     public Map<String, Map<Integer, Node>> getSampleNodes() {
-        return sampleNodes;
+        return _toMap(sampleNodes);
     }
 
     public void setSampleNodes(Map<String, Map<Integer, Node>> sampleNodes) {
-        this.sampleNodes = sampleNodes;
+        this.sampleNodes = new IntObjectMap<>();
+        this.nodeSet = new RandomAccessSet<>();
+        sampleNodes.values().forEach(nodes -> nodes.values().forEach(this::addNode));
     }
 
-    public Map<String, Map<Integer,Edge>> getSampleEdges() {
-        return sampleEdges;
+    /**
+     * Gets a copy of the sampled edges keyed by graph id (json representation of the sample)
+     *
+     * @return graph id -> edge id -> edge
+     */
+    public Map<String, Map<Integer, Edge>> getSampleEdges() {
+        return _toMap(sampleEdges);
+    }
+
+    public void setSampleEdges(Map<String, Map<Integer, Edge>> sampleEdges) {
+        this.sampleEdges = new IntObjectMap<>();
+        this.incidentEdges = new IntObjectMap<>();
+        this.edgeSet = new RandomAccessSet<>();
+        sampleEdges.values().forEach(edges -> edges.values().forEach(this::addEdge));
+    }
+
+    /**
+     * Gets a copy of the priority keys of the sampled nodes keyed by graph id, only sampling by priority sets them
+     *
+     * @return graph id -> node id -> priority key
+     */
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    public Map<String, Map<Integer, Double>> getNodePriorities() {
+        return _toMap(nodePriorities);
     }
 
-    public void setSampleEdges(Map<String, Map<Integer,Edge>> sampleEdges) {
-        this.sampleEdges = sampleEdges;
+    public void setNodePriorities(Map<String, Map<Integer, Double>> nodePriorities) {
+        SymbolTable symbols = SymbolTable.getInstance();
+        this.nodePriorities = new IntObjectMap<>();
+        nodePriorities.forEach((graphId, priorities) -> {
+            int graphIndex = symbols.intern(graphId);
+            priorities.forEach((nodeId, priority) -> this._getPriorities(graphIndex).put(nodeId, priority));
+        });
     }
 
     public Sample() {
        this.reset();
     }
 
-    public boolean sampleGraphContainsNode(Node node, String graphId) {
-        return this.sampleNodes.containsKey(graphId) && this.sampleNodes.get(graphId).containsKey(node.getId());
+    private Sample(Sample sample) {
+        this.sampleNodes = new IntObjectMap<>(sample.sampleNodes);
+        this.sampleEdges = new IntObjectMap<>(sample.sampleEdges);
+        this.nodePriorities = new IntObjectMap<>(sample.nodePriorities);
+        this.nodeCount = sample.getNodeCount();
+        this.edgeCount = sample.getEdgeCount();
+        this.changedGraphs = sample.changedGraphs;
+        this.frozen = true;
+    }
+
+    /**
+     * Copies the sample into a read only snapshot, so the sample of a window can be written while the stream
+     * goes on changing this one. The snapshot copies the graph index of the sample, O(graphs), and shares the
+     * node, edge and priority maps of every graph: this sample copies the maps of a graph the first time it
+     * changes after the snapshot. The graphs changed since the previous snapshot move to the new snapshot.
+     *
+     * @return frozen copy of the sample
+     */
+    public Sample snapshot() {
+        Sample snapshot = new Sample(this);
+        this.changedGraphs = new IntObjectMap<>();
+        this.ownedGraphs = new IntObjectMap<>();
+        return snapshot;
+    }
+
+    /**
+     * Gets the graphs whose nodes or edges changed since the previous snapshot, for a snapshot the ones
+     * changed in the window it closed
+     *
+     * @return graph index -> true, graphs no longer sampled included
+     */
+    @JsonIgnore
+    public IntObjectMap<Boolean> getChangedGraphs() {
+        return changedGraphs;
+    }
+
+    /**
+     * Marks as changed only the graphs whose nodes or edges differ from the previous sample, for a sample rebuilt
+     * as a whole every window (merged samples) where every graph was marked when it was added. Nodes and edges
+     * are compared by identity, the samples share the instances of the items that did not change.
+     *
+     * @param previous sample of the previous window, null if there is none and every graph changed
+     */
+    public void setChangedSince(Sample previous) {
+        this._checkNotFrozen();
+        if (previous == null) {
+            return;
+        }
+        this.changedGraphs = new IntObjectMap<>();
+        _markChanged(changedGraphs, sampleNodes, previous.sampleNodes);
+        _markChanged(changedGraphs, previous.sampleNodes, sampleNodes);
+        _markChanged(changedGraphs, sampleEdges, previous.sampleEdges);
+        _markChanged(changedGraphs, previous.sampleEdges, sampleEdges);
+    }
+
+    /**
+     * Checks if the sample is a read only snapshot
+     *
+     * @return true if the sample was taken with {@link #snapshot()}
+     */
+    @JsonIgnore
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Adds the node with the priority key it was selected with
+     *
+     * @param node     node to add
+     * @param priority priority key
+     * @return node previously sampled with the same id
+     */
+    public Node addNode(Node node, double priority) {
+        this._checkNotFrozen();
+        this._ownGraph(node.getGraphIndex());
+        this._getPriorities(node.getGraphIndex()).put(node.getIdNumber(), priority);
+        return this.addNode(node);
+    }
+
+    /**
+     * Gets the priority key the node was selected with
+     *
+     * @param graphIndex graph of the node
+     * @param nodeId     id of the node
+     * @return priority key, NaN if the node has none
+     */
+    public double getPriority(int graphIndex, int nodeId) {
+        IntObjectMap<Double> priorities = nodePriorities.get(graphIndex);
+        Double priority = priorities == null ? null : priorities.get(nodeId);
+        return priority == null ? Double.NaN : priority;
+    }
+
+    /**
+     * Gets the sampled nodes of every graph
+     *
+     * @return graph index -> node id -> node
+     */
+    @JsonIgnore
+    public IntObjectMap<IntObjectMap<Node>> getNodesByGraph() {
+        return sampleNodes;
+    }
+
+    /**
+     * Gets the sampled edges of every graph
+     *
+     * @return graph index -> edge id -> edge
+     */
+    @JsonIgnore
+    public IntObjectMap<IntObjectMap<Edge>> getEdgesByGraph() {
+        return sampleEdges;
+    }
+
+    /**
+     * Gets the number of sampled nodes over all graphs
+     *
+     * @return node count
+     */
+    @JsonIgnore
+    public int getNodeCount() {
+        return nodeSet == null ? nodeCount : nodeSet.size();
+    }
 
+    /**
+     * Gets the number of sampled edges over all graphs
+     *
+     * @return edge count
+     */
+    @JsonIgnore
+    public int getEdgeCount() {
+        return edgeSet == null ? edgeCount : edgeSet.size();
     }
 
-    public boolean sampleGraphContainsEdge(Edge edge, String graphId){
-        String edgeId = GraphHelper.getGraphIndex(edge);
-        return this.sampleEdges.containsKey(graphId) && this.sampleEdges.get(graphId).containsKey(edgeId);
+    /**
+     * Draws a sampled node uniformly over all graphs
+     *
+     * @param random source of randomness
+     * @return random node, null if the sample is empty
+     */
+    public Node getRandomNode(Random random) {
+        if (nodeSet == null) {
+            this.nodeSet = _toSet(sampleNodes);
+        }
+        return nodeSet.getRandom(random);
+    }
+
+    /**
+     * Draws a sampled edge uniformly over all graphs
+     *
+     * @param random source of randomness
+     * @return random edge, null if the sample has no edge
+     */
+    public Edge getRandomEdge(Random random) {
+        if (edgeSet == null) {
+            this.edgeSet = _toSet(sampleEdges);
+        }
+        return edgeSet.getRandom(random);
+    }
+
+    /**
+     * Gets the sampled nodes of the graph, the map must only be changed through the sample
+     *
+     * @param graphIndex interned graph id
+     * @return node id -> node, null if no node of the graph is sampled
+     */
+    public IntObjectMap<Node> getGraphNodes(int graphIndex) {
+        return sampleNodes.get(graphIndex);
+    }
+
+    /**
+     * Gets the sampled edges of the graph, the map must only be changed through the sample
+     *
+     * @param graphIndex interned graph id
+     * @return edge id -> edge, null if no edge of the graph is sampled
+     */
+    public IntObjectMap<Edge> getGraphEdges(int graphIndex) {
+        return sampleEdges.get(graphIndex);
+    }
+
+    /**
+     * Gets the sampled edges having the node as source or target
+     *
+     * @param graphIndex graph of the node
+     * @param nodeId     id of the node
+     * @return incident edges, empty if the node has none
+     */
+    public List<Edge> getIncidentEdges(int graphIndex, int nodeId) {
+        if (incidentEdges == null) {
+            this._indexEdges();
+        }
+        IntObjectMap<List<Edge>> graphEdges = incidentEdges.get(graphIndex);
+        List<Edge> edges = graphEdges == null ? null : graphEdges.get(nodeId);
+        return edges == null ? Collections.emptyList() : edges;
+    }
+
+    public boolean sampleGraphContainsNode(int graphIndex, int nodeId) {
+        IntObjectMap<Node> nodes = sampleNodes.get(graphIndex);
+        return nodes != null && nodes.containsKey(nodeId);
+    }
+
+    public boolean sampleGraphContainsNode(Node node) {
+        return node != null && this.sampleGraphContainsNode(node.getGraphIndex(), node.getIdNumber());
+    }
+
+    public boolean sampleGraphContainsEdge(Edge edge) {
+        IntObjectMap<Edge> edges = sampleEdges.get(edge.getGraphIndex());
+        return edges != null && edges.containsKey(edge.getIdNumber());
+    }
+
+    /**
+     * Adds the node to the sample of its graph
+     *
+     * @param node node to add
+     * @return node previously sampled with the same id
+     */
+    public Node addNode(Node node) {
+        this._checkNotFrozen();
+        this._ownGraph(node.getGraphIndex());
+        IntObjectMap<Node> nodes = sampleNodes.get(node.getGraphIndex());
+        if (nodes == null) {
+            nodes = new IntObjectMap<>();
+            sampleNodes.put(node.getGraphIndex(), nodes);
+        }
+        nodeSet.add(_getKey(node.getGraphIndex(), node.getIdNumber()), node);
+        changedGraphs.put(node.getGraphIndex(), Boolean.TRUE);
+        return nodes.put(node.getIdNumber(), node);
+    }
+
+    /**
+     * Removes the node from the sample, graphs without nodes are dropped
+     *
+     * @param graphIndex graph of the node
+     * @param nodeId     id of the node
+     * @return removed node
+     */
+    public Node removeNode(int graphIndex, int nodeId) {
+        this._checkNotFrozen();
+        this._ownGraph(graphIndex);
+        IntObjectMap<Node> nodes = sampleNodes.get(graphIndex);
+        if (nodes == null) {
+            return null;
+        }
+        Node removed = nodes.remove(nodeId);
+        if (removed != null) {
+            nodeSet.remove(_getKey(graphIndex, nodeId));
+            changedGraphs.put(graphIndex, Boolean.TRUE);
+            this._removePriority(graphIndex, nodeId);
+        }
+        if (nodes.isEmpty()) {
+            sampleNodes.remove(graphIndex);
+        }
+        return removed;
+    }
+
+    /**
+     * Adds the edge to the sample of its graph
+     *
+     * @param edge edge to add
+     * @return edge previously sampled with the same id
+     */
+    public Edge addEdge(Edge edge) {
+        this._checkNotFrozen();
+        this._ownGraph(edge.getGraphIndex());
+        IntObjectMap<Edge> edges = sampleEdges.get(edge.getGraphIndex());
+        if (edges == null) {
+            edges = new IntObjectMap<>();
+            sampleEdges.put(edge.getGraphIndex(), edges);
+        }
+        Edge previous = edges.put(edge.getIdNumber(), edge);
+        edgeSet.add(_getKey(edge.getGraphIndex(), edge.getIdNumber()), edge);
+        changedGraphs.put(edge.getGraphIndex(), Boolean.TRUE);
+        if (previous != null) {
+            this._unindexEdge(previous);
+        }
+        this._indexEdge(edge);
+        return previous;
+    }
+
+    /**
+     * Removes the node and every sampled edge incident to it, touching only the incident edges
+     *
+     * @param graphIndex graph of the node
+     * @param nodeId     id of the node
+     * @return removed node
+     */
+    public Node removeNodeWithEdges(int graphIndex, int nodeId) {
+        List<Edge> edges = this.getIncidentEdges(graphIndex, nodeId);
+        while (!edges.isEmpty()) {
+            Edge edge = edges.get(edges.size() - 1);
+            this.removeEdge(graphIndex, edge.getIdNumber());
+        }
+        return this.removeNode(graphIndex, nodeId);
+    }
+
+    /**
+     * Removes the edge from the sample, graphs without edges are dropped
+     *
+     * @param graphIndex graph of the edge
+     * @param edgeId     id of the edge
+     * @return removed edge
+     */
+    public Edge removeEdge(int graphIndex, int edgeId) {
+        this._checkNotFrozen();
+        this._ownGraph(graphIndex);
+        IntObjectMap<Edge> edges = sampleEdges.get(graphIndex);
+        if (edges == null) {
+            return null;
+        }
+        Edge removed = edges.remove(edgeId);
+        if (removed != null) {
+            edgeSet.remove(_getKey(graphIndex, edgeId));
+            changedGraphs.put(graphIndex, Boolean.TRUE);
+            this._unindexEdge(removed);
+        }
+        if (edges.isEmpty()) {
+            sampleEdges.remove(graphIndex);
+        }
+        return removed;
+    }
+
+    /**
+     * Removes every sampled node and edge of the graph
+     *
+     * @param graphIndex graph to remove
+     * @return number of removed nodes
+     */
+    public int removeGraph(int graphIndex) {
+        this._checkNotFrozen();
+        changedGraphs.put(graphIndex, Boolean.TRUE);
+        IntObjectMap<Edge> edges = sampleEdges.remove(graphIndex);
+        if (edges != null) {
+            for (int i = 0; i < edges.capacity(); i++) {
+                if (edges.valueAt(i) != null) {
+                    edgeSet.remove(_getKey(graphIndex, edges.keyAt(i)));
+                }
+            }
+        }
+        incidentEdges.remove(graphIndex);
+        nodePriorities.remove(graphIndex);
+        IntObjectMap<Node> nodes = sampleNodes.remove(graphIndex);
+        if (nodes == null) {
+            return 0;
+        }
+        for (int i = 0; i < nodes.capacity(); i++) {
+            if (nodes.valueAt(i) != null) {
+                nodeSet.remove(_getKey(graphIndex, nodes.keyAt(i)));
+            }
+        }
+        return nodes.size();
     }
 
     public void reset() {
-        this.sampleEdges = new HashMap<>();
-        this.sampleNodes = new HashMap<>();
+        this._checkNotFrozen();
+        this.sampleEdges = new IntObjectMap<>();
+        this.sampleNodes = new IntObjectMap<>();
+        this.incidentEdges = new IntObjectMap<>();
+        this.nodePriorities = new IntObjectMap<>();
+        this.nodeSet = new RandomAccessSet<>();
+        this.edgeSet = new RandomAccessSet<>();
+        this.changedGraphs = new IntObjectMap<>();
+        this.ownedGraphs = new IntObjectMap<>();
+    }
+
+    private void _checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("Sample snapshots are read only");
+        }
+    }
+
+    private void _indexEdges() {
+        this.incidentEdges = new IntObjectMap<>();
+        for (IntObjectMap<Edge> edges : sampleEdges.values()) {
+            edges.values().forEach(this::_indexEdge);
+        }
+    }
+
+    /**
+     * Copies the maps of the graph shared with the last snapshot before they change, once per snapshot
+     *
+     * @param graphIndex graph about to change
+     */
+    private void _ownGraph(int graphIndex) {
+        if (ownedGraphs.containsKey(graphIndex)) {
+            return;
+        }
+        ownedGraphs.put(graphIndex, Boolean.TRUE);
+        _copyGraph(sampleNodes, graphIndex);
+        _copyGraph(sampleEdges, graphIndex);
+        _copyGraph(nodePriorities, graphIndex);
+    }
+
+    private static <T> void _copyGraph(IntObjectMap<IntObjectMap<T>> properties, int graphIndex) {
+        IntObjectMap<T> graphProperties = properties.get(graphIndex);
+        if (graphProperties != null) {
+            properties.put(graphIndex, new IntObjectMap<>(graphProperties));
+        }
+    }
+
+    private static <T> RandomAccessSet<T> _toSet(IntObjectMap<IntObjectMap<T>> properties) {
+        RandomAccessSet<T> set = new RandomAccessSet<>();
+        for (int i = 0; i < properties.capacity(); i++) {
+            IntObjectMap<T> graphProperties = properties.valueAt(i);
+            for (int j = 0; graphProperties != null && j < graphProperties.capacity(); j++) {
+                T property = graphProperties.valueAt(j);
+                if (property != null) {
+                    set.add(_getKey(properties.keyAt(i), graphProperties.keyAt(j)), property);
+                }
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Marks the graphs having an item that is not in the other properties
+     *
+     * @param changed    graph index -> true, receiving the changed graphs
+     * @param properties nodes or edges by graph
+     * @param other      nodes or edges by graph they are compared with
+     */
+    private static <T> void _markChanged(IntObjectMap<Boolean> changed, IntObjectMap<IntObjectMap<T>> properties,
+                                         IntObjectMap<IntObjectMap<T>> other) {
+        for (int i = 0; i < properties.capacity(); i++) {
+            IntObjectMap<T> graphProperties = properties.valueAt(i);
+            int graphIndex = properties.keyAt(i);
+            if (graphProperties == null || changed.containsKey(graphIndex)) {
+                continue;
+            }
+            IntObjectMap<T> otherProperties = other.get(graphIndex);
+            boolean same = otherProperties != null && otherProperties.size() == graphProperties.size();
+            for (int j = 0; same && j < graphProperties.capacity(); j++) {
+                T property = graphProperties.valueAt(j);
+                same = property == null || otherProperties.get(graphProperties.keyAt(j)) == property;
+            }
+            if (!same) {
+                changed.put(graphIndex, Boolean.TRUE);
+            }
+        }
+    }
+
+    private IntObjectMap<Double> _getPriorities(int graphIndex) {
+        IntObjectMap<Double> priorities = nodePriorities.get(graphIndex);
+        if (priorities == null) {
+            priorities = new IntObjectMap<>();
+            nodePriorities.put(graphIndex, priorities);
+        }
+        return priorities;
+    }
+
+    private void _removePriority(int graphIndex, int nodeId) {
+        IntObjectMap<Double> priorities = nodePriorities.get(graphIndex);
+        if (priorities != null && priorities.remove(nodeId) != null && priorities.isEmpty()) {
+            nodePriorities.remove(graphIndex);
+        }
+    }
+
+    private static long _getKey(int graphIndex, int id) {
+        return ((long) graphIndex << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    private void _indexEdge(Edge edge) {
+        IntObjectMap<List<Edge>> graphEdges = incidentEdges.get(edge.getGraphIndex());
+        if (graphEdges == null) {
+            graphEdges = new IntObjectMap<>();
+            incidentEdges.put(edge.getGraphIndex(), graphEdges);
+        }
+        this._addIncidentEdge(graphEdges, edge.getSourceId(), edge);
+        if (edge.getTargetId() != edge.getSourceId()) {
+            this._addIncidentEdge(graphEdges, edge.getTargetId(), edge);
+        }
+    }
+
+    private void _addIncidentEdge(IntObjectMap<List<Edge>> graphEdges, int nodeId, Edge edge) {
+        List<Edge> edges = graphEdges.get(nodeId);
+        if (edges == null) {
+            edges = new ArrayList<>(2);
+            graphEdges.put(nodeId, edges);
+        }
+        edges.add(edge);
+    }
+
+    private void _unindexEdge(Edge edge) {
+        IntObjectMap<List<Edge>> graphEdges = incidentEdges.get(edge.getGraphIndex());
+        if (graphEdges == null) {
+            return;
+        }
+        this._removeIncidentEdge(graphEdges, edge.getSourceId(), edge);
+        this._removeIncidentEdge(graphEdges, edge.getTargetId(), edge);
+        if (graphEdges.isEmpty()) {
+            incidentEdges.remove(edge.getGraphIndex());
+        }
+    }
+
+    private void _removeIncidentEdge(IntObjectMap<List<Edge>> graphEdges, int nodeId, Edge edge) {
+        List<Edge> edges = graphEdges.get(nodeId);
+        if (edges == null) {
+            return;
+        }
+        for (int i = edges.size() - 1; i >= 0; i--) {
+            if (edges.get(i) == edge) {
+                // order of the incident edges does not matter, move the last one into the gap
+                edges.set(i, edges.get(edges.size() - 1));
+                edges.remove(edges.size() - 1);
+                break;
+            }
+        }
+        if (edges.isEmpty()) {
+            graphEdges.remove(nodeId);
+        }
+    }
+
+    private static <T> Map<String, Map<Integer, T>> _toMap(IntObjectMap<IntObjectMap<T>> properties) {
+        SymbolTable symbols = SymbolTable.getInstance();
+        Map<String, Map<Integer, T>> map = new LinkedHashMap<>();
+        for (int i = 0; i < properties.capacity(); i++) {
+            IntObjectMap<T> graphProperties = properties.valueAt(i);
+            if (graphProperties == null) {
+                continue;
+            }
+            Map<Integer, T> graphMap = new LinkedHashMap<>();
+            for (int j = 0; j < graphProperties.capacity(); j++) {
+                T property = graphProperties.valueAt(j);
+                if (property != null) {
+                    graphMap.put(graphProperties.keyAt(j), property);
+                }
+            }
+            map.put(symbols.getSymbol(properties.keyAt(i)), graphMap);
+        }
+        return map;
     }
 
     @Override
     public String toString() {
         return "Sample{" +
-                "sampleNodes=" + sampleNodes +
+                "sampleNodes=" + getSampleNodes() +
                 '}';
     }
 }
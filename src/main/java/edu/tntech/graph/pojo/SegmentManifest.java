@@ -0,0 +1,82 @@
+package edu.tntech.graph.pojo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Manifest of an incremental graph output, listing its segment files in the order to read them.
+ * <p>
+ * The first segment holds every sampled graph, each later one the graphs that changed in its window. A graph
+ * in a later segment replaces its earlier versions, a removed graph drops them. Every XP of a segment follows a
+ * comment line with its graph id.
+ */
+public class SegmentManifest {
+
+    /**
+     * Segment file written for a window
+     */
+    public static class Segment {
+        private int window;
+        private String file;
+        private boolean full;
+        private List<String> graphs = new ArrayList<>();
+        private List<String> removedGraphs = new ArrayList<>();
+
+        public int getWindow() {
+            return window;
+        }
+
+        public void setWindow(int window) {
+            this.window = window;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        public boolean isFull() {
+            return full;
+        }
+
+        public void setFull(boolean full) {
+            this.full = full;
+        }
+
+        public List<String> getGraphs() {
+            return graphs;
+        }
+
+        public void setGraphs(List<String> graphs) {
+            this.graphs = graphs;
+        }
+
+        public List<String> getRemovedGraphs() {
+            return removedGraphs;
+        }
+
+        public void setRemovedGraphs(List<String> removedGraphs) {
+            this.removedGraphs = removedGraphs;
+        }
+    }
+
+    private List<Segment> segments = new ArrayList<>();
+
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    public void setSegments(List<Segment> segments) {
+        this.segments = segments;
+    }
+
+    @Override
+    public String toString() {
+        return "SegmentManifest{" +
+                "segments=" + segments.size() +
+                '}';
+    }
+}
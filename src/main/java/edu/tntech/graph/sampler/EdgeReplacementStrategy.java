@@ -0,0 +1,86 @@
+package edu.tntech.graph.sampler;
+
+import edu.tntech.graph.pojo.Edge;
+import edu.tntech.graph.pojo.Node;
+import edu.tntech.graph.pojo.Sample;
+
+import java.util.Random;
+
+/**
+ * Makes room for a taken edge by removing random sampled edges, with the nodes left without edges,
+ * until the nodes of the taken edge fit in the sample size
+ */
+public class EdgeReplacementStrategy implements SamplingStrategy {
+
+    @Override
+    public void sampleEdge(Sampler sampler, Edge edge, Integer time) {
+        Sample sample = sampler.getSample();
+        if (sampler.getTotalSampledNodeCount() < sampler.getSampleSize()) {
+            sampler.addSampleEdge(edge);
+            return;
+        }
+        double uniformRandomNumber = sampler.getRandom().nextDouble();
+        if (uniformRandomNumber > sampler.getEdgeProbability() || sample.sampleGraphContainsEdge(edge)) {
+            return;
+        }
+        this.replaceSampleEdge(sampler, edge);
+    }
+
+    /**
+     * Removes at least one random sampled edge, then adds the edge once its nodes fit in the sample size
+     *
+     * @param sampler sampler holding the full sample
+     * @param edge    taken edge
+     */
+    protected void replaceSampleEdge(Sampler sampler, Edge edge) {
+        Sample sample = sampler.getSample();
+        Random random = sampler.getRandom();
+        do {
+            Edge edgeToReplace = sample.getRandomEdge(random);
+            if (edgeToReplace != null) {
+                this.removeSampleEdge(sample, edgeToReplace);
+            } else {
+                // only nodes without edges are left
+                Node nodeToReplace = sample.getRandomNode(random);
+                if (nodeToReplace == null) {
+                    break;
+                }
+                sample.removeNode(nodeToReplace.getGraphIndex(), nodeToReplace.getIdNumber());
+            }
+        } while (sample.getNodeCount() + this.getMissingNodeCount(sample, edge) > sampler.getSampleSize());
+        sampler.addSampleEdge(edge);
+    }
+
+    /**
+     * Removes the edge, and its nodes left without edges, from the sample
+     *
+     * @param sample sample
+     * @param edge   sampled edge
+     */
+    protected void removeSampleEdge(Sample sample, Edge edge) {
+        int graphIndex = edge.getGraphIndex();
+        sample.removeEdge(graphIndex, edge.getIdNumber());
+        if (sample.getIncidentEdges(graphIndex, edge.getSourceId()).isEmpty()) {
+            sample.removeNode(graphIndex, edge.getSourceId());
+        }
+        if (sample.getIncidentEdges(graphIndex, edge.getTargetId()).isEmpty()) {
+            sample.removeNode(graphIndex, edge.getTargetId());
+        }
+    }
+
+    /**
+     * Counts the nodes of the edge the sample does not hold yet
+     *
+     * @param sample sample
+     * @param edge   edge to be sampled
+     * @return 0, 1 or 2
+     */
+    protected int getMissingNodeCount(Sample sample, Edge edge) {
+        int graphIndex = edge.getGraphIndex();
+        int missing = sample.sampleGraphContainsNode(graphIndex, edge.getSourceId()) ? 0 : 1;
+        if (edge.getTargetId() != edge.getSourceId() && !sample.sampleGraphContainsNode(graphIndex, edge.getTargetId())) {
+            missing++;
+        }
+        return missing;
+    }
+}
@@ -0,0 +1,49 @@
+package edu.tntech.graph.sampler;
+
+import edu.tntech.graph.pojo.Edge;
+import edu.tntech.graph.pojo.Node;
+import edu.tntech.graph.pojo.Sample;
+
+/**
+ * Makes room for a taken edge by removing two random sampled nodes with their edges
+ */
+public class NodeReplacementStrategy implements SamplingStrategy {
+
+    /**
+     * Creates a graph sample
+     *
+     * @param sampler sampler holding the sample
+     * @param edge    edge to be sampled
+     * @param time    timestamp
+     * @author Niraj Rajbhandari <nrajbhand@students.tntech.edu>
+     */
+    @Override
+    public void sampleEdge(Sampler sampler, Edge edge, Integer time) {
+        Sample sample = sampler.getSample();
+        if (sampler.getTotalSampledNodeCount() < sampler.getSampleSize()) {
+            sampler.addSampleEdge(edge);
+        } else {
+            double uniformRandomNumber = sampler.getRandom().nextDouble();
+            if (uniformRandomNumber <= sampler.getEdgeProbability() && !sample.sampleGraphContainsEdge(edge)) {
+                this._replaceSampleNode(sample, sample.getRandomNode(sampler.getRandom()));
+                this._replaceSampleNode(sample, sample.getRandomNode(sampler.getRandom()));
+                sampler.addSampleEdge(edge);
+            }
+        }
+    }
+
+    /**
+     * Removes a node, and the edges containing it, from the sample to make room for a new edge
+     *
+     * @param sample sample
+     * @param node   Node to be removed
+     * @author Niraj Rajbhandari <nrajbhand42@students.tntech.edu>
+     */
+    private boolean _replaceSampleNode(Sample sample, Node node) {
+        if (node != null && sample.sampleGraphContainsNode(node)) {
+            return sample.removeNodeWithEdges(node.getGraphIndex(), node.getIdNumber()) != null;
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,147 @@
+package edu.tntech.graph.sampler;
+
+import edu.tntech.graph.collection.IntObjectMap;
+import edu.tntech.graph.pojo.Edge;
+import edu.tntech.graph.pojo.Node;
+import edu.tntech.graph.pojo.Sample;
+
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the nodes with the lowest priority keys seen in the stream (bottom-k sampling), with the edges
+ * between them.
+ * <p>
+ * The key of a node is a uniform hash of its graph id and id strings, salted by the configured seed, so a node
+ * seen in several edges keeps its key and every process sampling with the same seed gives it the same key. The
+ * keys are stored in the sample: samples of disjoint partitions of the stream are merged by keeping the lowest
+ * keys of their union, see {@link SampleMerger#mergeByPriority}, which needs every sample to share the seed.
+ */
+public class PrioritySamplingStrategy implements SamplingStrategy {
+
+    /**
+     * Sampled node and its key
+     */
+    private static final class Entry implements Comparable<Entry> {
+        private final Node node;
+        private final double priority;
+
+        private Entry(Node node, double priority) {
+            this.node = node;
+            this.priority = priority;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            // highest key first, the first node to leave the sample
+            return Double.compare(other.priority, priority);
+        }
+    }
+
+    private final PriorityQueue<Entry> sampledNodes;
+    private final long salt;
+    private boolean indexed;
+
+    /**
+     * Creates the strategy
+     *
+     * @param salt salt of the priority keys, see {@link #getSalt(long)}
+     */
+    public PrioritySamplingStrategy(long salt) {
+        this.sampledNodes = new PriorityQueue<>();
+        this.salt = salt;
+    }
+
+    /**
+     * Gets the salt of the priority keys of a seed, the same in every process
+     *
+     * @param seed configured seed
+     * @return salt
+     */
+    public static long getSalt(long seed) {
+        return _mix(seed);
+    }
+
+    /**
+     * Hashes the graph id and id of the node into a key uniform in [0, 1). The ids are hashed as strings, not by
+     * their interned index, so the key does not depend on the process.
+     *
+     * @param salt salt of the keys
+     * @param node node
+     * @return priority key
+     */
+    public static double getPriority(long salt, Node node) {
+        long hash = salt ^ ((long) Objects.hashCode(node.getGraphId()) << 32)
+                ^ (Objects.hashCode(node.getId()) & 0xFFFFFFFFL);
+        return (_mix(hash) >>> 11) * 0x1.0p-53;
+    }
+
+    @Override
+    public void sampleEdge(Sampler sampler, Edge edge, Integer time) {
+        Sample sample = sampler.getSample();
+        if (!indexed) {
+            indexed = true;
+            this._indexSample(sample);
+        }
+        this._offerNode(sampler, edge.getSourceVertex());
+        this._offerNode(sampler, edge.getTargetVertex());
+        if (!sample.sampleGraphContainsEdge(edge) && sample.sampleGraphContainsNode(edge.getSourceVertex())
+                && sample.sampleGraphContainsNode(edge.getTargetVertex())) {
+            sample.addEdge(edge);
+        }
+    }
+
+    /**
+     * Indexes the nodes of a sample restored from its json, by their stored keys
+     *
+     * @param sample restored sample
+     */
+    private void _indexSample(Sample sample) {
+        for (IntObjectMap<Node> graphNodes : sample.getNodesByGraph().values()) {
+            for (Node node : graphNodes.values()) {
+                double priority = sample.getPriority(node.getGraphIndex(), node.getIdNumber());
+                if (Double.isNaN(priority)) {
+                    priority = getPriority(salt, node);
+                    sample.addNode(node, priority);
+                }
+                sampledNodes.add(new Entry(node, priority));
+            }
+        }
+    }
+
+    /**
+     * Adds the node if its key is among the lowest ones, evicting the node with the highest key when full
+     *
+     * @param sampler sampler holding the sample
+     * @param node    endpoint of a streamed edge
+     */
+    private void _offerNode(Sampler sampler, Node node) {
+        Sample sample = sampler.getSample();
+        if (node == null || node.getGraphIndex() < 0 || sample.sampleGraphContainsNode(node)) {
+            return;
+        }
+        double priority = getPriority(salt, node);
+        if (sampledNodes.size() >= sampler.getSampleSize()) {
+            Entry highest = sampledNodes.peek();
+            if (highest == null || priority >= highest.priority) {
+                return;
+            }
+            sampledNodes.poll();
+            sample.removeNodeWithEdges(highest.node.getGraphIndex(), highest.node.getIdNumber());
+        }
+        sampledNodes.add(new Entry(node, priority));
+        sample.addNode(node, priority);
+    }
+
+    /**
+     * splitmix64 finalizer
+     *
+     * @param hash value to mix
+     * @return mixed value
+     */
+    private static long _mix(long hash) {
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        return hash ^ (hash >>> 31);
+    }
+}
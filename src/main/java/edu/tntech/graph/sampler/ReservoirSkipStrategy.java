@@ -0,0 +1,71 @@
+package edu.tntech.graph.sampler;
+
+import edu.tntech.graph.pojo.Edge;
+
+import java.util.Random;
+
+/**
+ * Reservoir sampling of the edges with skips (Vitter's Algorithm L).
+ * <p>
+ * Once the sample is full, the edges it holds form a reservoir of <code>k</code> edges. Instead of a random
+ * draw per edge, the number of edges to leave out before the next taken edge is drawn once, so skipped edges
+ * cost a counter decrement and are never looked up. A taken edge replaces random sampled edges like the
+ * edge replacement strategy, keeping the sample within the sample size in nodes.
+ */
+public class ReservoirSkipStrategy extends EdgeReplacementStrategy {
+
+    //edges in the sample when it filled up, 0 while filling
+    private int reservoirSize;
+    private double weight;
+    private long skip;
+
+    @Override
+    public boolean skipEdge() {
+        if (skip > 0) {
+            skip--;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void sampleEdge(Sampler sampler, Edge edge, Integer time) {
+        if (reservoirSize == 0) {
+            sampler.addSampleEdge(edge);
+            if (sampler.getTotalSampledNodeCount() >= sampler.getSampleSize()) {
+                reservoirSize = Math.max(1, sampler.getTotalSampledEdgeCount());
+                weight = Math.exp(Math.log(this._getRandom(sampler.getRandom())) / reservoirSize);
+                skip = this._getSkip(sampler.getRandom());
+            }
+            return;
+        }
+        if (!sampler.getSample().sampleGraphContainsEdge(edge)) {
+            this.replaceSampleEdge(sampler, edge);
+        }
+        weight *= Math.exp(Math.log(this._getRandom(sampler.getRandom())) / reservoirSize);
+        skip = this._getSkip(sampler.getRandom());
+    }
+
+    /**
+     * Draws the number of edges left out before the next taken edge
+     *
+     * @param random source of randomness
+     * @return skipped edge count
+     */
+    private long _getSkip(Random random) {
+        if (weight >= 1) {
+            return 0;
+        }
+        return (long) Math.floor(Math.log(this._getRandom(random)) / Math.log(1 - weight));
+    }
+
+    /**
+     * Draws a uniform random number in (0, 1], never 0 so that its logarithm is finite
+     *
+     * @param random source of randomness
+     * @return random number
+     */
+    private double _getRandom(Random random) {
+        return 1 - random.nextDouble();
+    }
+}
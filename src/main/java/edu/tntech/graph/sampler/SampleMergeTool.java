@@ -0,0 +1,48 @@
+package edu.tntech.graph.sampler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.tntech.graph.pojo.Sample;
+import edu.tntech.graph.writer.GraphWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Merges the sample.json snapshots of workers sampling disjoint partitions of the stream (by graph id)
+ * into one sample, written as json or, for a .g output, as a GBAD graph file.
+ * <p>
+ * Workers sampling with the <code>priority</code> strategy and at least the merged sample size give the
+ * sample of the whole stream. Usage: SampleMergeTool [sample size] [output] [sample.json...]
+ */
+public class SampleMergeTool {
+
+    private static final String GRAPH_FILE_EXTENSION = ".g";
+
+    public static void main(String... args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: SampleMergeTool [sample size] [output .json | .g] [sample.json...]");
+            return;
+        }
+        int sampleSize = Integer.parseInt(args[0]);
+        String output = args[1];
+
+        ObjectMapper mapper = new ObjectMapper();
+        List<Sample> samples = new ArrayList<>(args.length - 2);
+        for (int i = 2; i < args.length; i++) {
+            samples.add(mapper.readValue(new File(args[i]), Sample.class));
+        }
+        Sample merged = new SampleMerger(new Random()).mergeByPriority(samples, sampleSize);
+
+        if (output.endsWith(GRAPH_FILE_EXTENSION)) {
+            new GraphWriter(merged).write(Paths.get(output));
+        } else {
+            mapper.writeValue(new File(output), merged);
+        }
+        System.out.printf("Merged %d samples into %d nodes and %d edges: %s%n", samples.size(),
+                merged.getNodeCount(), merged.getEdgeCount(), output);
+    }
+}
@@ -0,0 +1,188 @@
+package edu.tntech.graph.sampler;
+
+import edu.tntech.graph.collection.IntObjectMap;
+import edu.tntech.graph.pojo.Edge;
+import edu.tntech.graph.pojo.Node;
+import edu.tntech.graph.pojo.Sample;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Merges samples of disjoint partitions of the stream into one sample.
+ * <p>
+ * Each partition contributes nodes in proportion to its weight (its share of the processed nodes): the nodes
+ * of its sample with the lowest keys, their priority key or else the same salted hash of their ids as
+ * {@link PrioritySamplingStrategy#getPriority(long, Node)}. The choice is
+ * uniform, and it is the same from one window to the next as long as the partition sample and quota are, so
+ * merging successive windows does not churn the output. Samples carrying priority keys are merged by keeping
+ * the nodes with the lowest keys instead, which needs no weights. Edges are kept when both of their nodes are
+ * kept.
+ */
+public class SampleMerger {
+
+    private final long salt;
+
+    public SampleMerger(Random random) {
+        this.salt = random.nextLong();
+    }
+
+    /**
+     * Merges the partition samples
+     *
+     * @param samples    samples of the partitions
+     * @param weights    weight of each partition
+     * @param sampleSize maximum number of nodes in the merged sample
+     * @return merged sample
+     */
+    public Sample merge(List<Sample> samples, long[] weights, int sampleSize) {
+        int[] quotas = this._getQuotas(samples, weights, sampleSize);
+        Sample merged = new Sample();
+        for (int i = 0; i < samples.size(); i++) {
+            this._addPartition(merged, samples.get(i), quotas[i]);
+        }
+        return merged;
+    }
+
+    /**
+     * Merges the partition samples by priority: the merged sample holds the nodes with the lowest priority keys
+     * of all the partitions, which is the sample of the whole stream when every partition kept at least the
+     * sample size. Nodes without a key get the hash of their ids.
+     *
+     * @param samples    samples of the partitions, taken by priority
+     * @param sampleSize maximum number of nodes in the merged sample
+     * @return merged sample
+     */
+    public Sample mergeByPriority(List<Sample> samples, int sampleSize) {
+        List<Node> nodes = new ArrayList<>();
+        List<Double> priorities = new ArrayList<>();
+        for (Sample sample : samples) {
+            for (IntObjectMap<Node> graphNodes : sample.getNodesByGraph().values()) {
+                for (Node node : graphNodes.values()) {
+                    nodes.add(node);
+                    priorities.add(this._getKey(sample, node));
+                }
+            }
+        }
+        Integer[] order = new Integer[nodes.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(priorities::get));
+
+        Sample merged = new Sample();
+        for (int i = 0; i < order.length && merged.getNodeCount() < sampleSize; i++) {
+            Node node = nodes.get(order[i]);
+            if (!merged.sampleGraphContainsNode(node)) {
+                merged.addNode(node, priorities.get(order[i]));
+            }
+        }
+        for (Sample sample : samples) {
+            this._addEdges(merged, sample);
+        }
+        return merged;
+    }
+
+    /**
+     * Splits the sample size between the partitions in proportion to their weight
+     *
+     * @param samples    samples of the partitions
+     * @param weights    weight of each partition
+     * @param sampleSize maximum number of nodes in the merged sample
+     * @return number of nodes to take from each partition
+     */
+    private int[] _getQuotas(List<Sample> samples, long[] weights, int sampleSize) {
+        int partitions = samples.size();
+        int[] sizes = new int[partitions];
+        int totalSize = 0;
+        double totalWeight = 0;
+        for (int i = 0; i < partitions; i++) {
+            sizes[i] = samples.get(i).getNodeCount();
+            totalSize += sizes[i];
+            totalWeight += weights[i];
+        }
+        if (totalSize <= sampleSize) {
+            return sizes;
+        }
+
+        int[] quotas = new int[partitions];
+        int assigned = 0;
+        for (int i = 0; i < partitions; i++) {
+            double share = totalWeight > 0 ? weights[i] / totalWeight : sizes[i] / (double) totalSize;
+            quotas[i] = Math.min(sizes[i], (int) Math.floor(sampleSize * share));
+            assigned += quotas[i];
+        }
+
+        // hand out what is left to the partitions that still have nodes
+        while (assigned < sampleSize) {
+            boolean assignedAny = false;
+            for (int i = 0; i < partitions && assigned < sampleSize; i++) {
+                if (quotas[i] < sizes[i]) {
+                    quotas[i]++;
+                    assigned++;
+                    assignedAny = true;
+                }
+            }
+            if (!assignedAny) {
+                break;
+            }
+        }
+        return quotas;
+    }
+
+    /**
+     * Adds the quota of partition nodes with the lowest keys, and the edges between them, to the merged sample
+     *
+     * @param merged    merged sample
+     * @param partition sample of the partition
+     * @param quota     number of nodes to take from the partition
+     */
+    private void _addPartition(Sample merged, Sample partition, int quota) {
+        List<Node> nodes = new ArrayList<>(partition.getNodeCount());
+        partition.getNodesByGraph().values().forEach(graphNodes -> nodes.addAll(graphNodes.values()));
+        if (quota < nodes.size()) {
+            nodes.sort(Comparator.comparingDouble(node -> this._getKey(partition, node)));
+        }
+        for (int i = 0; i < quota; i++) {
+            merged.addNode(nodes.get(i));
+        }
+
+        this._addEdges(merged, partition);
+    }
+
+    /**
+     * Gets the key of a node: its priority key if it was sampled by priority, else the priority key the merger
+     * salt gives it
+     *
+     * @param sample sample holding the node
+     * @param node   node
+     * @return key
+     */
+    private double _getKey(Sample sample, Node node) {
+        double priority = sample.getPriority(node.getGraphIndex(), node.getIdNumber());
+        if (!Double.isNaN(priority)) {
+            return priority;
+        }
+        return PrioritySamplingStrategy.getPriority(salt, node);
+    }
+
+    /**
+     * Adds the edges of the partition whose nodes are both in the merged sample
+     *
+     * @param merged    merged sample
+     * @param partition sample of the partition
+     */
+    private void _addEdges(Sample merged, Sample partition) {
+        for (IntObjectMap<Edge> graphEdges : partition.getEdgesByGraph().values()) {
+            for (Edge edge : graphEdges.values()) {
+                if (merged.sampleGraphContainsNode(edge.getGraphIndex(), edge.getSourceId())
+                        && merged.sampleGraphContainsNode(edge.getGraphIndex(), edge.getTargetId())) {
+                    merged.addEdge(edge);
+                }
+            }
+        }
+    }
+}
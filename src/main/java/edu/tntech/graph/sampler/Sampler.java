@@ -1,7 +1,6 @@
 package edu.tntech.graph.sampler;
 
-import com.fasterxml.jackson.core.JsonFactory;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.tntech.graph.exception.PropertyNotFoundException;
 import edu.tntech.graph.exception.SampleNotStoredException;
 import edu.tntech.graph.helper.ConfigReader;
 import edu.tntech.graph.helper.GraphHelper;
@@ -11,18 +10,21 @@ import edu.tntech.graph.pojo.Node;
 import edu.tntech.graph.pojo.Sample;
 import edu.tntech.graph.stream.StreamProcessor;
 
-import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.Collectors;
 
 public class Sampler {
 
+    public static final String SAMPLE_SIZE_PROPERTY = "sample-size";
+    public static final String SEED_PROPERTY = "seed";
+    public static final String GRAPH_FILE_PROPERTY = "graph-file";
+    public static final String SAMPLERS_PROPERTY = "samplers";
+    public static final String DEFAULT_SAMPLERS = "1";
+
     private static ConfigReader config;
 
     private Sample sample;
@@ -33,22 +35,108 @@ public class Sampler {
 
     private Helper helper;
 
-    private Sampler(Integer sampleSize) {
+    private StreamProcessor streamProcessor;
+
+    private SamplingStrategy samplingStrategy;
+
+    private Random random;
+
+    //graph file of the sample, null for the configured graph-file
+    private String graphFile;
+
+    private Sampler(Integer sampleSize, SamplingStrategy samplingStrategy, Random random) {
         this.sampleSize = sampleSize;
         this.helper = Helper.getInstance();
+        this.samplingStrategy = samplingStrategy;
+        this.random = random;
 
         setSample();
     }
 
+    private Sampler(Integer sampleSize, Sample sample, SamplingStrategy samplingStrategy, Random random) {
+        this.sampleSize = sampleSize;
+        this.helper = Helper.getInstance();
+        this.sample = sample;
+        this.samplingStrategy = samplingStrategy;
+        this.random = random;
+    }
+
+    /**
+     * Creates a sampler with an empty sample, independent of the process wide instance
+     *
+     * @param sampleSize       number of nodes in the sample
+     * @param samplingStrategy strategy sampling the streamed edges
+     * @param random           source of randomness of the sampler
+     * @return sampler
+     */
+    public static Sampler create(Integer sampleSize, SamplingStrategy samplingStrategy, Random random) {
+        return new Sampler(sampleSize, new Sample(), samplingStrategy, random);
+    }
+
+    /**
+     * Creates the additional sampler of the given number, configured by the <code>sampler.[number].</code>
+     * properties falling back to the global ones. Without its own graph file, the sample is written next to
+     * the configured graph file with the number appended to its name.
+     *
+     * @param config configuration
+     * @param number sampler number, from 2
+     * @return sampler with an empty sample
+     * @throws PropertyNotFoundException if the sample size or the graph file is not configured
+     */
+    public static Sampler create(ConfigReader config, int number) {
+        String prefix = "sampler." + number + ".";
+        int sampleSize = Integer.parseInt(_getRequiredProperty(config, prefix, SAMPLE_SIZE_PROPERTY));
+        Sampler sampler = new Sampler(sampleSize, new Sample(), SamplingStrategy.create(config, prefix),
+                createRandom(config.getProperty(prefix, SEED_PROPERTY, null)));
+        String graphFile = config.getProperty(prefix + GRAPH_FILE_PROPERTY, null);
+        if (graphFile == null) {
+            graphFile = _getRequiredProperty(config, prefix, GRAPH_FILE_PROPERTY);
+            int extension = graphFile.lastIndexOf('.');
+            graphFile = extension > 0
+                    ? graphFile.substring(0, extension) + "-" + number + graphFile.substring(extension)
+                    : graphFile + "-" + number;
+        }
+        sampler.graphFile = graphFile;
+        return sampler;
+    }
+
+    /**
+     * Gets a property of a sampler group, falling back to the property without the prefix
+     *
+     * @param config configuration
+     * @param prefix group prefix, e.g. sampler.2.
+     * @param key    property key
+     * @return property value
+     * @throws PropertyNotFoundException if neither property is set
+     */
+    private static String _getRequiredProperty(ConfigReader config, String prefix, String key) {
+        String value = config.getProperty(prefix, key, null);
+        if (value == null) {
+            throw new PropertyNotFoundException("Property: " + prefix + key + " or " + key + " not found");
+        }
+        return value;
+    }
+
     public static Sampler getInstance() throws FileNotFoundException {
         if (instance == null) {
             config = ConfigReader.getInstance();
-            int sampleSize = Integer.parseInt(config.getProperty("sample-size"));
-            instance = new Sampler(sampleSize);
+            int sampleSize = Integer.parseInt(config.getProperty(SAMPLE_SIZE_PROPERTY));
+            SamplingStrategy samplingStrategy = SamplingStrategy.create(config);
+            instance = new Sampler(sampleSize, samplingStrategy, createRandom(config.getProperty(SEED_PROPERTY, null)));
         }
         return instance;
     }
 
+    /**
+     * Creates a source of randomness, reproducible when a seed is given
+     *
+     * @param seed configured seed, null for an unseeded random
+     * @return random
+     */
+    public static Random createRandom(String seed) {
+        return seed == null ? new Random() : new Random(Long.parseLong(seed));
+    }
+
     public Integer getSampleSize() {
         return sampleSize;
     }
@@ -57,6 +145,45 @@ public class Sampler {
         return sample;
     }
 
+    /**
+     * Gets the source of randomness of the sampler, seeded when a seed is configured
+     *
+     * @return random
+     */
+    public Random getRandom() {
+        return random;
+    }
+
+    /**
+     * Gets the graph file the sample is written to
+     *
+     * @return path relative to the jar, null for the configured graph-file
+     */
+    public String getGraphFile() {
+        return graphFile;
+    }
+
+    public SamplingStrategy getSamplingStrategy() {
+        return samplingStrategy;
+    }
+
+    public void setSamplingStrategy(SamplingStrategy samplingStrategy) {
+        this.samplingStrategy = samplingStrategy;
+    }
+
+    public StreamProcessor getStreamProcessor() {
+        return streamProcessor;
+    }
+
+    /**
+     * Sets the processor whose processed nodes drive the edge probability
+     *
+     * @param streamProcessor processor feeding this sampler
+     */
+    public void setStreamProcessor(StreamProcessor streamProcessor) {
+        this.streamProcessor = streamProcessor;
+    }
+
     public void setSample() {
         System.out.println("=====================");
         System.out.println("=====================");
@@ -95,117 +222,66 @@ public class Sampler {
         return sample.getSampleEdges();
     }
 
-    public Integer getTotalSampledNodeCount() {
+    public int getTotalSampledNodeCount() {
         if (sample != null) {
-            return this.getSampleNodes().values().stream().mapToInt(Map::size).sum();
+            return sample.getNodeCount();
         }
 
         return 0;
 
     }
 
-    public Integer getTotalSampledEdgeCount() {
+    public int getTotalSampledEdgeCount() {
         if (sample != null)
-            return this.getSampleEdges().values().stream().mapToInt(Map::size).sum();
+            return sample.getEdgeCount();
 
         return 0;
     }
 
     /**
-     * Creates a graph sample
+     * Samples an edge with the sampling strategy
      *
      * @param edge edge to be sampled
      * @param time timestamp
-     * @author Niraj Rajbhandari <nrajbhand@students.tntech.edu>
      */
     public void createSampleGraphFromStream(Edge edge, Integer time) {
-        if (this.getTotalSampledNodeCount() < this.sampleSize) {
-            this._addSampleEdge(edge, false);
-        } else {
-            this._replaceSampleEdge(edge, time);
-        }
+        this.samplingStrategy.sampleEdge(this, edge, time);
     }
 
     /**
-     * Writes the content of the sample to a json file
+     * Checks if the sampling strategy leaves the next edge out without looking at it
      *
-     * @throws IOException
+     * @return true to skip the edge
      */
-    public void writeToFile() throws IOException {
-        JsonFactory factory = new JsonFactory();
-        ObjectMapper mapper = new ObjectMapper(factory);
-        File outputFile = new File(helper.getAbsolutePath(Sample.SAMPLE_FILE));
-        mapper.writeValue(outputFile, sample);
-        sample.reset();
+    public boolean skipEdge() {
+        return this.samplingStrategy.skipEdge();
     }
 
     /**
-     * Replaces sampled graph properties with new properties
-     *
-     * @param edge Replace with nodes related to the edge
-     * @param time timestamp
-     * @author Niraj Rajbhandari <nrajbhand42@students.tntech.edu>
-     */
-    private void _replaceSampleEdge(Edge edge, Integer time) {
-        double edgeProbability = this._getEdgeProbability();
-        double uniformRandomNumber = helper.getContinuousUniformRandomNumber(0, 1);
-        String graphId = GraphHelper.getGraphId(edge);
-        if (uniformRandomNumber <= edgeProbability && !this.sample.sampleGraphContainsEdge(edge, graphId)) {
-
-//          For sampling with replacing edges
-//            Edge edgeToReplace = this._getRandomEdge();
-
-//            if (this._removeSampleEdge(edgeToReplace)) {
-//                this._addSampleEdge(edge, true);
-//            }
-
-//          For sampling with replacing nodes
-            this._replaceSampleNode(this._getRandomNode());
-            this._replaceSampleNode(this._getRandomNode());
-            this._addSampleEdge(edge, true);
-        }
-    }
-
-    /**
-     * Checks if the graph contains the node
+     * Writes the content of the sample to a json file
      *
-     * @param node    node to be checked
-     * @param graphId graph in which to check the node
-     * @return boolean
+     * @throws IOException
      */
-    private boolean _sampleGraphContainsNode(Node node, String graphId) {
-        return this.sample.sampleGraphContainsNode(node, graphId);
+    public void writeToFile() throws IOException {
+        GraphHelper.storeSample(sample);
     }
 
     /**
-     * Add/Replace an edge from the sample
+     * Adds an edge and its nodes to the sample
      *
-     * @param edge       edge to be add or replaced
-     * @param isReplaced flag to check if the edge is to be replaced or added
-     * @return boolean for successful addition/replacement of edge
+     * @param edge edge to be added
+     * @return boolean for successful addition of the edge
      * @author Niraj Rajbhandari <nrajbhand42@students.tntech.edu>
      */
-    private boolean _addSampleEdge(Edge edge, boolean isReplaced) {
-        String graphId = GraphHelper.getGraphId(edge);
-        boolean addEdge = graphId != null
-                && (!isReplaced || (this._sampleGraphContainsNode(edge.getSourceVertex(), graphId)
-                && this._sampleGraphContainsNode(edge.getTargetVertex(), graphId)));
-        if (addEdge) {
-            if (!this.sample.getSampleEdges().containsKey(graphId)) {
-                this.sample.getSampleEdges().put(graphId, new HashMap<>());
-            }
-
-            if (!this.sample.sampleGraphContainsEdge(edge, graphId)) {
-                Map<Integer, Edge> sampledEdges = this.sample.getSampleEdges().get(graphId);
-                sampledEdges.put(edge.getIdNumber(), edge);
-                if (!isReplaced) {
-                    //Add nodes if the edge is not for replacement
-                    this._addSampleNode(edge);
-                }
-            }
-            return true;
+    boolean addSampleEdge(Edge edge) {
+        if (edge.getGraphIndex() < 0) {
+            return false;
         }
-        return false;
+        if (!this.sample.sampleGraphContainsEdge(edge)) {
+            this.sample.addEdge(edge);
+            this._addSampleNode(edge);
+        }
+        return true;
     }
 
     /**
@@ -226,174 +302,27 @@ public class Sampler {
      * @return
      */
     private boolean _addSampleNode(Node node) {
-        String graphId = GraphHelper.getGraphId(node);
-        if (graphId != null) {
-            if (!this.sample.getSampleNodes().containsKey(graphId)) {
-                this.sample.getSampleNodes().put(graphId, new HashMap<>());
-            }
-
-            Map<Integer, Node> sampledNodes = this.sample.getSampleNodes().get(graphId);
-            sampledNodes.put(node.getIdNumber(), node);
-            this.sample.getSampleNodes().put(graphId, sampledNodes);
-
+        if (node.getGraphIndex() >= 0) {
+            this.sample.addNode(node);
             return true;
         }
         return false;
     }
 
-    /**
-     * Removes a node from the sample
-     *
-     * @param node Node to be removed
-     * @author Niraj Rajbhandari <nrajbhand42@students.tntech.edu>
-     */
-    private boolean _replaceSampleNode(Node node) {
-        if (node != null && this.sample.sampleGraphContainsNode(node, GraphHelper.getGraphId(node))) {
-            this._removeEdgesWithNode(node);
-            this.sample.getSampleNodes().get(GraphHelper.getGraphId(node)).remove(node);
-            return this._addSampleNode(node);
-        }
-
-        return false;
-    }
-
-    /**
-     * Removes nodes in an edge [called when sampling by removing edges than nodes]
-     *
-     * @param edge
-     * @param graphId
-     * @return
-     */
-    private boolean _removeNodesOfEdge(Edge edge, String graphId) {
-
-        boolean status = true;
-        Node sourceVertex = edge.getSourceVertex();
-        Node targetVertex = edge.getTargetVertex();
-
-        Map<Integer, Node> nodesForGraph = this.sample.getSampleNodes().get(graphId);
-
-        Node removedSourceNode = nodesForGraph.remove(sourceVertex.getIdNumber());
-        Node removedTargetNode = nodesForGraph.remove(targetVertex.getIdNumber());
-
-        if ((removedSourceNode != null && !removedSourceNode.equals(sourceVertex)) ||
-                (removedTargetNode != null && !removedTargetNode.equals(targetVertex))) {
-            nodesForGraph.put(sourceVertex.getIdNumber(), sourceVertex);
-            nodesForGraph.put(targetVertex.getIdNumber(), targetVertex);
-            status = false;
-        }
-        this.sample.getSampleNodes().put(graphId, nodesForGraph);
-        return status;
-    }
-
-    /**
-     * Removes edge and related nodes [opposite of removing nodes and then edges]
-     *
-     * @param edge
-     * @return
-     */
-    private boolean _removeSampleEdge(Edge edge) {
-        String graphId = GraphHelper.getGraphId(edge);
-        boolean status = false;
-        if (this._removeNodesOfEdge(edge, graphId)) {
-            Map<Integer, Edge> edgesForGraph = this.sample.getSampleEdges().get(graphId);
-
-            Edge removedEdge = edgesForGraph.remove(edge.getId());
-
-            if (removedEdge.equals(edge)) {
-                this.sample.getSampleEdges().put(graphId, edgesForGraph);
-                status = true;
-            }
-        }
-
-        return status;
-    }
-
-    /**
-     * Removes edges containing the node
-     *
-     * @param node node that should occur in the edge to be removed
-     * @author Niraj Rajbhandari <nrajbhand42@students.tntech.edu>
-     */
-    private void _removeEdgesWithNode(Node node) {
-        String graphId = GraphHelper.getGraphId(node);
-        Map<Integer, Edge> removedEdgeList = this.sample.getSampleEdges().get(graphId).entrySet().stream()
-                .filter(e -> (!e.getValue().getTarget().equals(node.getId())
-                        && !e.getValue().getSource().equals(node.getId())))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        this.sample.getSampleEdges().put(graphId, removedEdgeList);
-    }
-
-    /**
-     * Gets Random Edge to be replaced for sampling
-     *
-     * @return random Edge
-     * @author Niraj Rajbhandari <nrajbhand42@students.tntech.edu>
-     */
-    private Edge _getRandomEdge() {
-        Edge randomEdge = null;
-        if (!this.sample.getSampleEdges().isEmpty()) {
-            String randomGraphId;
-            List<Edge> edgeForSelectedGraph;
-            while (randomEdge == null) {
-                randomGraphId = _getRandomGraphId();
-                edgeForSelectedGraph = new ArrayList<>(this.sample.getSampleEdges().get(randomGraphId).values());
-                if (!edgeForSelectedGraph.isEmpty()) {
-                    Integer randomEdgeIndex = ThreadLocalRandom.current().nextInt(edgeForSelectedGraph.size());
-                    randomEdge = edgeForSelectedGraph.get(randomEdgeIndex);
-                }
-
-            }
-        }
-        return randomEdge;
-    }
-
-    /**
-     * Gets random node to be replaced
-     *
-     * @return random Node
-     */
-    private Node _getRandomNode() {
-        Node randomNode = null;
-        if (!this.sample.getSampleEdges().isEmpty()) {
-            String randomGraphId;
-            List<Node> nodeForSelectedGraph;
-            while (randomNode == null) {
-                randomGraphId = _getRandomGraphId();
-                nodeForSelectedGraph = new ArrayList<>(this.sample.getSampleNodes().get(randomGraphId).values());
-                if (!nodeForSelectedGraph.isEmpty()) {
-                    Integer randomNodeIndex = ThreadLocalRandom.current().nextInt(nodeForSelectedGraph.size());
-                    randomNode = nodeForSelectedGraph.get(randomNodeIndex);
-                }
-            }
-        }
-        return randomNode;
-    }
-
     /**
      * Gets probability of edge being added to the sample
      *
      * @return
      */
-    private double _getEdgeProbability() {
-        try {
-            return this.sampleSize / (double) StreamProcessor.getInstance().getProcessedNodeCount();
-        } catch (IOException e) {
+    double getEdgeProbability() {
+        if (this.streamProcessor != null) {
+            return this.sampleSize / (double) this.streamProcessor.getProcessedNodeCount();
+        } else {
             double reservoirSampleProbability = 1 / (double) this.getTotalSampledEdgeCount();
             double simpleProbability = this.getTotalSampledNodeCount() / (double) this.getTotalSampledEdgeCount();
             return Math.max(reservoirSampleProbability, simpleProbability);
         }
     }
 
-    /**
-     * Gets random graph id from which to get random graph property to be replaced for sampling
-     *
-     * @return
-     */
-    private String _getRandomGraphId() {
-        return this.sample.getSampleNodes().keySet().stream()
-                .collect(Collectors.toList())
-                .get(ThreadLocalRandom.current().nextInt(this.sample.getSampleEdges().size()));
-    }
-
 
 }
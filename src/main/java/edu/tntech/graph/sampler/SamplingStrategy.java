@@ -0,0 +1,101 @@
+package edu.tntech.graph.sampler;
+
+import edu.tntech.graph.exception.PropertyNotFoundException;
+import edu.tntech.graph.helper.ConfigReader;
+import edu.tntech.graph.pojo.Edge;
+
+/**
+ * Decides how a streamed edge enters the sample of a {@link Sampler}.
+ * <p>
+ * The sample is filled with every edge until it holds the sample size in nodes, then edges are taken
+ * at random and replace part of the sample. Implementations differ in how edges are taken and in what
+ * they replace. They are driven by the thread processing the stream.
+ */
+public interface SamplingStrategy {
+
+    String STRATEGY_PROPERTY = "sampling-strategy";
+    String NODE_REPLACEMENT = "node-replacement";
+    String EDGE_REPLACEMENT = "edge-replacement";
+    String RESERVOIR_SKIP = "reservoir-skip";
+    String STRATIFIED = "stratified";
+    String PRIORITY = "priority";
+
+    /**
+     * Samples an edge whose nodes are processed
+     *
+     * @param sampler sampler holding the sample
+     * @param edge    streamed edge, with its source and target vertex set
+     * @param time    window of the edge
+     */
+    void sampleEdge(Sampler sampler, Edge edge, Integer time);
+
+    /**
+     * Checks if the next edge is left out of the sample without looking at it, called before its nodes
+     * are looked up
+     *
+     * @return true to skip the edge
+     */
+    default boolean skipEdge() {
+        return false;
+    }
+
+    /**
+     * Creates the strategy selected in the configuration
+     *
+     * @param config configuration
+     * @return strategy
+     */
+    static SamplingStrategy create(ConfigReader config) {
+        return create(config, "");
+    }
+
+    /**
+     * Creates the strategy selected in a prefixed group of the configuration
+     *
+     * @param config configuration
+     * @param prefix group prefix, falling back to the properties without prefix
+     * @return strategy
+     */
+    static SamplingStrategy create(ConfigReader config, String prefix) {
+        String name = config.getProperty(prefix, STRATEGY_PROPERTY, NODE_REPLACEMENT);
+        if (STRATIFIED.equalsIgnoreCase(name)) {
+            return new StratifiedStrategy(config.getProperty(prefix, StratifiedStrategy.QUOTA_PROPERTY,
+                    StratifiedStrategy.PROPORTIONAL_QUOTA));
+        }
+        if (PRIORITY.equalsIgnoreCase(name)) {
+            // keys are merged across samplers and processes, they must all be salted by the same seed
+            String seed = config.getProperty(prefix, Sampler.SEED_PROPERTY, null);
+            if (seed == null) {
+                String key = prefix.isEmpty() ? Sampler.SEED_PROPERTY
+                        : prefix + Sampler.SEED_PROPERTY + " or " + Sampler.SEED_PROPERTY;
+                throw new PropertyNotFoundException("Property: " + key + " not found, the priority strategy needs"
+                        + " a seed shared by the samples it is merged with");
+            }
+            return new PrioritySamplingStrategy(PrioritySamplingStrategy.getSalt(Long.parseLong(seed)));
+        }
+        return create(name);
+    }
+
+    /**
+     * Creates the strategy for the given name
+     *
+     * @param name strategy name (node-replacement | edge-replacement | reservoir-skip | stratified), the priority
+     *             strategy needs the seed of the configuration
+     * @return strategy
+     */
+    static SamplingStrategy create(String name) {
+        if (STRATIFIED.equalsIgnoreCase(name)) {
+            return new StratifiedStrategy(StratifiedStrategy.PROPORTIONAL_QUOTA);
+        }
+        if (PRIORITY.equalsIgnoreCase(name)) {
+            throw new IllegalArgumentException("The priority strategy is created from the configuration, with its seed");
+        }
+        if (RESERVOIR_SKIP.equalsIgnoreCase(name)) {
+            return new ReservoirSkipStrategy();
+        }
+        if (EDGE_REPLACEMENT.equalsIgnoreCase(name)) {
+            return new EdgeReplacementStrategy();
+        }
+        return new NodeReplacementStrategy();
+    }
+}
@@ -0,0 +1,159 @@
+package edu.tntech.graph.sampler;
+
+import edu.tntech.graph.collection.IntObjectMap;
+import edu.tntech.graph.pojo.Edge;
+import edu.tntech.graph.pojo.Node;
+import edu.tntech.graph.pojo.Sample;
+
+import java.util.Random;
+
+/**
+ * Samples every graph (stratum) within a quota of nodes, so a burst of a few large graphs cannot push the
+ * other graphs out of the sample.
+ * <p>
+ * The quota is either fixed or the share of the sample size proportional to the edges of the graph seen in
+ * the stream so far. An edge of a graph at its quota replaces random edges of the same graph, taken with the
+ * reservoir probability of the graph. An edge of a graph below its quota is added, making room in the graph
+ * of a random sampled node if that graph is over its quota and the sample is full. Every check is a lookup
+ * by graph index.
+ */
+public class StratifiedStrategy extends EdgeReplacementStrategy {
+
+    public static final String QUOTA_PROPERTY = "stratum-quota";
+    public static final String PROPORTIONAL_QUOTA = "proportional";
+
+    //an edge needs room for its two nodes
+    private static final int MIN_QUOTA = 2;
+    private static final int EVICTION_ATTEMPTS = 4;
+
+    //nodes per graph, 0 for quotas proportional to the stream share
+    private final int fixedQuota;
+    //graph index -> edges of the graph seen in the stream
+    private final IntObjectMap<long[]> seenEdges;
+    private long totalSeenEdges;
+
+    /**
+     * Creates the strategy
+     *
+     * @param quota nodes per graph, or proportional
+     */
+    public StratifiedStrategy(String quota) {
+        this.fixedQuota = PROPORTIONAL_QUOTA.equalsIgnoreCase(quota) ? 0 : Math.max(MIN_QUOTA, Integer.parseInt(quota));
+        this.seenEdges = new IntObjectMap<>();
+    }
+
+    @Override
+    public void sampleEdge(Sampler sampler, Edge edge, Integer time) {
+        int graphIndex = edge.getGraphIndex();
+        long[] graphSeenEdges = seenEdges.get(graphIndex);
+        if (graphSeenEdges == null) {
+            graphSeenEdges = new long[1];
+            seenEdges.put(graphIndex, graphSeenEdges);
+        }
+        graphSeenEdges[0]++;
+        totalSeenEdges++;
+
+        Sample sample = sampler.getSample();
+        if (sample.sampleGraphContainsEdge(edge)) {
+            return;
+        }
+        Random random = sampler.getRandom();
+        int quota = this._getQuota(sampler, graphIndex);
+        int missing = this.getMissingNodeCount(sample, edge);
+        if (this._getNodeCount(sample, graphIndex) + missing > quota) {
+            // reservoir over the edges of the graph
+            if (random.nextDouble() * graphSeenEdges[0] >= this._getEdgeCount(sample, graphIndex)) {
+                return;
+            }
+            while (this._getNodeCount(sample, graphIndex) + this.getMissingNodeCount(sample, edge) > quota) {
+                if (!this._removeRandomEdge(sample, graphIndex, random)) {
+                    return;
+                }
+            }
+            missing = this.getMissingNodeCount(sample, edge);
+        }
+        // a graph below its quota can still grow past the sample size, as can one that made room in itself
+        if (sample.getNodeCount() + missing > sampler.getSampleSize()
+                && !this._makeRoom(sampler, sampler.getSampleSize() - missing, random)) {
+            return;
+        }
+        sampler.addSampleEdge(edge);
+    }
+
+    /**
+     * Removes random edges from the graph of a random sampled node while that graph is over its quota,
+     * until the sample holds no more than the node count
+     *
+     * @param sampler   sampler holding the full sample
+     * @param nodeCount node count to get down to
+     * @param random    source of randomness
+     * @return true if the sample got down to the node count
+     */
+    private boolean _makeRoom(Sampler sampler, int nodeCount, Random random) {
+        Sample sample = sampler.getSample();
+        for (int i = 0; i < EVICTION_ATTEMPTS; i++) {
+            Node node = sample.getRandomNode(random);
+            if (node == null) {
+                return true;
+            }
+            int graphIndex = node.getGraphIndex();
+            int quota = this._getQuota(sampler, graphIndex);
+            while (sample.getNodeCount() > nodeCount && this._getNodeCount(sample, graphIndex) > quota) {
+                this._removeRandomEdge(sample, graphIndex, random);
+            }
+            if (sample.getNodeCount() <= nodeCount) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes a random edge of the graph with its nodes left without edges, or a random node of the graph
+     * if it has no edges
+     *
+     * @param sample     sample
+     * @param graphIndex graph
+     * @param random     source of randomness
+     * @return false if the graph has no nodes left
+     */
+    private boolean _removeRandomEdge(Sample sample, int graphIndex, Random random) {
+        IntObjectMap<Edge> edges = sample.getGraphEdges(graphIndex);
+        if (edges != null) {
+            this.removeSampleEdge(sample, edges.getRandom(random));
+            return true;
+        }
+        IntObjectMap<Node> nodes = sample.getGraphNodes(graphIndex);
+        if (nodes != null) {
+            sample.removeNode(graphIndex, nodes.getRandom(random).getIdNumber());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the quota of the graph
+     *
+     * @param sampler    sampler
+     * @param graphIndex graph
+     * @return maximum number of sampled nodes of the graph
+     */
+    private int _getQuota(Sampler sampler, int graphIndex) {
+        if (fixedQuota > 0) {
+            return fixedQuota;
+        }
+        long[] graphSeenEdges = seenEdges.get(graphIndex);
+        long share = graphSeenEdges == null ? 0 : sampler.getSampleSize() * graphSeenEdges[0] / totalSeenEdges;
+        return (int) Math.max(MIN_QUOTA, share);
+    }
+
+    private int _getNodeCount(Sample sample, int graphIndex) {
+        IntObjectMap<Node> nodes = sample.getGraphNodes(graphIndex);
+        return nodes == null ? 0 : nodes.size();
+    }
+
+    private int _getEdgeCount(Sample sample, int graphIndex) {
+        IntObjectMap<Edge> edges = sample.getGraphEdges(graphIndex);
+        return edges == null ? 0 : edges.size();
+    }
+}
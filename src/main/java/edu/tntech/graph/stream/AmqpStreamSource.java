@@ -0,0 +1,114 @@
+package edu.tntech.graph.stream;
+
+import com.rabbitmq.client.*;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Stream delivered by a RabbitMQ queue, acknowledged once per window.
+ * <p>
+ * A delivery that cannot be buffered because the consumer thread is interrupted is rejected and requeued.
+ * <p>
+ * Messages stay unacknowledged until their window is written, so the prefetch must cover a whole window plus the
+ * windows in flight in the writer, or the broker stops delivering before the window can fill.
+ */
+public class AmqpStreamSource implements StreamSource {
+
+    public static final String MESSAGE_QUEUE_PROPERTY = "message-queue";
+    public static final String QUEUE_CONNECTION_HOST_PROPERTY = "connection-host";
+    public static final String PREFETCH_COUNT_PROPERTY = "amqp-prefetch-count";
+
+    //largest prefetch count of basic.qos, 0 would mean unlimited
+    private static final int MAX_PREFETCH_COUNT = 65535;
+
+    private final String host;
+    private final String messageQueue;
+    private final int prefetchCount;
+
+    private Connection connection;
+    private Channel channel;
+
+    /**
+     * Creates the source of a queue
+     *
+     * @param host          broker host
+     * @param messageQueue  queue consumed
+     * @param prefetchCount unacknowledged messages delivered at most, capped to the broker limit
+     */
+    public AmqpStreamSource(String host, String messageQueue, int prefetchCount) {
+        this.host = host;
+        this.messageQueue = messageQueue;
+        this.prefetchCount = Math.max(1, Math.min(MAX_PREFETCH_COUNT, prefetchCount));
+    }
+
+    /**
+     * Gets the prefetch count covering the items of the window being filled and of the windows in flight
+     *
+     * @param windowItemLimit items per window
+     * @param inFlightWindows closed windows not yet acknowledged
+     * @return prefetch count
+     */
+    public static int getDefaultPrefetchCount(int windowItemLimit, int inFlightWindows) {
+        return (int) Math.min(MAX_PREFETCH_COUNT, (long) windowItemLimit * (Math.max(1, inFlightWindows) + 1));
+    }
+
+    @Override
+    public CompletableFuture<Void> start(IngestionPipeline pipeline) throws IOException {
+        CompletableFuture<Void> completed = new CompletableFuture<>();
+        try {
+            ConnectionFactory factory = new ConnectionFactory();
+            factory.setHost(host);
+            connection = factory.newConnection();
+        } catch (TimeoutException e) {
+            throw new IOException("Could not connect to " + host, e);
+        }
+        channel = connection.createChannel();
+        channel.addShutdownListener(cause -> completed.complete(null));
+        channel.basicQos(prefetchCount, true);
+        channel.queueDeclare(messageQueue, false, false, false, null);
+        channel.basicConsume(messageQueue, false, _getConsumer(channel, pipeline));
+        return completed;
+    }
+
+    @Override
+    public void acknowledge(long deliveryTag) throws IOException {
+        channel.basicAck(deliveryTag, true);
+    }
+
+    @Override
+    public boolean isFinite() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (connection != null && connection.isOpen()) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Gets the consumer for the message queue
+     *
+     * @param channel  Channel which is to be consumed by the consumer
+     * @param pipeline Pipeline buffering the delivered items
+     * @return Default Consumer
+     * @author Niraj Rajbhandari <nrajbhand42@students.tntech.edu>
+     */
+    private Consumer _getConsumer(Channel channel, IngestionPipeline pipeline) {
+        return new DefaultConsumer(channel) {
+            @Override
+            public void handleDelivery(String consumerTag, Envelope envelope, AMQP.BasicProperties properties, byte[] body) throws IOException {
+                try {
+                    pipeline.publish(body, envelope.getDeliveryTag());
+                } catch (InterruptedException e) {
+                    // requeued, or the next multiple acknowledgement would acknowledge the dropped message
+                    channel.basicNack(envelope.getDeliveryTag(), false, true);
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,93 @@
+package edu.tntech.graph.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Items bucketed by the window (time step) they arrived in, expired once they are older than the horizon.
+ * <p>
+ * The buckets form a ring of <code>horizon + 2</code> windows, so expiring a window only visits the items
+ * that arrived in the windows falling out of the horizon. The bucket lists are reused. Not thread safe,
+ * it is driven by the thread processing the stream.
+ *
+ * @param <T> item type
+ */
+public class ExpiryWheel<T> {
+
+    private final int horizon;
+    private final List<List<T>> buckets;
+    private final Consumer<T> expiry;
+
+    private int oldestTimeStep;
+    private int size;
+
+    /**
+     * Creates the wheel
+     *
+     * @param horizon number of windows an item is kept after the window it arrived in
+     * @param expiry  called for every expired item
+     */
+    public ExpiryWheel(int horizon, Consumer<T> expiry) {
+        if (horizon < 0) {
+            throw new IllegalArgumentException("Expiry horizon must not be negative");
+        }
+        this.horizon = horizon;
+        this.expiry = expiry;
+        this.buckets = new ArrayList<>(horizon + 2);
+        for (int i = 0; i < horizon + 2; i++) {
+            this.buckets.add(new ArrayList<>());
+        }
+    }
+
+    public int getHorizon() {
+        return horizon;
+    }
+
+    /**
+     * Gets the number of items in the wheel, including the ones already removed elsewhere
+     *
+     * @return item count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds an item
+     *
+     * @param item     item
+     * @param timeStep window the item arrived in
+     */
+    public void add(T item, int timeStep) {
+        if (timeStep < oldestTimeStep) {
+            timeStep = oldestTimeStep;
+        } else if (timeStep - oldestTimeStep >= buckets.size()) {
+            // the window moved on without expiring, make room for the new window first
+            this.expire(timeStep - 1);
+        }
+        buckets.get(timeStep % buckets.size()).add(item);
+        size++;
+    }
+
+    /**
+     * Expires the items older than the horizon
+     *
+     * @param timeStep current window, items that arrived more than the horizon before it expire
+     */
+    public void expire(int timeStep) {
+        int expiredBefore = timeStep - horizon;
+        // after a whole turn every bucket is empty, the windows skipped past it need no visit
+        int lastVisited = (int) Math.min(expiredBefore, (long) oldestTimeStep + buckets.size());
+        while (oldestTimeStep < lastVisited) {
+            List<T> bucket = buckets.get(oldestTimeStep % buckets.size());
+            for (T item : bucket) {
+                expiry.accept(item);
+            }
+            size -= bucket.size();
+            bucket.clear();
+            oldestTimeStep++;
+        }
+        oldestTimeStep = Math.max(oldestTimeStep, expiredBefore);
+    }
+}
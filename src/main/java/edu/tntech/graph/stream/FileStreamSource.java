@@ -0,0 +1,62 @@
+package edu.tntech.graph.stream;
+
+import edu.tntech.graph.parser.Parser;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Replays a GBAD graph file, its nodes and edges are published already decoded
+ */
+public class FileStreamSource implements StreamSource {
+    private static final Logger log = Logger.getLogger(FileStreamSource.class.getName());
+
+    public static final String STREAM_FILE_PROPERTY = "stream-file";
+
+    private final Path graphFile;
+    private Thread reader;
+
+    public FileStreamSource(Path graphFile) {
+        this.graphFile = graphFile;
+    }
+
+    @Override
+    public CompletableFuture<Void> start(IngestionPipeline pipeline) throws IOException {
+        CompletableFuture<Void> completed = new CompletableFuture<>();
+        reader = new Thread(() -> {
+            long[] sequence = new long[1];
+            Parser parser = new Parser(item -> pipeline.publish(item, ++sequence[0]));
+            try {
+                long itemCount = parser.parse(graphFile);
+                log.log(Level.INFO, "Read {0} graph items from {1}", new Object[]{itemCount, graphFile});
+                completed.complete(null);
+            } catch (IOException e) {
+                completed.completeExceptionally(e);
+            } catch (InterruptedException e) {
+                completed.complete(null);
+            }
+        }, "graph-file-reader");
+        reader.start();
+        return completed;
+    }
+
+    @Override
+    public void acknowledge(long deliveryTag) {
+        log.log(Level.FINE, "Graph file sampled up to item {0}", deliveryTag);
+    }
+
+    @Override
+    public boolean isFinite() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (reader != null && reader.isAlive()) {
+            reader.interrupt();
+        }
+    }
+}
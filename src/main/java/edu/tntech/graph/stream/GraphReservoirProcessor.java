@@ -0,0 +1,300 @@
+package edu.tntech.graph.stream;
+
+import edu.tntech.graph.collection.IntObjectMap;
+import edu.tntech.graph.enumerator.SampleBudget;
+import edu.tntech.graph.helper.ConfigReader;
+import edu.tntech.graph.metrics.MetricRegistry;
+import edu.tntech.graph.pojo.Edge;
+import edu.tntech.graph.pojo.GraphProperty;
+import edu.tntech.graph.pojo.Node;
+import edu.tntech.graph.pojo.Sample;
+import edu.tntech.graph.sampler.Sampler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Stream processor sampling whole graphs (XPs) instead of single nodes and edges.
+ * <p>
+ * The items of a graph are buffered until no item of the graph arrived for <code>graph-idle-windows</code>
+ * windows, or until the stream ends. The sealed graph then gets a uniform random priority and the sample
+ * keeps the graphs with the lowest priorities that fit the budget, in graphs or in nodes. Graphs enter and
+ * leave the sample as a whole, so GBAD only gets complete graphs. Items of a graph arriving within the
+ * expiry horizon after it was sealed are dropped rather than starting a partial graph.
+ */
+public class GraphReservoirProcessor implements GraphStreamProcessor {
+
+    public static final String SAMPLING_UNIT_PROPERTY = "sampling-unit";
+    public static final String ITEM_UNIT = "item";
+    public static final String GRAPH_UNIT = "graph";
+    public static final String SAMPLE_BUDGET_PROPERTY = "graph-sample-budget";
+    public static final String IDLE_WINDOWS_PROPERTY = "graph-idle-windows";
+    public static final String DEFAULT_IDLE_WINDOWS = "1";
+
+    /**
+     * Graph being buffered, then sealed
+     */
+    private static final class StreamedGraph implements Comparable<StreamedGraph> {
+        private final int graphIndex;
+        private IntObjectMap<Node> nodes;
+        private List<Edge> edges;
+        private int lastWindow;
+        private boolean sealed;
+        private double priority;
+        private int size;
+
+        private StreamedGraph(int graphIndex) {
+            this.graphIndex = graphIndex;
+            this.nodes = new IntObjectMap<>();
+            this.edges = new ArrayList<>();
+        }
+
+        @Override
+        public int compareTo(StreamedGraph other) {
+            // highest priority first, the first graph to leave the sample
+            return Double.compare(other.priority, priority);
+        }
+    }
+
+    private final StreamItemDecoder decoder;
+    private final SampleBudget budget;
+    private final int sampleSize;
+    private final Sample sample;
+    //draws the priorities of the sealed graphs, seeded when a seed is configured
+    private final Random random;
+
+    //graph index -> buffered or recently sealed graph
+    private final IntObjectMap<StreamedGraph> graphs;
+    private final ExpiryWheel<StreamedGraph> idleGraphs;
+    private final ExpiryWheel<StreamedGraph> sealedGraphs;
+    private final PriorityQueue<StreamedGraph> sampledGraphs;
+    private long sampledSize;
+    private int currentWindow;
+
+    private int openGraphCount;
+    private long sealedGraphCount;
+    private long evictedGraphCount;
+    private long lateItemCount;
+
+    /**
+     * Creates the processor
+     *
+     * @param sampleSize sample size, in graphs or in nodes as configured
+     * @throws IOException
+     */
+    public GraphReservoirProcessor(int sampleSize) throws IOException {
+        ConfigReader config = ConfigReader.getInstance();
+        this.decoder = StreamItemDecoder.create(config.getProperty(StreamItemDecoder.DECODER_PROPERTY,
+                StreamItemDecoder.STREAMING_DECODER));
+        this.budget = SampleBudget.fromLabel(config.getProperty(SAMPLE_BUDGET_PROPERTY, SampleBudget.NODES.getLabel()));
+        int idleWindows = Integer.parseInt(config.getProperty(IDLE_WINDOWS_PROPERTY, DEFAULT_IDLE_WINDOWS));
+        if (idleWindows < 1) {
+            throw new IllegalArgumentException(IDLE_WINDOWS_PROPERTY + " must be at least 1");
+        }
+        int horizon = Integer.parseInt(config.getProperty(StreamProcessor.EXPIRY_HORIZON_PROPERTY,
+                StreamProcessor.DEFAULT_EXPIRY_HORIZON));
+        this.sampleSize = sampleSize;
+        this.sample = new Sample();
+        this.random = Sampler.createRandom(config.getProperty(Sampler.SEED_PROPERTY, null));
+        this.graphs = new IntObjectMap<>();
+        this.idleGraphs = new ExpiryWheel<>(idleWindows - 1, this::_sealIdleGraph);
+        this.sealedGraphs = new ExpiryWheel<>(horizon, this::_forgetGraph);
+        this.sampledGraphs = new PriorityQueue<>();
+    }
+
+    @Override
+    public void readStreamedItem(byte[] data, int offset, int length, Integer windowCount) throws IOException {
+        this.processItem(this.decoder.decode(data, offset, length), windowCount);
+    }
+
+    /**
+     * Buffers the item with the other items of its graph
+     *
+     * @param item        node or edge
+     * @param windowCount window the item belongs to
+     */
+    @Override
+    public void processItem(GraphProperty item, Integer windowCount) {
+        if (item == null || item.getGraphIndex() < 0) {
+            return;
+        }
+        StreamedGraph graph = graphs.get(item.getGraphIndex());
+        if (graph == null) {
+            graph = new StreamedGraph(item.getGraphIndex());
+            graphs.put(item.getGraphIndex(), graph);
+            openGraphCount++;
+        } else if (graph.sealed) {
+            lateItemCount++;
+            return;
+        } else if (graph.lastWindow == windowCount) {
+            this._addItem(graph, item);
+            return;
+        }
+        graph.lastWindow = windowCount;
+        idleGraphs.add(graph, windowCount);
+        this._addItem(graph, item);
+    }
+
+    /**
+     * Seals the graphs idle for long enough and forgets the graphs sealed before the expiry horizon
+     *
+     * @param windowCount window that was completed
+     * @return sample of whole graphs
+     */
+    @Override
+    public Sample closeWindow(int windowCount) {
+        currentWindow = windowCount;
+        idleGraphs.expire(windowCount);
+        sealedGraphs.expire(windowCount);
+        return sample.snapshot();
+    }
+
+    /**
+     * Seals every buffered graph, the stream has no more items
+     *
+     * @return true if graphs were sealed
+     */
+    @Override
+    public boolean completeStream() {
+        if (openGraphCount == 0) {
+            return false;
+        }
+        for (StreamedGraph graph : graphs.values()) {
+            if (!graph.sealed) {
+                this._seal(graph);
+            }
+        }
+        return true;
+    }
+
+    public Sample getSample() {
+        return sample;
+    }
+
+    public int getOpenGraphCount() {
+        return openGraphCount;
+    }
+
+    public long getSealedGraphCount() {
+        return sealedGraphCount;
+    }
+
+    public int getSampledGraphCount() {
+        return sampledGraphs.size();
+    }
+
+    public long getEvictedGraphCount() {
+        return evictedGraphCount;
+    }
+
+    public long getLateItemCount() {
+        return lateItemCount;
+    }
+
+    @Override
+    public void registerMetrics(MetricRegistry metrics) {
+        metrics.gauge("graph.open", this::getOpenGraphCount);
+        metrics.gauge("graph.sealed", this::getSealedGraphCount);
+        metrics.gauge("graph.sampled", this::getSampledGraphCount);
+        metrics.gauge("graph.evicted", this::getEvictedGraphCount);
+        metrics.gauge("graph.late-items", this::getLateItemCount);
+        metrics.gauge("sample.nodes", sample::getNodeCount);
+        metrics.gauge("sample.edges", sample::getEdgeCount);
+    }
+
+    private void _addItem(StreamedGraph graph, GraphProperty item) {
+        if (item instanceof Node) {
+            if (!graph.nodes.containsKey(item.getIdNumber())) {
+                graph.nodes.put(item.getIdNumber(), (Node) item);
+            }
+        } else if (item instanceof Edge) {
+            graph.edges.add((Edge) item);
+        }
+    }
+
+    /**
+     * Seals a graph without items since it was added to the idle wheel, unless it got items since
+     *
+     * @param graph buffered graph
+     */
+    private void _sealIdleGraph(StreamedGraph graph) {
+        if (!graph.sealed && graph.lastWindow < currentWindow - idleGraphs.getHorizon()) {
+            this._seal(graph);
+        }
+    }
+
+    /**
+     * Forgets a graph sealed before the expiry horizon, its next items start a new graph
+     *
+     * @param graph sealed graph
+     */
+    private void _forgetGraph(StreamedGraph graph) {
+        if (graphs.get(graph.graphIndex) == graph) {
+            graphs.remove(graph.graphIndex);
+        }
+    }
+
+    /**
+     * Seals the graph and offers it to the sample, evicting the graphs with the highest priorities
+     * while the budget is exceeded
+     *
+     * @param graph buffered graph
+     */
+    private void _seal(StreamedGraph graph) {
+        graph.sealed = true;
+        graph.priority = random.nextDouble();
+        graph.size = budget == SampleBudget.GRAPHS ? 1 : graph.nodes.size();
+        openGraphCount--;
+        sealedGraphCount++;
+        sealedGraphs.add(graph, currentWindow);
+
+        // a graph still sampled from before the expiry horizon keeps its place
+        boolean sampled = !graph.nodes.isEmpty() && graph.size <= sampleSize
+                && sample.getGraphNodes(graph.graphIndex) == null;
+        if (sampled) {
+            sampledGraphs.add(graph);
+            sampledSize += graph.size;
+            while (sampledSize > sampleSize) {
+                StreamedGraph evicted = sampledGraphs.poll();
+                sampledSize -= evicted.size;
+                if (evicted == graph) {
+                    sampled = false;
+                } else {
+                    sample.removeGraph(evicted.graphIndex);
+                    evictedGraphCount++;
+                }
+            }
+        }
+        if (sampled) {
+            this._addToSample(graph);
+        }
+        graph.nodes = null;
+        graph.edges = null;
+    }
+
+    /**
+     * Adds the nodes of the graph, and the edges between them, to the sample
+     *
+     * @param graph sealed graph
+     */
+    private void _addToSample(StreamedGraph graph) {
+        for (int i = 0; i < graph.nodes.capacity(); i++) {
+            Node node = graph.nodes.valueAt(i);
+            if (node != null) {
+                sample.addNode(node);
+            }
+        }
+        for (Edge edge : graph.edges) {
+            Node source = graph.nodes.get(edge.getSourceId());
+            Node target = graph.nodes.get(edge.getTargetId());
+            if (source != null && target != null) {
+                edge.setSourceVertex(source);
+                edge.setTargetVertex(target);
+                sample.addEdge(edge);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package edu.tntech.graph.stream;
+
+import edu.tntech.graph.metrics.MetricRegistry;
+import edu.tntech.graph.pojo.GraphProperty;
+import edu.tntech.graph.pojo.Sample;
+import edu.tntech.graph.sampler.Sampler;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Consumes the decoded graph stream and keeps the sample of it
+ */
+public interface GraphStreamProcessor {
+
+    /**
+     * Decodes and processes a streamed item
+     *
+     * @param data        buffer holding the item
+     * @param offset      offset of the item in the buffer
+     * @param length      length of the item in bytes
+     * @param windowCount window the item belongs to
+     * @throws IOException
+     */
+    void readStreamedItem(byte[] data, int offset, int length, Integer windowCount) throws IOException;
+
+    /**
+     * Processes a decoded node or edge
+     *
+     * @param item        node or edge
+     * @param windowCount window the item belongs to
+     */
+    void processItem(GraphProperty item, Integer windowCount);
+
+    /**
+     * Completes the window, dropping stale stream state
+     *
+     * @param windowCount window that was completed
+     * @return frozen copy of the sample at the end of the window, left unchanged by the next items
+     */
+    Sample closeWindow(int windowCount);
+
+    /**
+     * Gets the samplers fed by the same stream besides the one whose sample closes the window
+     *
+     * @return additional samplers, each writing a snapshot of its sample to its own graph file
+     */
+    default List<Sampler> getEnsembleSamplers() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Completes the stream, the source has no more items
+     *
+     * @return true if the sample changed and the last window must be closed even without items
+     */
+    default boolean completeStream() {
+        return false;
+    }
+
+    /**
+     * Exports the live counters of the processor and its sample
+     *
+     * @param metrics registry to export to
+     */
+    default void registerMetrics(MetricRegistry metrics) {
+    }
+
+    /**
+     * Releases the resources held by the processor
+     */
+    default void shutdown() {
+    }
+}
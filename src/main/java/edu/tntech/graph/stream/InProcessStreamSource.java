@@ -0,0 +1,118 @@
+package edu.tntech.graph.stream;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-JVM stand-in for the message queue.
+ * <p>
+ * Producers of the same process put encoded items (same format as the queue messages) into a bounded
+ * queue, a delivery thread hands them to the pipeline. Delivery tags are assigned in order, so producers
+ * can follow the acknowledged tag to measure the end to end latency of the sampling.
+ */
+public class InProcessStreamSource implements StreamSource {
+
+    public static final String QUEUE_SIZE_PROPERTY = "in-process-queue-size";
+    public static final String DEFAULT_QUEUE_SIZE = "4096";
+
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private static InProcessStreamSource instance = null;
+
+    private final BlockingQueue<byte[]> queue;
+    private volatile boolean open;
+    private volatile long deliveredTag;
+    private volatile long acknowledgedTag;
+    private Thread delivery;
+
+    public InProcessStreamSource(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.open = true;
+    }
+
+    /**
+     * Gets the process wide source, for producers running next to the consumer
+     *
+     * @param capacity capacity used when the source is created
+     * @return source
+     */
+    public static synchronized InProcessStreamSource getInstance(int capacity) {
+        if (instance == null) {
+            instance = new InProcessStreamSource(capacity);
+        }
+        return instance;
+    }
+
+    /**
+     * Puts an encoded item into the queue, waiting while the queue is full
+     *
+     * @param message encoded node or edge
+     * @throws InterruptedException
+     */
+    public void put(byte[] message) throws InterruptedException {
+        if (!open) {
+            throw new IllegalStateException("Stream source is completed");
+        }
+        queue.put(message);
+    }
+
+    /**
+     * Ends the stream, the items already queued are still delivered
+     */
+    public void complete() {
+        open = false;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getDeliveredTag() {
+        return deliveredTag;
+    }
+
+    public long getAcknowledgedTag() {
+        return acknowledgedTag;
+    }
+
+    @Override
+    public CompletableFuture<Void> start(IngestionPipeline pipeline) {
+        CompletableFuture<Void> completed = new CompletableFuture<>();
+        delivery = new Thread(() -> {
+            try {
+                while (open || !queue.isEmpty()) {
+                    byte[] message = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                    if (message != null) {
+                        pipeline.publish(message, deliveredTag + 1);
+                        deliveredTag++;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            completed.complete(null);
+        }, "in-process-delivery");
+        delivery.start();
+        return completed;
+    }
+
+    @Override
+    public void acknowledge(long deliveryTag) {
+        acknowledgedTag = deliveryTag;
+    }
+
+    @Override
+    public boolean isFinite() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+        if (delivery != null && delivery.isAlive() && Thread.currentThread() != delivery) {
+            delivery.interrupt();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package edu.tntech.graph.stream;
+
+import edu.tntech.graph.helper.ConfigReader;
+import edu.tntech.graph.metrics.MetricRegistry;
+import edu.tntech.graph.pojo.GraphProperty;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Micro batched ingestion between the message delivery and the stream processor.
+ * <p>
+ * The delivery thread only copies the message into the {@link StreamItemBuffer}. A dedicated processing
+ * thread drains the buffer in batches and feeds the {@link GraphStreamProcessor} (and so the sampler). The same
+ * thread fires the window boundaries decided by the {@link WindowScheduler}, waiting on the buffer no longer
+ * than the window deadline.
+ */
+public class IngestionPipeline {
+    private static final Logger log = Logger.getLogger(IngestionPipeline.class.getName());
+
+    private static final String BUFFER_SIZE_PROPERTY = "ingest-buffer-size";
+    private static final String BATCH_SIZE_PROPERTY = "ingest-batch-size";
+    private static final String DEFAULT_BUFFER_SIZE = "4096";
+    private static final String DEFAULT_BATCH_SIZE = "256";
+
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final StreamItemBuffer buffer;
+    private final int batchSize;
+    private final GraphStreamProcessor processor;
+    private final WindowScheduler scheduler;
+    private final WindowListener windowListener;
+    private final Thread processingThread;
+
+    private volatile boolean running;
+    private volatile boolean closeWindowOnShutdown;
+    private volatile long processedDeliveryTag;
+
+    private volatile long batchCount;
+    private volatile long processedItemCount;
+    private volatile int lastBatchSize;
+    private volatile int maxBatchSize;
+
+    public IngestionPipeline(GraphStreamProcessor processor, WindowScheduler scheduler, WindowListener windowListener)
+            throws IOException {
+        ConfigReader config = ConfigReader.getInstance();
+        int bufferSize = Integer.parseInt(config.getProperty(BUFFER_SIZE_PROPERTY, DEFAULT_BUFFER_SIZE));
+        this.batchSize = Integer.parseInt(config.getProperty(BATCH_SIZE_PROPERTY, DEFAULT_BATCH_SIZE));
+        this.buffer = new StreamItemBuffer(bufferSize);
+        this.processor = processor;
+        this.scheduler = scheduler;
+        this.windowListener = windowListener;
+        this.processingThread = new Thread(this::_process, "stream-processor");
+        this._registerMetrics();
+    }
+
+    /**
+     * Starts the processing thread
+     */
+    public void start() {
+        running = true;
+        processingThread.start();
+    }
+
+    /**
+     * Stops the processing thread after the buffered items are processed
+     *
+     * @throws InterruptedException
+     */
+    public void shutdown() throws InterruptedException {
+        this.shutdown(false);
+    }
+
+    /**
+     * Stops the processing thread after the buffered items are processed
+     *
+     * @param closeWindow true to close the last window even if it is not complete (end of a finite stream)
+     * @throws InterruptedException
+     */
+    public void shutdown(boolean closeWindow) throws InterruptedException {
+        closeWindowOnShutdown = closeWindow;
+        running = false;
+        processingThread.join();
+    }
+
+    /**
+     * Copies a delivered message into the buffer
+     *
+     * @param body        message body
+     * @param deliveryTag delivery tag of the message
+     * @throws InterruptedException
+     */
+    public void publish(byte[] body, long deliveryTag) throws InterruptedException {
+        buffer.publish(body, 0, body.length, deliveryTag);
+    }
+
+    /**
+     * Puts an already decoded item into the buffer
+     *
+     * @param item        node or edge
+     * @param deliveryTag sequence number of the item
+     * @throws InterruptedException
+     */
+    public void publish(GraphProperty item, long deliveryTag) throws InterruptedException {
+        buffer.publish(item, deliveryTag);
+    }
+
+    /**
+     * Gets the delivery tag of the last processed message
+     *
+     * @return delivery tag
+     */
+    public long getProcessedDeliveryTag() {
+        return processedDeliveryTag;
+    }
+
+    public int getQueueDepth() {
+        return buffer.getDepth();
+    }
+
+    public long getBatchCount() {
+        return batchCount;
+    }
+
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public long getProcessedItemCount() {
+        return processedItemCount;
+    }
+
+    /**
+     * Processing loop, drains the buffer in batches until shut down
+     */
+    private void _process() {
+        try {
+            while (true) {
+                long timeout = Math.min(TimeUnit.MILLISECONDS.toNanos(POLL_TIMEOUT_MILLIS),
+                        scheduler.getNanosToDeadline());
+                int batch = buffer.awaitBatch(batchSize, timeout, TimeUnit.NANOSECONDS);
+                if (batch > 0) {
+                    this._processBatch(batch);
+                }
+                if (scheduler.isDue()) {
+                    this._closeWindow();
+                } else if (batch == 0 && !running) {
+                    if (closeWindowOnShutdown && (processor.completeStream() || scheduler.getItemCount() > 0)) {
+                        this._closeWindow();
+                    }
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Notifies the listener of the window boundary and opens the next window
+     */
+    private void _closeWindow() {
+        int windowCount = scheduler.closeWindow();
+        try {
+            windowListener.windowClosed(windowCount, processedDeliveryTag);
+        } catch (Exception e) {
+            log.log(Level.SEVERE, "Could not complete window " + windowCount, e);
+        }
+    }
+
+    /**
+     * Processes the batch of buffered items
+     *
+     * @param batch number of items in the batch
+     */
+    private void _processBatch(int batch) {
+        for (int i = 0; i < batch; i++) {
+            StreamItemBuffer.Slot slot = buffer.getSlot(i);
+            try {
+                if (slot.getItem() != null) {
+                    processor.processItem(slot.getItem(), scheduler.getWindowCount());
+                } else {
+                    processor.readStreamedItem(slot.getBody(), 0, slot.getLength(), scheduler.getWindowCount());
+                }
+            } catch (Exception e) {
+                log.log(Level.WARNING, "Could not process streamed item", e);
+            }
+            processedDeliveryTag = slot.getDeliveryTag();
+            if (scheduler.itemProcessed()) {
+                this._closeWindow();
+            }
+        }
+        buffer.release(batch);
+
+        batchCount++;
+        processedItemCount += batch;
+        lastBatchSize = batch;
+        if (batch > maxBatchSize) {
+            maxBatchSize = batch;
+        }
+    }
+
+    /**
+     * Registers queue depth and batch size metrics
+     */
+    private void _registerMetrics() {
+        MetricRegistry metrics = MetricRegistry.getInstance();
+        metrics.gauge("ingest.queue-depth", this::getQueueDepth);
+        metrics.gauge("ingest.queue-capacity", buffer::getCapacity);
+        metrics.gauge("ingest.batches", this::getBatchCount);
+        metrics.gauge("ingest.items", this::getProcessedItemCount);
+        metrics.gauge("ingest.batch-size.last", this::getLastBatchSize);
+        metrics.gauge("ingest.batch-size.max", this::getMaxBatchSize);
+        metrics.gauge("ingest.batch-size.mean", () -> batchCount == 0 ? 0 : processedItemCount / batchCount);
+    }
+}
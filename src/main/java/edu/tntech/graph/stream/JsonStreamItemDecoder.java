@@ -0,0 +1,126 @@
+package edu.tntech.graph.stream;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import edu.tntech.graph.enumerator.GraphPropertyType;
+import edu.tntech.graph.pojo.Edge;
+import edu.tntech.graph.pojo.GraphProperty;
+import edu.tntech.graph.pojo.Node;
+
+import java.io.IOException;
+
+/**
+ * Single pass decoder working on the Jackson token stream.
+ * <p>
+ * The envelope is read straight into {@link Node}/{@link Edge} without building a tree. The factory is
+ * shared by every message so the field name symbol table and the recycled parser buffers are reused.
+ */
+public class JsonStreamItemDecoder implements StreamItemDecoder {
+
+    private static final String ATTRIBUTES_FIELD = "attributes";
+    private static final String TIME_STAMP_FIELD = "timeStamp";
+    private static final String DIRECTED_FIELD = "directed";
+
+    private final JsonFactory factory;
+
+    public JsonStreamItemDecoder() {
+        this.factory = new JsonFactory();
+    }
+
+    @Override
+    public GraphProperty decode(byte[] data, int offset, int length) throws IOException {
+        try (JsonParser parser = factory.createParser(data, offset, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Streamed item is not a json object");
+            }
+            if (parser.nextToken() != JsonToken.FIELD_NAME) {
+                return null;
+            }
+            String itemType = parser.getCurrentName();
+            parser.nextToken();
+
+            GraphProperty item;
+            if (GraphPropertyType.EDGE.getItemType().equals(itemType)) {
+                item = this._readEdge(parser);
+            } else {
+                item = this._readNode(parser);
+            }
+            return item;
+        }
+    }
+
+    /**
+     * Reads node object
+     *
+     * @param parser parser positioned at the start of the node object
+     * @return node
+     * @throws IOException
+     */
+    private Node _readNode(JsonParser parser) throws IOException {
+        Node node = new Node();
+        this._readProperty(parser, node, null);
+        return node;
+    }
+
+    /**
+     * Reads edge object
+     *
+     * @param parser parser positioned at the start of the edge object
+     * @return edge
+     * @throws IOException
+     */
+    private Edge _readEdge(JsonParser parser) throws IOException {
+        Edge edge = new Edge();
+        this._readProperty(parser, edge, edge);
+        return edge;
+    }
+
+    /**
+     * Reads the fields of a graph property
+     *
+     * @param parser   parser positioned at the start of the property object
+     * @param property property to fill
+     * @param edge     same property if it is an edge, null otherwise
+     * @throws IOException
+     */
+    private void _readProperty(JsonParser parser, GraphProperty property, Edge edge) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Streamed item value is not a json object");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (ATTRIBUTES_FIELD.equals(field) && value == JsonToken.START_OBJECT) {
+                this._readAttributes(parser, property);
+            } else if (TIME_STAMP_FIELD.equals(field)) {
+                property.setTimeStamp(parser.getValueAsString());
+            } else if (DIRECTED_FIELD.equals(field) && edge != null) {
+                edge.setDirected(parser.getValueAsBoolean());
+            } else {
+                // id, source and target are always taken from the attributes
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Reads the attributes into the typed fields of the property
+     *
+     * @param parser   parser positioned at the start of the attributes object
+     * @param property property being read
+     * @throws IOException
+     */
+    private void _readAttributes(JsonParser parser, GraphProperty property) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String key = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
+            }
+            property.setAttribute(key, token == JsonToken.VALUE_NULL ? null : parser.getValueAsString());
+        }
+    }
+}
@@ -0,0 +1,435 @@
+package edu.tntech.graph.stream;
+
+import edu.tntech.graph.collection.IntObjectMap;
+import edu.tntech.graph.enumerator.EvictionPolicy;
+import edu.tntech.graph.pojo.Edge;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Edges waiting for one or both of their nodes, indexed by endpoint.
+ * <p>
+ * Every pending edge is linked into an intrusive list for each of its endpoints, so the arrival of a
+ * node only visits the edges touching it and an edge is unlinked in constant time once it is resolved
+ * or dropped. Nothing is compared with {@link Edge#equals(Object)}.
+ * <p>
+ * The store is bounded by a number of edges and an estimate of their heap size. Once a bound is
+ * exceeded, edges are evicted following the {@link EvictionPolicy}: the oldest pending edge, or the
+ * oldest pending edge of the graph with the most pending edges. Graphs are kept in buckets by their
+ * pending edge count, so the largest one is found in constant time. Not thread safe.
+ */
+public class PendingEdgeStore {
+
+    private static final int SOURCE = 0;
+    private static final int TARGET = 1;
+
+    //estimated heap size of an edge with its entry, of a string and of an extra attribute
+    private static final int ENTRY_BYTES = 216;
+    private static final int STRING_BYTES = 40;
+    private static final int ATTRIBUTE_BYTES = 96;
+
+    /**
+     * Pending edge, linked into the lists of its source and target
+     */
+    public static final class Entry {
+        //cleared once removed, the expiry of the entry may hold it until the horizon passes
+        private Edge edge;
+        private final GraphEntries graph;
+        private final int bytes;
+        private boolean removed;
+        private final int[] nodeIds;
+        private final boolean[] missing;
+        private final Entry[] next;
+        private final Entry[] previous;
+
+        //arrival order over all graphs and within the graph
+        private Entry older;
+        private Entry newer;
+        private Entry graphOlder;
+        private Entry graphNewer;
+
+        private Entry(Edge edge, GraphEntries graph, boolean sourceMissing, boolean targetMissing) {
+            this.edge = edge;
+            this.graph = graph;
+            this.bytes = _estimateBytes(edge);
+            this.nodeIds = new int[]{edge.getSourceId(), edge.getTargetId()};
+            this.missing = new boolean[]{sourceMissing, targetMissing};
+            this.next = new Entry[2];
+            this.previous = new Entry[2];
+        }
+
+        /**
+         * Gets the pending edge
+         *
+         * @return edge, null once removed
+         */
+        public Edge getEdge() {
+            return edge;
+        }
+
+        /**
+         * Checks if the edge left the store, resolved, dropped or evicted
+         *
+         * @return true once removed
+         */
+        public boolean isRemoved() {
+            return removed;
+        }
+
+        private boolean isLoop() {
+            return nodeIds[SOURCE] == nodeIds[TARGET];
+        }
+
+        private int getSlot(int nodeId) {
+            return nodeIds[SOURCE] == nodeId ? SOURCE : TARGET;
+        }
+    }
+
+    /**
+     * Pending edges of one graph
+     */
+    private static final class GraphEntries {
+        private final int graphIndex;
+        //node id -> first pending edge touching the node
+        private final IntObjectMap<Entry> heads;
+        private int count;
+        private Entry oldest;
+        private Entry newest;
+
+        //graphs with the same pending edge count
+        private GraphEntries previous;
+        private GraphEntries next;
+
+        private GraphEntries(int graphIndex) {
+            this.graphIndex = graphIndex;
+            this.heads = new IntObjectMap<>();
+        }
+    }
+
+    private final int maxEdges;
+    private final long maxBytes;
+    private final EvictionPolicy evictionPolicy;
+
+    //graph index -> pending edges of the graph
+    private final IntObjectMap<GraphEntries> graphs;
+    //pending edge count -> first graph with that many pending edges
+    private final List<GraphEntries> graphsByCount;
+    private int largestGraphCount;
+
+    private Entry oldest;
+    private Entry newest;
+    private int size;
+    private long bytes;
+    private long evictedCount;
+
+    /**
+     * Creates an unbounded store
+     */
+    public PendingEdgeStore() {
+        this(Integer.MAX_VALUE, Long.MAX_VALUE, EvictionPolicy.OLDEST);
+    }
+
+    /**
+     * Creates a bounded store
+     *
+     * @param maxEdges       maximum number of pending edges
+     * @param maxBytes       maximum estimated heap size of the pending edges
+     * @param evictionPolicy choice of the edges evicted once a bound is exceeded
+     */
+    public PendingEdgeStore(int maxEdges, long maxBytes, EvictionPolicy evictionPolicy) {
+        if (maxEdges <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("Pending edge bounds must be positive");
+        }
+        this.maxEdges = maxEdges;
+        this.maxBytes = maxBytes;
+        this.evictionPolicy = evictionPolicy;
+        this.graphs = new IntObjectMap<>();
+        this.graphsByCount = new ArrayList<>();
+        this.graphsByCount.add(null);
+    }
+
+    /**
+     * Gets the number of pending edges
+     *
+     * @return pending edge count
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the estimated heap size of the pending edges
+     *
+     * @return size in bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Gets the number of edges evicted to stay within the bounds so far
+     *
+     * @return evicted edge count
+     */
+    public long getEvictedCount() {
+        return evictedCount;
+    }
+
+    /**
+     * Adds an edge waiting for at least one of its nodes, evicting pending edges while a bound is exceeded
+     *
+     * @param edge          pending edge
+     * @param sourceMissing true if the source node has not been processed yet
+     * @param targetMissing true if the target node has not been processed yet
+     * @return entry of the edge, to remove it later
+     */
+    public Entry add(Edge edge, boolean sourceMissing, boolean targetMissing) {
+        GraphEntries graph = graphs.get(edge.getGraphIndex());
+        if (graph == null) {
+            graph = new GraphEntries(edge.getGraphIndex());
+            graphs.put(edge.getGraphIndex(), graph);
+        }
+        Entry entry = new Entry(edge, graph, sourceMissing,
+                targetMissing && edge.getSourceId() != edge.getTargetId());
+        this._link(entry, SOURCE);
+        if (!entry.isLoop()) {
+            this._link(entry, TARGET);
+        }
+        this._append(entry);
+
+        while (size > maxEdges || bytes > maxBytes) {
+            this._remove(evictionPolicy == EvictionPolicy.LARGEST_GRAPH
+                    ? graphsByCount.get(largestGraphCount).oldest : oldest);
+            evictedCount++;
+        }
+        return entry;
+    }
+
+    /**
+     * Marks the node as processed and removes the edges that no longer wait for any node
+     *
+     * @param graphIndex graph of the node
+     * @param nodeId     id of the node
+     * @param resolved   list receiving the edges whose nodes are now all processed
+     */
+    public void resolve(int graphIndex, int nodeId, List<Edge> resolved) {
+        Entry entry = this._getHead(graphIndex, nodeId);
+        while (entry != null) {
+            int slot = entry.getSlot(nodeId);
+            Entry next = entry.next[slot];
+            entry.missing[slot] = false;
+            if (!entry.missing[SOURCE] && !entry.missing[TARGET]) {
+                resolved.add(entry.edge);
+                this._remove(entry);
+            }
+            entry = next;
+        }
+    }
+
+    /**
+     * Drops every pending edge touching the node
+     *
+     * @param graphIndex graph of the node
+     * @param nodeId     id of the node
+     * @return number of dropped edges
+     */
+    public int remove(int graphIndex, int nodeId) {
+        int removed = 0;
+        Entry entry = this._getHead(graphIndex, nodeId);
+        while (entry != null) {
+            Entry next = entry.next[entry.getSlot(nodeId)];
+            this._remove(entry);
+            removed++;
+            entry = next;
+        }
+        return removed;
+    }
+
+    /**
+     * Drops a pending edge
+     *
+     * @param entry entry returned by {@link #add(Edge, boolean, boolean)}
+     * @return true if the edge was still pending
+     */
+    public boolean remove(Entry entry) {
+        if (entry.removed) {
+            return false;
+        }
+        this._remove(entry);
+        return true;
+    }
+
+    private Entry _getHead(int graphIndex, int nodeId) {
+        GraphEntries graph = graphs.get(graphIndex);
+        return graph == null ? null : graph.heads.get(nodeId);
+    }
+
+    private void _remove(Entry entry) {
+        this._unlink(entry, SOURCE);
+        if (!entry.isLoop()) {
+            this._unlink(entry, TARGET);
+        }
+        this._detach(entry);
+        entry.removed = true;
+        entry.edge = null;
+    }
+
+    /**
+     * Appends the entry to the arrival order and accounts for it
+     *
+     * @param entry new entry
+     */
+    private void _append(Entry entry) {
+        entry.older = newest;
+        if (newest != null) {
+            newest.newer = entry;
+        } else {
+            oldest = entry;
+        }
+        newest = entry;
+
+        GraphEntries graph = entry.graph;
+        entry.graphOlder = graph.newest;
+        if (graph.newest != null) {
+            graph.newest.graphNewer = entry;
+        } else {
+            graph.oldest = entry;
+        }
+        graph.newest = entry;
+
+        this._setGraphCount(graph, graph.count + 1);
+        size++;
+        bytes += entry.bytes;
+    }
+
+    /**
+     * Removes the entry from the arrival order and its accounting
+     *
+     * @param entry removed entry
+     */
+    private void _detach(Entry entry) {
+        if (entry.older != null) {
+            entry.older.newer = entry.newer;
+        } else {
+            oldest = entry.newer;
+        }
+        if (entry.newer != null) {
+            entry.newer.older = entry.older;
+        } else {
+            newest = entry.older;
+        }
+        entry.older = null;
+        entry.newer = null;
+
+        GraphEntries graph = entry.graph;
+        if (entry.graphOlder != null) {
+            entry.graphOlder.graphNewer = entry.graphNewer;
+        } else {
+            graph.oldest = entry.graphNewer;
+        }
+        if (entry.graphNewer != null) {
+            entry.graphNewer.graphOlder = entry.graphOlder;
+        } else {
+            graph.newest = entry.graphOlder;
+        }
+        entry.graphOlder = null;
+        entry.graphNewer = null;
+
+        this._setGraphCount(graph, graph.count - 1);
+        if (graph.count == 0) {
+            graphs.remove(graph.graphIndex);
+        }
+        size--;
+        bytes -= entry.bytes;
+    }
+
+    /**
+     * Moves the graph to the bucket of its new pending edge count
+     *
+     * @param graph graph
+     * @param count new count, one more or one less than the current one
+     */
+    private void _setGraphCount(GraphEntries graph, int count) {
+        if (graph.count > 0) {
+            if (graph.previous != null) {
+                graph.previous.next = graph.next;
+            } else {
+                graphsByCount.set(graph.count, graph.next);
+            }
+            if (graph.next != null) {
+                graph.next.previous = graph.previous;
+            }
+            graph.previous = null;
+            graph.next = null;
+        }
+        graph.count = count;
+        if (count > 0) {
+            if (count == graphsByCount.size()) {
+                graphsByCount.add(null);
+            }
+            GraphEntries head = graphsByCount.get(count);
+            graph.next = head;
+            if (head != null) {
+                head.previous = graph;
+            }
+            graphsByCount.set(count, graph);
+        }
+        // counts move by one, so the largest count is at most one below the previous largest
+        if (count > largestGraphCount) {
+            largestGraphCount = count;
+        }
+        while (largestGraphCount > 0 && graphsByCount.get(largestGraphCount) == null) {
+            largestGraphCount--;
+        }
+    }
+
+    private void _link(Entry entry, int slot) {
+        IntObjectMap<Entry> heads = entry.graph.heads;
+        int nodeId = entry.nodeIds[slot];
+        Entry head = heads.get(nodeId);
+        entry.next[slot] = head;
+        if (head != null) {
+            head.previous[head.getSlot(nodeId)] = entry;
+        }
+        heads.put(nodeId, entry);
+    }
+
+    private void _unlink(Entry entry, int slot) {
+        IntObjectMap<Entry> heads = entry.graph.heads;
+        int nodeId = entry.nodeIds[slot];
+        Entry next = entry.next[slot];
+        Entry previous = entry.previous[slot];
+        if (next != null) {
+            next.previous[next.getSlot(nodeId)] = previous;
+        }
+        if (previous != null) {
+            previous.next[previous.getSlot(nodeId)] = next;
+        } else if (next != null) {
+            heads.put(nodeId, next);
+        } else {
+            heads.remove(nodeId);
+        }
+        entry.next[slot] = null;
+        entry.previous[slot] = null;
+    }
+
+    /**
+     * Estimates the heap size of a pending edge, the interned graph id and label are shared
+     *
+     * @param edge pending edge
+     * @return size in bytes
+     */
+    private static int _estimateBytes(Edge edge) {
+        return ENTRY_BYTES + _estimateBytes(edge.getId()) + _estimateBytes(edge.getSource())
+                + _estimateBytes(edge.getTarget()) + edge.getExtraAttributeCount() * ATTRIBUTE_BYTES;
+    }
+
+    private static int _estimateBytes(String value) {
+        return value == null ? 0 : STRING_BYTES + 2 * value.length();
+    }
+}
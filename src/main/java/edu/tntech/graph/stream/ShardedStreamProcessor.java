@@ -0,0 +1,396 @@
+package edu.tntech.graph.stream;
+
+import edu.tntech.graph.helper.ConfigReader;
+import edu.tntech.graph.helper.GraphHelper;
+import edu.tntech.graph.metrics.MetricRegistry;
+import edu.tntech.graph.pojo.GraphProperty;
+import edu.tntech.graph.pojo.Sample;
+import edu.tntech.graph.sampler.SampleMerger;
+import edu.tntech.graph.sampler.Sampler;
+import edu.tntech.graph.sampler.SamplingStrategy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.ToLongFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stream processor spreading the graphs over shard workers.
+ * <p>
+ * Items are routed by their graph id, so every graph is processed and sampled by a single shard that owns its
+ * own {@link StreamProcessor} and {@link Sampler}. Streamed items are not decoded on the processing thread: the
+ * graph id is found by a scan of the raw bytes, and the items are copied into a batch per shard, handed over
+ * to the shard once full and decoded there. At the window boundary every shard completes its window and the
+ * shard samples are merged into one sample of the configured sample size. The graphs of the merged sample that
+ * changed in the window are found by comparing it with the merged sample of the previous window.
+ */
+public class ShardedStreamProcessor implements GraphStreamProcessor {
+    private static final Logger log = Logger.getLogger(ShardedStreamProcessor.class.getName());
+
+    public static final String SHARDS_PROPERTY = "processor-shards";
+    public static final String DEFAULT_SHARDS = "1";
+    private static final String SHARD_QUEUE_SIZE_PROPERTY = "processor-shard-queue-size";
+    private static final String DEFAULT_SHARD_QUEUE_SIZE = "16";
+    private static final String SHARD_BATCH_SIZE_PROPERTY = "processor-shard-batch-size";
+    private static final String DEFAULT_SHARD_BATCH_SIZE = "256";
+
+    private static final byte[] GRAPH_ID_FIELD = ("\"" + GraphHelper.GRAPH_ID_KEY + "\"")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final Shard[] shards;
+    private final int sampleSize;
+    private final int batchSize;
+    private final SampleMerger merger;
+    //merged sample of the previous window, to tell the graphs that changed
+    private Sample previousSample;
+
+    /**
+     * Items routed to a shard and not yet handed over to it, either raw items or decoded ones
+     */
+    private static final class Batch {
+        private byte[] data;
+        private int dataLength;
+        private final int[] offsets;
+        private final int[] lengths;
+        private final GraphProperty[] items;
+        private final Integer[] windowCounts;
+        private int size;
+
+        private Batch(int batchSize) {
+            this.data = new byte[batchSize * 256];
+            this.offsets = new int[batchSize];
+            this.lengths = new int[batchSize];
+            this.items = new GraphProperty[batchSize];
+            this.windowCounts = new Integer[batchSize];
+        }
+
+        private void add(byte[] item, int offset, int length, Integer windowCount) {
+            if (dataLength + length > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, dataLength + length));
+            }
+            System.arraycopy(item, offset, data, dataLength, length);
+            offsets[size] = dataLength;
+            lengths[size] = length;
+            windowCounts[size++] = windowCount;
+            dataLength += length;
+        }
+
+        private void add(GraphProperty item, Integer windowCount) {
+            items[size] = item;
+            windowCounts[size++] = windowCount;
+        }
+
+        private boolean isFull() {
+            return size == offsets.length;
+        }
+    }
+
+    /**
+     * Shard worker, runs its tasks in order on its own thread
+     */
+    private static class Shard implements Runnable {
+        private final StreamProcessor processor;
+        private final StreamItemDecoder decoder;
+        private final BlockingQueue<Runnable> tasks;
+        private final Thread thread;
+        private volatile boolean running;
+
+        //filled by the processing thread only
+        private Batch batch;
+
+        private Shard(int index, int sampleSize, int queueSize, Random random) throws IOException {
+            ConfigReader config = ConfigReader.getInstance();
+            SamplingStrategy samplingStrategy = SamplingStrategy.create(config);
+            this.processor = new StreamProcessor(Sampler.create(sampleSize, samplingStrategy, random));
+            this.decoder = StreamItemDecoder.create(config.getProperty(StreamItemDecoder.DECODER_PROPERTY,
+                    StreamItemDecoder.STREAMING_DECODER));
+            this.tasks = new ArrayBlockingQueue<>(queueSize);
+            this.thread = new Thread(this, "stream-shard-" + index);
+            this.running = true;
+        }
+
+        @Override
+        public void run() {
+            while (running || !tasks.isEmpty()) {
+                try {
+                    tasks.take().run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (RuntimeException e) {
+                    log.log(Level.WARNING, "Could not run task on " + thread.getName(), e);
+                }
+            }
+        }
+
+        private void submit(Runnable task) {
+            try {
+                tasks.put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while submitting to " + thread.getName(), e);
+            }
+        }
+
+        /**
+         * Hands the pending batch over to the shard thread
+         */
+        private void flush() {
+            Batch full = batch;
+            if (full != null && full.size > 0) {
+                batch = null;
+                this.submit(() -> this._process(full));
+            }
+        }
+
+        /**
+         * Decodes and processes the items of the batch, on the shard thread
+         *
+         * @param batch items routed to the shard
+         */
+        private void _process(Batch batch) {
+            for (int i = 0; i < batch.size; i++) {
+                try {
+                    GraphProperty item = batch.items[i];
+                    if (item == null) {
+                        item = decoder.decode(batch.data, batch.offsets[i], batch.lengths[i]);
+                    }
+                    if (item != null) {
+                        processor.processItem(item, batch.windowCounts[i]);
+                    }
+                } catch (Exception e) {
+                    log.log(Level.WARNING, "Could not process streamed item on " + thread.getName(), e);
+                }
+            }
+        }
+    }
+
+    public ShardedStreamProcessor(int shardCount, int sampleSize) throws IOException {
+        ConfigReader config = ConfigReader.getInstance();
+        int queueSize = Integer.parseInt(config.getProperty(SHARD_QUEUE_SIZE_PROPERTY, DEFAULT_SHARD_QUEUE_SIZE));
+        this.batchSize = Math.max(1, Integer.parseInt(config.getProperty(SHARD_BATCH_SIZE_PROPERTY,
+                DEFAULT_SHARD_BATCH_SIZE)));
+        this.sampleSize = sampleSize;
+
+        // the merger and every shard draw from their own random, all derived from the configured seed
+        Random random = Sampler.createRandom(config.getProperty(Sampler.SEED_PROPERTY, null));
+        this.merger = new SampleMerger(new Random(random.nextLong()));
+
+        // every shard keeps a full reservoir so skewed graph distributions can still fill the merged sample
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            this.shards[i] = new Shard(i, sampleSize, queueSize, new Random(random.nextLong()));
+            this.shards[i].thread.start();
+        }
+    }
+
+    @Override
+    public void readStreamedItem(byte[] data, int offset, int length, Integer windowCount) {
+        Shard shard = shards[this._getShardIndex(data, offset, length)];
+        this._getBatch(shard).add(data, offset, length, windowCount);
+        if (shard.batch.isFull()) {
+            shard.flush();
+        }
+    }
+
+    @Override
+    public void processItem(GraphProperty item, Integer windowCount) {
+        if (item == null) {
+            return;
+        }
+        String graphId = item.getGraphId();
+        Shard shard = shards[graphId == null ? 0 : this._getShardIndex(graphId.hashCode())];
+        this._getBatch(shard).add(item, windowCount);
+        if (shard.batch.isFull()) {
+            shard.flush();
+        }
+    }
+
+    @Override
+    public Sample closeWindow(int windowCount) {
+        List<CompletableFuture<Sample>> windows = new ArrayList<>(shards.length);
+        long[] weights = new long[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            Shard shard = shards[i];
+            int index = i;
+            CompletableFuture<Sample> window = new CompletableFuture<>();
+            shard.flush();
+            shard.submit(() -> {
+                try {
+                    Sample sample = shard.processor.closeWindow(windowCount);
+                    weights[index] = shard.processor.getProcessedNodeCount();
+                    window.complete(sample);
+                } catch (RuntimeException e) {
+                    window.completeExceptionally(e);
+                }
+            });
+            windows.add(window);
+        }
+
+        List<Sample> samples = new ArrayList<>(shards.length);
+        for (CompletableFuture<Sample> window : windows) {
+            samples.add(window.join());
+        }
+        // the merged sample is rebuilt every window, its changed graphs are the ones differing from the previous one
+        Sample merged = merger.merge(samples, weights, sampleSize);
+        merged.setChangedSince(previousSample);
+        previousSample = merged;
+        return merged.snapshot();
+    }
+
+    /**
+     * Exports the counters summed over the shards, read without synchronizing with the shard threads
+     *
+     * @param metrics registry to export to
+     */
+    @Override
+    public void registerMetrics(MetricRegistry metrics) {
+        metrics.gauge("processor.shards", () -> shards.length);
+        metrics.gauge("processor.processed-nodes", () -> this._sum(StreamProcessor::getProcessedNodeCount));
+        metrics.gauge("processor.pending-edges", () -> this._sum(StreamProcessor::getPendingEdgeCount));
+        metrics.gauge("processor.expired-nodes", () -> this._sum(StreamProcessor::getExpiredNodeCount));
+        metrics.gauge("processor.dropped-edges", () -> this._sum(StreamProcessor::getDroppedEdgeCount));
+        metrics.gauge("processor.expired-edges", () -> this._sum(StreamProcessor::getExpiredEdgeCount));
+        metrics.gauge("processor.pending-edge-bytes", () -> this._sum(StreamProcessor::getPendingEdgeBytes));
+        metrics.gauge("processor.evicted-edges", () -> this._sum(StreamProcessor::getEvictedEdgeCount));
+        metrics.gauge("processor.resolved-edges", () -> this._sum(StreamProcessor::getResolvedEdgeCount));
+        metrics.gauge("processor.shard-queue-depth", this::_getQueueDepth);
+    }
+
+    @Override
+    public void shutdown() {
+        for (Shard shard : shards) {
+            shard.flush();
+            shard.running = false;
+            // wakes the worker up if it is waiting for tasks
+            shard.submit(() -> {
+            });
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private long _sum(ToLongFunction<StreamProcessor> counter) {
+        long sum = 0;
+        for (Shard shard : shards) {
+            sum += counter.applyAsLong(shard.processor);
+        }
+        return sum;
+    }
+
+    private long _getQueueDepth() {
+        long depth = 0;
+        for (Shard shard : shards) {
+            depth += shard.tasks.size();
+        }
+        return depth;
+    }
+
+    private Batch _getBatch(Shard shard) {
+        if (shard.batch == null) {
+            shard.batch = new Batch(batchSize);
+        }
+        return shard.batch;
+    }
+
+    /**
+     * Gets the shard owning the graph of a raw item, without decoding it. The graph id value is hashed like
+     * {@link String#hashCode()}, so raw and decoded items of a graph id in plain ascii go to the same shard.
+     *
+     * @param data   buffer holding the item
+     * @param offset offset of the item in the buffer
+     * @param length length of the item in bytes
+     * @return shard index, 0 if the item has no graph id
+     */
+    private int _getShardIndex(byte[] data, int offset, int length) {
+        if (shards.length == 1) {
+            return 0;
+        }
+        int end = offset + length;
+        int position = this._indexOf(data, offset, end, GRAPH_ID_FIELD);
+        while (position >= 0) {
+            position += GRAPH_ID_FIELD.length;
+            position = this._skipSpaces(data, position, end);
+            if (position < end && data[position] == ':') {
+                return this._getShardIndex(this._hashValue(data, this._skipSpaces(data, position + 1, end), end));
+            }
+            // the graph id key appeared as a value, keep looking
+            position = this._indexOf(data, position, end, GRAPH_ID_FIELD);
+        }
+        return 0;
+    }
+
+    /**
+     * Hashes the json string or scalar value starting at the position
+     *
+     * @param data     buffer holding the item
+     * @param position start of the value
+     * @param end      end of the item
+     * @return hash of the value, without the quotes of a string
+     */
+    private int _hashValue(byte[] data, int position, int end) {
+        int hash = 0;
+        if (position < end && data[position] == '"') {
+            for (int i = position + 1; i < end && data[i] != '"'; i++) {
+                if (data[i] == '\\' && i + 1 < end) {
+                    i++;
+                }
+                hash = 31 * hash + data[i];
+            }
+            return hash;
+        }
+        for (int i = position; i < end; i++) {
+            byte value = data[i];
+            if (value == ',' || value == '}' || value == ']' || value <= ' ') {
+                break;
+            }
+            hash = 31 * hash + value;
+        }
+        return hash;
+    }
+
+    private int _skipSpaces(byte[] data, int position, int end) {
+        while (position < end && data[position] <= ' ') {
+            position++;
+        }
+        return position;
+    }
+
+    private int _indexOf(byte[] data, int from, int end, byte[] pattern) {
+        int last = end - pattern.length;
+        for (int i = from; i <= last; i++) {
+            int j = 0;
+            while (j < pattern.length && data[i + j] == pattern[j]) {
+                j++;
+            }
+            if (j == pattern.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the shard owning the graph
+     *
+     * @param graphHash hash of the graph id
+     * @return shard index
+     */
+    private int _getShardIndex(int graphHash) {
+        return (graphHash & Integer.MAX_VALUE) % shards.length;
+    }
+}
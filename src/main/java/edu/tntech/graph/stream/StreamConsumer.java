@@ -1,40 +1,56 @@
 package edu.tntech.graph.stream;
 
-import com.rabbitmq.client.*;
 import edu.tntech.graph.helper.ConfigReader;
+import edu.tntech.graph.helper.GraphHelper;
+import edu.tntech.graph.helper.Helper;
+import edu.tntech.graph.metrics.MetricRegistry;
 import edu.tntech.graph.pojo.Sample;
 import edu.tntech.graph.sampler.Sampler;
 import edu.tntech.graph.writer.GraphWriter;
+import edu.tntech.graph.writer.IncrementalGraphWriter;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class StreamConsumer {
+    private static final Logger log = Logger.getLogger(StreamConsumer.class.getName());
 
     private static final String PROCESSED_ITEM_SIZE_PROPERTY = "processed-item-size";
-    private static final String MESSAGE_QUEUE_PROPERTY = "message-queue";
-    private static final String QUEUE_CONNECTION_HOST_PROPERTY = "connection-host";
     private ConfigReader config;
-    private Long newDeliveryTag;
-    private Long oldDeliveryTag;
     private static StreamConsumer instance = null;
-    private Connection connection;
+    private CompletableFuture<Void> consumptionFailed;
+    private GraphStreamProcessor streamProcessor;
+    private WindowWriter windowWriter;
+    //graph file -> writer of its segments, null when every window rewrites the graph files
+    private Map<String, IncrementalGraphWriter> incrementalWriters;
 
-    private Integer windowCount;
     private Integer consumptionLimitPerWindow;
+    private Long windowTimeout;
+    private int segmentLimit;
+    private int inFlightWindows;
 
     private StreamConsumer() throws FileNotFoundException {
         config = ConfigReader.getInstance();
-        newDeliveryTag = 0l;
-        oldDeliveryTag = 0l;
-        windowCount = 0;
 
         Float processedItemConfig = Float.parseFloat(config.getProperty(PROCESSED_ITEM_SIZE_PROPERTY));
         Double processWindowSize = Math.ceil(Sampler.getInstance().getSampleSize() * processedItemConfig);
-        consumptionLimitPerWindow = processWindowSize.intValue();
+        consumptionLimitPerWindow = Integer.parseInt(config.getProperty(WindowScheduler.WINDOW_ITEM_LIMIT_PROPERTY,
+                String.valueOf(processWindowSize.intValue())));
+        windowTimeout = Long.parseLong(config.getProperty(WindowScheduler.WINDOW_TIMEOUT_PROPERTY,
+                WindowScheduler.DEFAULT_WINDOW_TIMEOUT));
+        segmentLimit = Integer.parseInt(config.getProperty(IncrementalGraphWriter.SEGMENT_LIMIT_PROPERTY,
+                IncrementalGraphWriter.DEFAULT_SEGMENT_LIMIT));
+        inFlightWindows = Integer.parseInt(config.getProperty(WindowWriter.IN_FLIGHT_WINDOWS_PROPERTY,
+                WindowWriter.DEFAULT_IN_FLIGHT_WINDOWS));
     }
 
     public static StreamConsumer getInstance() throws IOException {
@@ -45,102 +61,168 @@ public class StreamConsumer {
     }
 
     /**
-     * Consumes the message queue
+     * Consumes the stream source selected in the configuration
      *
      * @throws IOException
-     * @throws TimeoutException
      * @throws InterruptedException
      * @author Niraj Rajbhandari <nrajbhand42@students.tntech.edu>
      */
-    public void consume() throws IOException, TimeoutException, InterruptedException {
-        Integer count = 1;
-
-        Channel channel = this._getChannel();
-
-        while (true) {
-            // Window Limit reached
-            // TODO: Select the process size. How ? static value or something related to
-            boolean windowSizeConsumed = newDeliveryTag % consumptionLimitPerWindow == 0;
-            boolean canSampleWindow = ((windowSizeConsumed || count == 60)
-                    && newDeliveryTag != oldDeliveryTag);
-            if (!channel.isOpen()) {
-                connection.close();
-                break;
-            } else if (canSampleWindow) {
-                try {
-                    StreamProcessor streamProcessor = StreamProcessor.getInstance();
-                    CompletableFuture<Boolean> filterProcessedNode = CompletableFuture.supplyAsync(() -> streamProcessor.filterProcessedNodes(windowCount));
-                    boolean storeSample = Boolean.parseBoolean(config.getProperty(Sample.STORE_SAMPLE_INDEX));
-                    this._resetConsumedItems();
-                    if (storeSample) {
-                        Sampler.getInstance().writeToFile();
-                    }
-                    GraphWriter graphWriter = new GraphWriter(storeSample);
-                    graphWriter.write();
-
-                    while (!filterProcessedNode.isDone()) ;
-
-                    channel.basicAck(newDeliveryTag, true);
-                    oldDeliveryTag = newDeliveryTag;
-                    windowCount++;
-                    count = 0;
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    break;
-                }
-            }
-            count++;
-            Thread.currentThread().sleep(1000);
+    public void consume() throws IOException, InterruptedException {
+        this.consume(this._getStreamSource());
+    }
+
+    /**
+     * Replays a GBAD graph file through the sampler as if its nodes and edges came from the queue
+     *
+     * @param graphFile path of the .g file
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public void consumeFile(String graphFile) throws IOException, InterruptedException {
+        this.consume(new FileStreamSource(Paths.get(graphFile)));
+    }
+
+    /**
+     * Consumes the stream source until it is exhausted or closed
+     *
+     * @param source source of the stream
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public void consume(StreamSource source) throws IOException, InterruptedException {
+        consumptionFailed = new CompletableFuture<>();
+        WindowScheduler scheduler = new WindowScheduler(consumptionLimitPerWindow, windowTimeout);
+        streamProcessor = this._getStreamProcessor();
+        streamProcessor.registerMetrics(MetricRegistry.getInstance());
+        windowWriter = new WindowWriter(source, inFlightWindows, consumptionFailed);
+        String graphOutput = config.getProperty(IncrementalGraphWriter.GRAPH_OUTPUT_PROPERTY,
+                IncrementalGraphWriter.REWRITE_OUTPUT);
+        incrementalWriters = IncrementalGraphWriter.INCREMENTAL_OUTPUT.equalsIgnoreCase(graphOutput)
+                ? new HashMap<>() : null;
+        windowWriter.registerMetrics(MetricRegistry.getInstance());
+        IngestionPipeline pipeline = new IngestionPipeline(streamProcessor, scheduler, this::_sampleWindow);
+
+        try {
+            windowWriter.start();
+            CompletableFuture<Void> sourceCompleted = source.start(pipeline);
+            pipeline.start();
+            CompletableFuture.anyOf(sourceCompleted, consumptionFailed).join();
+        } catch (CompletionException e) {
+            log.log(Level.SEVERE, "Stream source failed", e.getCause());
+        } finally {
+            source.close();
+            pipeline.shutdown(source.isFinite() && !consumptionFailed.isDone());
+            windowWriter.shutdown();
+            streamProcessor.shutdown();
         }
     }
 
+    /**
+     * Gets the stream source selected in the configuration
+     *
+     * @return stream source
+     * @throws IOException
+     */
+    private StreamSource _getStreamSource() throws IOException {
+        String source = config.getProperty(StreamSource.SOURCE_PROPERTY, StreamSource.AMQP_SOURCE);
+        if (StreamSource.FILE_SOURCE.equalsIgnoreCase(source)) {
+            return new FileStreamSource(Paths.get(config.getProperty(FileStreamSource.STREAM_FILE_PROPERTY)));
+        } else if (StreamSource.IN_PROCESS_SOURCE.equalsIgnoreCase(source)) {
+            int queueSize = Integer.parseInt(config.getProperty(InProcessStreamSource.QUEUE_SIZE_PROPERTY,
+                    InProcessStreamSource.DEFAULT_QUEUE_SIZE));
+            return InProcessStreamSource.getInstance(queueSize);
+        }
+        int prefetchCount = Integer.parseInt(config.getProperty(AmqpStreamSource.PREFETCH_COUNT_PROPERTY,
+                String.valueOf(AmqpStreamSource.getDefaultPrefetchCount(consumptionLimitPerWindow, inFlightWindows))));
+        return new AmqpStreamSource(config.getProperty(AmqpStreamSource.QUEUE_CONNECTION_HOST_PROPERTY),
+                config.getProperty(AmqpStreamSource.MESSAGE_QUEUE_PROPERTY), prefetchCount);
+    }
 
     /**
-     * Resets the consumed edges info
+     * Gets the stream processor: whole graph sampling when configured, otherwise sharded by graph id when
+     * more than one shard is configured
+     *
+     * @return stream processor
+     * @throws IOException
      */
-    private void _resetConsumedItems() throws IOException {
-        StreamProcessor.getInstance().resetProcessing();
+    private GraphStreamProcessor _getStreamProcessor() throws IOException {
+        String samplingUnit = config.getProperty(GraphReservoirProcessor.SAMPLING_UNIT_PROPERTY,
+                GraphReservoirProcessor.ITEM_UNIT);
+        if (GraphReservoirProcessor.GRAPH_UNIT.equalsIgnoreCase(samplingUnit)) {
+            return new GraphReservoirProcessor(Sampler.getInstance().getSampleSize());
+        }
+        int shards = Integer.parseInt(config.getProperty(ShardedStreamProcessor.SHARDS_PROPERTY,
+                ShardedStreamProcessor.DEFAULT_SHARDS));
+        if (shards > 1) {
+            return new ShardedStreamProcessor(shards, Sampler.getInstance().getSampleSize());
+        }
+        return StreamProcessor.getInstance();
     }
 
     /**
-     * Gets the consumer for the message queue
+     * Samples the completed window: drops stale processed nodes and hands snapshots of the samples to the
+     * window writer, which acknowledges every item of the window once they are written
      *
-     * @param channel Channel which is to be consumed by the consumer
-     * @return Default Consumer
-     * @author Niraj Rajbhandari <nrajbhand42@students.tntech.edu>
+     * @param windowCount window that was completed
+     * @param deliveryTag delivery tag of the last item of the window
+     * @throws InterruptedException
      */
-    private Consumer _getConsumer(Channel channel) {
-        return new DefaultConsumer(channel) {
-            @Override
-            public void handleDelivery(String consumerTag, Envelope envelope, AMQP.BasicProperties properties, byte[] body) throws IOException {
-                try {
-                    StreamProcessor processor = StreamProcessor.getInstance();
-                    newDeliveryTag = envelope.getDeliveryTag();
-                    String streamedItem = new String(body, StandardCharsets.UTF_8);
-                    processor.readStreamedItem(streamedItem, windowCount);
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
+    private void _sampleWindow(int windowCount, long deliveryTag) throws InterruptedException {
+        Sample sample;
+        List<Sampler> ensembleSamplers = streamProcessor.getEnsembleSamplers();
+        List<Sample> ensembleSamples = new ArrayList<>(ensembleSamplers.size());
+        try {
+            sample = streamProcessor.closeWindow(windowCount);
+            for (Sampler ensembleSampler : ensembleSamplers) {
+                ensembleSamples.add(ensembleSampler.getSample().snapshot());
             }
-        };
+        } catch (RuntimeException e) {
+            log.log(Level.SEVERE, "Could not sample window " + windowCount + ", stopping consumption", e);
+            consumptionFailed.complete(null);
+            return;
+        }
+        windowWriter.submit(windowCount, deliveryTag,
+                () -> this._writeWindow(windowCount, sample, ensembleSamplers, ensembleSamples));
     }
 
     /**
-     * Get Message queue channel
+     * Writes the samples of a window, runs on the window writer thread
      *
-     * @return Channel of Message Queue
-     * @throws TimeoutException
+     * @param windowCount      window that was completed
+     * @param sample           snapshot of the sample
+     * @param ensembleSamplers ensemble samplers
+     * @param ensembleSamples  snapshots of the ensemble samples, in the order of their samplers
      * @throws IOException
      */
-    private Channel _getChannel() throws TimeoutException, IOException {
-        String messageQueue = config.getProperty(MESSAGE_QUEUE_PROPERTY);
-        ConnectionFactory factory = new ConnectionFactory();
-        factory.setHost(config.getProperty(QUEUE_CONNECTION_HOST_PROPERTY));
-        connection = factory.newConnection();
-        Channel channel = connection.createChannel();
-        channel.basicQos(Sampler.getInstance().getSampleSize(), true);
-        channel.queueDeclare(messageQueue, false, false, false, null);
-        channel.basicConsume(messageQueue, false, _getConsumer(channel));
-        return channel;
+    private void _writeWindow(int windowCount, Sample sample, List<Sampler> ensembleSamplers,
+                              List<Sample> ensembleSamples) throws IOException {
+        boolean storeSample = Boolean.parseBoolean(config.getProperty(Sample.STORE_SAMPLE_INDEX));
+        if (storeSample) {
+            GraphHelper.storeSample(sample);
+        }
+        if (incrementalWriters != null) {
+            this._getIncrementalWriter(config.getProperty(Sampler.GRAPH_FILE_PROPERTY)).write(sample, windowCount);
+            for (int i = 0; i < ensembleSamplers.size(); i++) {
+                this._getIncrementalWriter(ensembleSamplers.get(i).getGraphFile())
+                        .write(ensembleSamples.get(i), windowCount);
+            }
+            return;
+        }
+        // written from the snapshot, the stored sample is not read back
+        new GraphWriter(sample).write();
+        for (int i = 0; i < ensembleSamplers.size(); i++) {
+            new GraphWriter(ensembleSamples.get(i)).write(ensembleSamplers.get(i).getGraphFile());
+        }
+    }
+
+    /**
+     * Gets the writer of the segments of the graph file, created on first use
+     *
+     * @param graphFile graph file, relative to the jar
+     * @return incremental writer
+     */
+    private IncrementalGraphWriter _getIncrementalWriter(String graphFile) {
+        return incrementalWriters.computeIfAbsent(graphFile, file -> new IncrementalGraphWriter(
+                Paths.get(Helper.getInstance().getAbsolutePath(file)), segmentLimit));
     }
 }
@@ -0,0 +1,207 @@
+package edu.tntech.graph.stream;
+
+import edu.tntech.graph.pojo.GraphProperty;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded ring buffer of preallocated slots between the message delivery and the processing thread.
+ * <p>
+ * Publishers copy the message into the next free slot, blocking while the buffer is full. The single
+ * processing thread waits for a batch, reads the slots in place and then releases them for reuse.
+ * Sources that already produce nodes and edges publish the decoded item instead of the message.
+ */
+public class StreamItemBuffer {
+
+    private static final int INITIAL_BODY_SIZE = 512;
+
+    /**
+     * Buffered message, valid until released
+     */
+    public static class Slot {
+        private byte[] body;
+        private int length;
+        private long deliveryTag;
+        private GraphProperty item;
+
+        private Slot() {
+            this.body = new byte[INITIAL_BODY_SIZE];
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        public long getDeliveryTag() {
+            return deliveryTag;
+        }
+
+        /**
+         * Gets the decoded item
+         *
+         * @return decoded item, null if the slot holds a message body
+         */
+        public GraphProperty getItem() {
+            return item;
+        }
+
+        private void set(byte[] data, int offset, int length, long deliveryTag) {
+            if (body.length < length) {
+                body = new byte[Math.max(length, body.length * 2)];
+            }
+            System.arraycopy(data, offset, body, 0, length);
+            this.length = length;
+            this.deliveryTag = deliveryTag;
+            this.item = null;
+        }
+
+        private void set(GraphProperty item, long deliveryTag) {
+            this.length = 0;
+            this.deliveryTag = deliveryTag;
+            this.item = item;
+        }
+    }
+
+    private final Slot[] slots;
+    private final ReentrantLock lock;
+    private final Condition notEmpty;
+    private final Condition notFull;
+
+    private long head;
+    private long tail;
+
+    public StreamItemBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Buffer capacity must be positive");
+        }
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            this.slots[i] = new Slot();
+        }
+        this.lock = new ReentrantLock();
+        this.notEmpty = lock.newCondition();
+        this.notFull = lock.newCondition();
+    }
+
+    /**
+     * Copies the message into the next free slot, waiting for one if the buffer is full
+     *
+     * @param data        message body
+     * @param offset      offset of the message in the body
+     * @param length      length of the message
+     * @param deliveryTag delivery tag of the message
+     * @throws InterruptedException
+     */
+    public void publish(byte[] data, int offset, int length, long deliveryTag) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            this._awaitFreeSlot().set(data, offset, length, deliveryTag);
+            tail++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Puts a decoded item into the next free slot, waiting for one if the buffer is full
+     *
+     * @param item        decoded node or edge
+     * @param deliveryTag sequence number of the item
+     * @throws InterruptedException
+     */
+    public void publish(GraphProperty item, long deliveryTag) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            this._awaitFreeSlot().set(item, deliveryTag);
+            tail++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Slot _awaitFreeSlot() throws InterruptedException {
+        while (tail - head == slots.length) {
+            notFull.await();
+        }
+        return slots[(int) (tail % slots.length)];
+    }
+
+    /**
+     * Waits until at least one slot is filled or the timeout elapses
+     *
+     * @param maxBatch maximum number of slots to return
+     * @param timeout  maximum time to wait
+     * @param unit     unit of the timeout
+     * @return number of filled slots available from {@link #getSlot(int)}, 0 on timeout
+     * @throws InterruptedException
+     */
+    public int awaitBatch(int maxBatch, long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (tail == head) {
+                if (nanos <= 0) {
+                    return 0;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return (int) Math.min(maxBatch, tail - head);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets a slot of the batch returned by {@link #awaitBatch(int, long, TimeUnit)}
+     *
+     * @param index index in the batch
+     * @return slot
+     */
+    public Slot getSlot(int index) {
+        return slots[(int) ((head + index) % slots.length)];
+    }
+
+    /**
+     * Releases the first slots of the batch for reuse
+     *
+     * @param count number of slots to release
+     */
+    public void release(int count) {
+        lock.lock();
+        try {
+            for (int i = 0; i < count; i++) {
+                this.getSlot(i).item = null;
+            }
+            head += count;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of filled slots
+     *
+     * @return queue depth
+     */
+    public int getDepth() {
+        lock.lock();
+        try {
+            return (int) (tail - head);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+}
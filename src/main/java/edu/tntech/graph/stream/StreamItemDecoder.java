@@ -0,0 +1,43 @@
+package edu.tntech.graph.stream;
+
+import edu.tntech.graph.pojo.GraphProperty;
+
+import java.io.IOException;
+
+/**
+ * Decodes a streamed item envelope (<code>{"node":{...}}</code> or <code>{"edge":{...}}</code>)
+ * into a {@link edu.tntech.graph.pojo.Node} or {@link edu.tntech.graph.pojo.Edge}.
+ * <p>
+ * Decoded items have their id (and source/target for edges) already taken from the attributes.
+ * Implementations are not required to be thread safe.
+ */
+public interface StreamItemDecoder {
+
+    String DECODER_PROPERTY = "stream-decoder";
+    String STREAMING_DECODER = "streaming";
+    String TREE_DECODER = "tree";
+
+    /**
+     * Decodes a streamed item
+     *
+     * @param data   buffer holding the UTF-8 encoded item
+     * @param offset offset of the item in the buffer
+     * @param length length of the item in bytes
+     * @return decoded node or edge, null if the envelope is empty
+     * @throws IOException
+     */
+    GraphProperty decode(byte[] data, int offset, int length) throws IOException;
+
+    /**
+     * Creates the decoder for the given name
+     *
+     * @param name decoder name (streaming | tree)
+     * @return decoder
+     */
+    static StreamItemDecoder create(String name) {
+        if (TREE_DECODER.equalsIgnoreCase(name)) {
+            return new TreeStreamItemDecoder();
+        }
+        return new JsonStreamItemDecoder();
+    }
+}
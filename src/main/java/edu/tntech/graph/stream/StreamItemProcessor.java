@@ -19,6 +19,10 @@ public class StreamItemProcessor {
         mapper = new ObjectMapper(factory);
     }
 
+    public StreamItemProcessor(ObjectMapper mapper){
+        this.mapper = mapper;
+    }
+
     public JsonNode getStreamedItem() {
         return streamedItem;
     }
@@ -32,7 +36,14 @@ public class StreamItemProcessor {
     }
 
     public void setStreamedItem(String streamedItem) throws IOException{
-        JsonNode rootNode = mapper.readTree(streamedItem);
+        this._setRootNode(mapper.readTree(streamedItem));
+    }
+
+    public void setStreamedItem(byte[] data, int offset, int length) throws IOException{
+        this._setRootNode(mapper.readTree(mapper.getFactory().createParser(data, offset, length)));
+    }
+
+    private void _setRootNode(JsonNode rootNode) {
         Iterator<Map.Entry<String, JsonNode>> fieldsIterator = rootNode.fields();
         int count = 1;
         while(fieldsIterator.hasNext() && count ==1){
@@ -1,63 +1,132 @@
 package edu.tntech.graph.stream;
 
-import com.fasterxml.jackson.core.JsonFactory;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import edu.tntech.graph.enumerator.GraphPropertyType;
-import edu.tntech.graph.helper.GraphHelper;
+import edu.tntech.graph.collection.IntObjectMap;
+import edu.tntech.graph.enumerator.EvictionPolicy;
+import edu.tntech.graph.helper.ConfigReader;
+import edu.tntech.graph.metrics.MetricRegistry;
 import edu.tntech.graph.pojo.Edge;
+import edu.tntech.graph.pojo.GraphProperty;
 import edu.tntech.graph.pojo.Node;
+import edu.tntech.graph.pojo.Sample;
 import edu.tntech.graph.sampler.Sampler;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
-public class StreamProcessor {
+public class StreamProcessor implements GraphStreamProcessor {
+
+    public static final String EXPIRY_HORIZON_PROPERTY = "expiry-horizon";
+    public static final String DEFAULT_EXPIRY_HORIZON = "10";
+    public static final String PENDING_EDGE_LIMIT_PROPERTY = "pending-edge-limit";
+    public static final String DEFAULT_PENDING_EDGE_LIMIT = "1000000";
+    public static final String PENDING_EDGE_MAX_BYTES_PROPERTY = "pending-edge-max-bytes";
+    public static final String DEFAULT_PENDING_EDGE_MAX_BYTES = "268435456";
+    public static final String PENDING_EDGE_EVICTION_PROPERTY = "pending-edge-eviction";
 
     private static Logger log = Logger.getLogger(StreamProcessor.class.getName());
 
     private static StreamProcessor instance = null;
 
-    private Map<String, List<Edge>> unprocessedEdgeList;
-    private Map<String, Map<String, Node>> processedNodeList;
+    //edges waiting for their nodes, indexed by endpoint
+    private PendingEdgeStore unprocessedEdgeList;
+    private final List<Edge> resolvedEdges;
+    //graph index -> node id -> node
+    private IntObjectMap<IntObjectMap<Node>> processedNodeList;
+    private int processedNodeCount;
+    private long expiredNodeCount;
+    private long droppedEdgeCount;
+    private long expiredEdgeCount;
+    private long resolvedEdgeCount;
+
+    //processed nodes and pending edges by the window they arrived in
+    private final ExpiryWheel<Node> nodeExpiry;
+    private final ExpiryWheel<PendingEdgeStore.Entry> edgeExpiry;
 
     private Integer streamedItemCount;
-    private ObjectMapper mapper;
+    private StreamItemDecoder decoder;
 
     private Sampler sampler;
+    //additional samplers fed by the same processed stream, each with its own sample
+    private final List<Sampler> ensembleSamplers;
 
 
     public static StreamProcessor getInstance() throws IOException {
         if (instance == null) {
-            instance = new StreamProcessor();
+            instance = new StreamProcessor(Sampler.getInstance());
+            ConfigReader config = ConfigReader.getInstance();
+            int samplers = Integer.parseInt(config.getProperty(Sampler.SAMPLERS_PROPERTY, Sampler.DEFAULT_SAMPLERS));
+            for (int number = 2; number <= samplers; number++) {
+                instance.addEnsembleSampler(Sampler.create(config, number));
+            }
         }
         return instance;
     }
 
-    private StreamProcessor() throws IOException {
-        JsonFactory factory = new JsonFactory();
-        mapper = new ObjectMapper(factory);
-        unprocessedEdgeList = new HashMap<>();
-        this.processedNodeList = new HashMap<>();
+    /**
+     * Creates a processor feeding its own sampler
+     *
+     * @param sampler sampler of the processed edges
+     * @throws IOException
+     */
+    public StreamProcessor(Sampler sampler) throws IOException {
+        ConfigReader config = ConfigReader.getInstance();
+        String decoderName = config.getProperty(StreamItemDecoder.DECODER_PROPERTY, StreamItemDecoder.STREAMING_DECODER);
+        this.decoder = StreamItemDecoder.create(decoderName);
+        int horizon = Integer.parseInt(config.getProperty(EXPIRY_HORIZON_PROPERTY, DEFAULT_EXPIRY_HORIZON));
+        this.nodeExpiry = new ExpiryWheel<>(horizon, this::_expireNode);
+        this.edgeExpiry = new ExpiryWheel<>(horizon, this::_expireEdge);
+        unprocessedEdgeList = new PendingEdgeStore(
+                Integer.parseInt(config.getProperty(PENDING_EDGE_LIMIT_PROPERTY, DEFAULT_PENDING_EDGE_LIMIT)),
+                Long.parseLong(config.getProperty(PENDING_EDGE_MAX_BYTES_PROPERTY, DEFAULT_PENDING_EDGE_MAX_BYTES)),
+                EvictionPolicy.fromLabel(config.getProperty(PENDING_EDGE_EVICTION_PROPERTY,
+                        EvictionPolicy.OLDEST.getLabel())));
+        this.resolvedEdges = new ArrayList<>();
+        this.processedNodeList = new IntObjectMap<>();
         this.resetProcessing();
-        this.sampler = Sampler.getInstance();
+        this.sampler = sampler;
+        this.sampler.setStreamProcessor(this);
+        this.ensembleSamplers = new ArrayList<>();
+    }
+
+    public Sampler getSampler() {
+        return sampler;
+    }
+
+    /**
+     * Adds a sampler fed by the same processed stream as the sampler of the processor
+     * @param ensembleSampler sampler with its own sample
+     */
+    public void addEnsembleSampler(Sampler ensembleSampler) {
+        ensembleSampler.setStreamProcessor(this);
+        this.ensembleSamplers.add(ensembleSampler);
     }
 
-    public Map<String, List<Edge>> getUnprocessedEdgeList() {
+    @Override
+    public List<Sampler> getEnsembleSamplers() {
+        return Collections.unmodifiableList(ensembleSamplers);
+    }
+
+    public PendingEdgeStore getUnprocessedEdgeList() {
         return unprocessedEdgeList;
     }
 
-    public void setUnprocessedEdgeList(Map<String, List<Edge>> unprocessedEdgeList) {
+    public void setUnprocessedEdgeList(PendingEdgeStore unprocessedEdgeList) {
         this.unprocessedEdgeList = unprocessedEdgeList;
     }
 
-    public Map<String, Map<String, Node>> getProcessedNodeList() {
+    public IntObjectMap<IntObjectMap<Node>> getProcessedNodeList() {
         return processedNodeList;
     }
 
-    public void setProcessedNodeList(Map<String, Map<String, Node>> processedNodeList) {
+    public void setProcessedNodeList(IntObjectMap<IntObjectMap<Node>> processedNodeList) {
         this.processedNodeList = processedNodeList;
+        this.processedNodeCount = 0;
+        for (IntObjectMap<Node> graphNodes : processedNodeList.values()) {
+            this.processedNodeCount += graphNodes.size();
+            graphNodes.values().forEach(node -> nodeExpiry.add(node, node.getTimeStep()));
+        }
     }
 
     public Integer getStreamedItemCount() {
@@ -75,50 +144,76 @@ public class StreamProcessor {
      * @throws IOException
      */
     public void readStreamedItem(String streamedItem, Integer windowCount) throws IOException {
-        StreamItemProcessor itemProcessor = new StreamItemProcessor();
-        itemProcessor.setStreamedItem(streamedItem);
-        if (itemProcessor.getStreamedItemType() == GraphPropertyType.NODE) {
-            this._readStreamedNode(itemProcessor, windowCount);
-        } else if (itemProcessor.getStreamedItemType() == GraphPropertyType.EDGE) {
-            this._readStreamedEdge(itemProcessor, windowCount);
+        byte[] data = streamedItem.getBytes(StandardCharsets.UTF_8);
+        this.readStreamedItem(data, 0, data.length, windowCount);
+    }
+
+    /**
+     * Reads streamed items straight from the message body
+     * @param data
+     * @param offset
+     * @param length
+     * @param windowCount
+     * @throws IOException
+     */
+    @Override
+    public void readStreamedItem(byte[] data, int offset, int length, Integer windowCount) throws IOException {
+        this.processItem(this.decoder.decode(data, offset, length), windowCount);
+    }
+
+    /**
+     * Processes decoded node or edge
+     * @param item
+     * @param windowCount
+     */
+    @Override
+    public void processItem(GraphProperty item, Integer windowCount) {
+        if (item instanceof Node) {
+            this._readStreamedNode((Node) item, windowCount);
+        } else if (item instanceof Edge) {
+            this._readStreamedEdge((Edge) item, windowCount);
         }
         streamedItemCount++;
     }
 
+    public StreamItemDecoder getDecoder() {
+        return decoder;
+    }
+
+    public void setDecoder(StreamItemDecoder decoder) {
+        this.decoder = decoder;
+    }
+
     /**
      * Read Streamed node
-     * @param itemProcessor
+     * @param streamedNode
      * @param windowCount
      */
-    private void _readStreamedNode(StreamItemProcessor itemProcessor, Integer windowCount) {
-        Node streamedNode = mapper.convertValue(itemProcessor.getStreamedItem(), Node.class);
+    private void _readStreamedNode(Node streamedNode, Integer windowCount) {
         streamedNode.setTimeStep(windowCount);
-        //setting actual node ID
-        String nodeId = GraphHelper.getGraphIndex(streamedNode);
-        streamedNode.setId(nodeId);
 
-        String graphId = GraphHelper.getGraphId(streamedNode);
-        if (!this.processedNodeList.containsKey(graphId)) {
-            this.processedNodeList.put(graphId, new HashMap<>());
+        int graphIndex = streamedNode.getGraphIndex();
+        IntObjectMap<Node> graphNodes = this.processedNodeList.get(graphIndex);
+        if (graphNodes == null) {
+            graphNodes = new IntObjectMap<>();
+            this.processedNodeList.put(graphIndex, graphNodes);
         }
-        if (!this.processedNodeList.get(graphId).containsKey(streamedNode.getId())) {
-            this.processedNodeList.get(graphId).put(streamedNode.getId(), streamedNode);
-            this._processUnprocessedEdge(graphId, windowCount);
+        if (!graphNodes.containsKey(streamedNode.getIdNumber())) {
+            graphNodes.put(streamedNode.getIdNumber(), streamedNode);
+            processedNodeCount++;
+            nodeExpiry.add(streamedNode, windowCount);
+            this._processUnprocessedEdge(graphIndex, streamedNode.getIdNumber(), windowCount);
         }
 
     }
 
     /**
      * Read streamed edge
-     * @param itemProcessor
+     * @param streamedEdge
      * @param windowCount
      */
-    private void _readStreamedEdge(StreamItemProcessor itemProcessor, Integer windowCount) {
-        Edge streamedEdge = mapper.convertValue(itemProcessor.getStreamedItem(), Edge.class);
-        streamedEdge.setId(GraphHelper.getGraphIndex(streamedEdge));
+    private void _readStreamedEdge(Edge streamedEdge, Integer windowCount) {
         streamedEdge.setTimeStep(windowCount);
-        streamedEdge.setTarget(GraphHelper.getEdgeTargetAttribute(streamedEdge));
-        streamedEdge.setSource(GraphHelper.getEdgeSourceAttribute(streamedEdge));
         this._processEdge(streamedEdge, windowCount);
 
     }
@@ -129,67 +224,86 @@ public class StreamProcessor {
      * @param windowCount
      */
     private void _processEdge(Edge edge, Integer windowCount) {
-        String graphId = GraphHelper.getGraphId(edge);
+        int graphIndex = edge.getGraphIndex();
 
-        if (_isEdgeAllowedToParse(edge, graphId)) {
-            this._sampleEdge(edge, graphId, windowCount);
+        if (_isEdgeAllowedToParse(edge, graphIndex)) {
+            this._sampleEdge(edge, graphIndex, windowCount);
         } else {
-            this._addUnprocessedEdge(graphId, edge);
+            this._addUnprocessedEdge(edge);
         }
     }
 
     /**
-     * Sample the streamed edge
+     * Sample the streamed edge, with every sampler that does not skip it
      * @param edge
-     * @param graphId
+     * @param graphIndex
      * @param windowCount
      */
-    private void _sampleEdge(Edge edge, String graphId, Integer windowCount) {
-        edge.setSourceVertex(processedNodeList.get(graphId).get(edge.getSource()));
-        edge.setTargetVertex(processedNodeList.get(graphId).get(edge.getTarget()));
-        this.sampler.createSampleGraphFromStream(edge, windowCount);
+    private void _sampleEdge(Edge edge, int graphIndex, Integer windowCount) {
+        boolean prepared = false;
+        if (!this.sampler.skipEdge()) {
+            this._setEdgeVertices(edge, graphIndex);
+            prepared = true;
+            this.sampler.createSampleGraphFromStream(edge, windowCount);
+        }
+        for (int i = 0; i < ensembleSamplers.size(); i++) {
+            Sampler ensembleSampler = ensembleSamplers.get(i);
+            if (!ensembleSampler.skipEdge()) {
+                if (!prepared) {
+                    this._setEdgeVertices(edge, graphIndex);
+                    prepared = true;
+                }
+                ensembleSampler.createSampleGraphFromStream(edge, windowCount);
+            }
+        }
+    }
+
+    private void _setEdgeVertices(Edge edge, int graphIndex) {
+        IntObjectMap<Node> graphNodes = processedNodeList.get(graphIndex);
+        edge.setSourceVertex(graphNodes.get(edge.getSourceId()));
+        edge.setTargetVertex(graphNodes.get(edge.getTargetId()));
     }
 
     /**
-     * Add unprocessed edge to list
-     * @param graphId
+     * Add unprocessed edge to the store, waiting for the nodes not processed yet
      * @param edge
      */
-    private void _addUnprocessedEdge(String graphId, Edge edge) {
-        if (!unprocessedEdgeList.containsKey(graphId)) {
-            unprocessedEdgeList.put(graphId, new ArrayList<>());
+    private void _addUnprocessedEdge(Edge edge) {
+        IntObjectMap<Node> graphNodes = this.processedNodeList.get(edge.getGraphIndex());
+        boolean sourceMissing = graphNodes == null || !graphNodes.containsKey(edge.getSourceId());
+        boolean targetMissing = graphNodes == null || !graphNodes.containsKey(edge.getTargetId());
+        PendingEdgeStore.Entry entry = unprocessedEdgeList.add(edge, sourceMissing, targetMissing);
+        // an edge evicted right away is not kept until the horizon
+        if (!entry.isRemoved()) {
+            edgeExpiry.add(entry, edge.getTimeStep());
         }
-        unprocessedEdgeList.get(graphId).add(edge);
     }
 
     /**
-     * Process the unprocessed edge
-     * @param graphId
+     * Process the unprocessed edges that were only waiting for the node
+     * @param graphIndex
+     * @param nodeId
      * @param windowCount
      */
-    private void _processUnprocessedEdge(String graphId, Integer windowCount) {
-        if (!this.unprocessedEdgeList.isEmpty() && this.unprocessedEdgeList.get(graphId) != null) {
-            List<Edge> edgesToProcess = this.unprocessedEdgeList.get(graphId).stream()
-                    .filter(e -> _isEdgeAllowedToParse(e, graphId))
-                    .collect(Collectors.toList());
-
-            for (Edge edgeToProcess : edgesToProcess) {
-                this._sampleEdge(edgeToProcess, graphId, windowCount);
-                this._removeUnprocessedEdgeList(edgeToProcess, graphId);
-            }
+    private void _processUnprocessedEdge(int graphIndex, int nodeId, Integer windowCount) {
+        this.unprocessedEdgeList.resolve(graphIndex, nodeId, resolvedEdges);
+        resolvedEdgeCount += resolvedEdges.size();
+        for (Edge edgeToProcess : resolvedEdges) {
+            this._sampleEdge(edgeToProcess, graphIndex, windowCount);
         }
+        resolvedEdges.clear();
     }
 
     /**
      * Checks if edge is allowed to parse
      * @param edge
-     * @param graphId
+     * @param graphIndex
      * @return
      */
-    private Boolean _isEdgeAllowedToParse(Edge edge, String graphId) {
-        return this.processedNodeList.containsKey(graphId) && !processedNodeList.get(graphId).isEmpty()
-                && processedNodeList.get(graphId).containsKey(edge.getSource())
-                && processedNodeList.get(graphId).containsKey(edge.getTarget());
+    private boolean _isEdgeAllowedToParse(Edge edge, int graphIndex) {
+        IntObjectMap<Node> graphNodes = this.processedNodeList.get(graphIndex);
+        return graphNodes != null && graphNodes.containsKey(edge.getSourceId())
+                && graphNodes.containsKey(edge.getTargetId());
     }
 
     public void resetProcessing() {
@@ -197,58 +311,139 @@ public class StreamProcessor {
     }
 
     /**
-     * Removes unprocessed edge after processing
-     * @param edge
-     * @param graphId
+     * Drops the stale nodes and resets the window counters
+     * @param windowCount
+     * @return sample of the sampler
      */
-    private void _removeUnprocessedEdgeList(Edge edge, String graphId) {
-        this.unprocessedEdgeList.get(graphId).remove(edge);
-        if (this.unprocessedEdgeList.get(graphId).isEmpty()) {
-            this.unprocessedEdgeList.remove(graphId);
-        }
+    @Override
+    public Sample closeWindow(int windowCount) {
+        this.filterProcessedNodes(windowCount);
+        this.resetProcessing();
+        return this.sampler.getSample().snapshot();
     }
 
     /**
-     * Filters processed nodes
+     * Drops the processed nodes and pending edges that arrived more than the expiry horizon before the
+     * time step, only visiting the windows falling out of the horizon
      * @param timeStep
      * @return
      */
     public Boolean filterProcessedNodes(int timeStep) {
-        for(Map.Entry<String,Map<String,Node>> nodes : this.processedNodeList.entrySet()){
-            Map<String,Node> graphNodes = nodes.getValue().entrySet().stream()
-                    .filter(n->filterUnprocessedEdge(n.getValue(),timeStep))
-                    .collect(Collectors.toMap(Map.Entry::getKey,Map.Entry::getValue));
-            this.processedNodeList.put(nodes.getKey(),graphNodes);
-
-        }
-
+        nodeExpiry.expire(timeStep);
+        edgeExpiry.expire(timeStep);
         return true;
     }
 
     /**
-     * Filters unprocessed nodes
+     * Drops a stale processed node and the pending edges waiting with it
      * @param node
-     * @param timeStep
-     * @return
      */
-    public boolean filterUnprocessedEdge(Node node, int timeStep) {
-        if ((timeStep - node.getTimeStep()) > 10) {
-            String graphId = GraphHelper.getGraphId(node);
-            List<Edge> unprocessedEdge = this.unprocessedEdgeList.get(graphId).stream()
-                    .filter(e -> (!e.getSource().equals(node.getId()) && !e.getTarget().equals(node.getId())))
-                    .collect(Collectors.toList());
-            this.unprocessedEdgeList.put(graphId, unprocessedEdge);
-            return false;
+    private void _expireNode(Node node) {
+        IntObjectMap<Node> graphNodes = this.processedNodeList.get(node.getGraphIndex());
+        if (graphNodes == null || graphNodes.get(node.getIdNumber()) != node) {
+            return;
+        }
+        graphNodes.remove(node.getIdNumber());
+        if (graphNodes.isEmpty()) {
+            this.processedNodeList.remove(node.getGraphIndex());
+        }
+        processedNodeCount--;
+        expiredNodeCount++;
+        droppedEdgeCount += this.unprocessedEdgeList.remove(node.getGraphIndex(), node.getIdNumber());
+    }
+
+    /**
+     * Drops a pending edge whose nodes did not arrive within the expiry horizon
+     * @param entry
+     */
+    private void _expireEdge(PendingEdgeStore.Entry entry) {
+        if (this.unprocessedEdgeList.remove(entry)) {
+            expiredEdgeCount++;
         }
-        return true;
     }
 
     /**
      * get processed nodes count
      * @return
      */
-    public Integer getProcessedNodeCount() {
-        return this.processedNodeList.values().stream().mapToInt(Map::size).sum();
+    public int getProcessedNodeCount() {
+        return processedNodeCount;
+    }
+
+    /**
+     * Gets the number of edges waiting for one of their nodes
+     * @return pending edge count
+     */
+    public int getPendingEdgeCount() {
+        return unprocessedEdgeList.size();
+    }
+
+    /**
+     * Gets the number of processed nodes dropped as stale so far
+     * @return expired node count
+     */
+    public long getExpiredNodeCount() {
+        return expiredNodeCount;
+    }
+
+    /**
+     * Gets the number of pending edges dropped with a stale node so far
+     * @return dropped edge count
+     */
+    public long getDroppedEdgeCount() {
+        return droppedEdgeCount;
+    }
+
+    /**
+     * Gets the number of pending edges dropped after the expiry horizon so far
+     * @return expired edge count
+     */
+    public long getExpiredEdgeCount() {
+        return expiredEdgeCount;
+    }
+
+    /**
+     * Gets the estimated heap size of the edges waiting for one of their nodes
+     * @return size in bytes
+     */
+    public long getPendingEdgeBytes() {
+        return unprocessedEdgeList.getBytes();
+    }
+
+    /**
+     * Gets the number of pending edges evicted to keep the pending edges within their bounds so far
+     * @return evicted edge count
+     */
+    public long getEvictedEdgeCount() {
+        return unprocessedEdgeList.getEvictedCount();
+    }
+
+    /**
+     * Gets the number of pending edges sampled once their nodes arrived so far
+     * @return resolved edge count
+     */
+    public long getResolvedEdgeCount() {
+        return resolvedEdgeCount;
+    }
+
+    @Override
+    public void registerMetrics(MetricRegistry metrics) {
+        metrics.gauge("processor.processed-nodes", this::getProcessedNodeCount);
+        metrics.gauge("processor.pending-edges", this::getPendingEdgeCount);
+        metrics.gauge("processor.expired-nodes", this::getExpiredNodeCount);
+        metrics.gauge("processor.dropped-edges", this::getDroppedEdgeCount);
+        metrics.gauge("processor.expired-edges", this::getExpiredEdgeCount);
+        metrics.gauge("processor.pending-edge-bytes", this::getPendingEdgeBytes);
+        metrics.gauge("processor.evicted-edges", this::getEvictedEdgeCount);
+        metrics.gauge("processor.resolved-edges", this::getResolvedEdgeCount);
+        metrics.gauge("sample.nodes", () -> sampler.getSample().getNodeCount());
+        metrics.gauge("sample.edges", () -> sampler.getSample().getEdgeCount());
+        for (int i = 0; i < ensembleSamplers.size(); i++) {
+            // read through the sampler, which replaces its sample on reset
+            Sampler ensembleSampler = ensembleSamplers.get(i);
+            metrics.gauge("sample." + (i + 2) + ".nodes", () -> ensembleSampler.getSample().getNodeCount());
+            metrics.gauge("sample." + (i + 2) + ".edges", () -> ensembleSampler.getSample().getEdgeCount());
+        }
     }
 
 }
@@ -0,0 +1,46 @@
+package edu.tntech.graph.stream;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Source of the graph stream, delivering its items into the {@link IngestionPipeline}
+ */
+public interface StreamSource {
+
+    String SOURCE_PROPERTY = "stream-source";
+    String AMQP_SOURCE = "amqp";
+    String FILE_SOURCE = "file";
+    String IN_PROCESS_SOURCE = "in-process";
+
+    /**
+     * Starts delivering the stream into the pipeline
+     *
+     * @param pipeline pipeline receiving the items
+     * @return completed once the source is exhausted or closed
+     * @throws IOException
+     */
+    CompletableFuture<Void> start(IngestionPipeline pipeline) throws IOException;
+
+    /**
+     * Commits every item up to the delivery tag, called once the window holding it is sampled
+     *
+     * @param deliveryTag delivery tag of the last item of the window
+     * @throws IOException
+     */
+    void acknowledge(long deliveryTag) throws IOException;
+
+    /**
+     * Checks if the stream ends, in which case its last incomplete window is sampled as well
+     *
+     * @return true for finite streams
+     */
+    boolean isFinite();
+
+    /**
+     * Stops the delivery
+     *
+     * @throws IOException
+     */
+    void close() throws IOException;
+}
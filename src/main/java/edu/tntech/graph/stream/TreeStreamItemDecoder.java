@@ -0,0 +1,49 @@
+package edu.tntech.graph.stream;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import edu.tntech.graph.enumerator.GraphPropertyType;
+import edu.tntech.graph.helper.GraphHelper;
+import edu.tntech.graph.pojo.Edge;
+import edu.tntech.graph.pojo.GraphProperty;
+import edu.tntech.graph.pojo.Node;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decoder reading the item into a json tree and converting it into node/edge
+ * (the original decoding path, kept as a fallback).
+ */
+public class TreeStreamItemDecoder implements StreamItemDecoder {
+
+    private static final List<String> ITEM_ID_FIELDS = Arrays.asList(GraphHelper.GRAPH_INDEX_KEY,
+            GraphHelper.GRAPH_EDGE_SOURCE_KEY, GraphHelper.GRAPH_EDGE_TARGET_KEY);
+
+    private final ObjectMapper mapper;
+
+    public TreeStreamItemDecoder() {
+        JsonFactory factory = new JsonFactory();
+        this.mapper = new ObjectMapper(factory);
+    }
+
+    @Override
+    public GraphProperty decode(byte[] data, int offset, int length) throws IOException {
+        StreamItemProcessor itemProcessor = new StreamItemProcessor(mapper);
+        itemProcessor.setStreamedItem(data, offset, length);
+        JsonNode item = itemProcessor.getStreamedItem();
+        if (item instanceof ObjectNode) {
+            // id, source and target are always taken from the attributes, whatever their order
+            ((ObjectNode) item).remove(ITEM_ID_FIELDS);
+        }
+        if (itemProcessor.getStreamedItemType() == GraphPropertyType.NODE) {
+            return mapper.convertValue(item, Node.class);
+        } else if (itemProcessor.getStreamedItemType() == GraphPropertyType.EDGE) {
+            return mapper.convertValue(item, Edge.class);
+        }
+        return null;
+    }
+}
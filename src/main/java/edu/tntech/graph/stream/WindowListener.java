@@ -0,0 +1,17 @@
+package edu.tntech.graph.stream;
+
+/**
+ * Receives the window boundaries fired by the {@link WindowScheduler}
+ */
+@FunctionalInterface
+public interface WindowListener {
+
+    /**
+     * Called on the processing thread once a window is complete, before any item of the next window
+     *
+     * @param windowCount window that was completed
+     * @param deliveryTag delivery tag of the last item of the window
+     * @throws Exception
+     */
+    void windowClosed(int windowCount, long deliveryTag) throws Exception;
+}
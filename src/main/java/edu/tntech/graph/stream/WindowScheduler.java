@@ -0,0 +1,93 @@
+package edu.tntech.graph.stream;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when the current window is complete.
+ * <p>
+ * A window closes as soon as it holds the item limit, or when the timeout has elapsed since its first
+ * item. Empty windows never close. Only used from the processing thread.
+ */
+public class WindowScheduler {
+
+    public static final String WINDOW_ITEM_LIMIT_PROPERTY = "window-item-limit";
+    public static final String WINDOW_TIMEOUT_PROPERTY = "window-timeout-ms";
+    public static final String DEFAULT_WINDOW_TIMEOUT = "60000";
+
+    private final int itemLimit;
+    private final long timeoutNanos;
+
+    private int itemCount;
+    private long windowOpenedAt;
+    private int windowCount;
+
+    public WindowScheduler(int itemLimit, long timeoutMillis) {
+        if (itemLimit <= 0) {
+            throw new IllegalArgumentException("Window item limit must be positive");
+        }
+        this.itemLimit = itemLimit;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.itemCount = 0;
+        this.windowCount = 0;
+    }
+
+    public int getItemLimit() {
+        return itemLimit;
+    }
+
+    /**
+     * Gets the current (open) window
+     *
+     * @return window count
+     */
+    public int getWindowCount() {
+        return windowCount;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * Records an item processed in the current window
+     *
+     * @return true if the window reached its item limit
+     */
+    public boolean itemProcessed() {
+        if (itemCount == 0) {
+            windowOpenedAt = System.nanoTime();
+        }
+        return ++itemCount >= itemLimit;
+    }
+
+    /**
+     * Gets the time left before the current window times out
+     *
+     * @return nanoseconds to the deadline, Long.MAX_VALUE if the window is empty
+     */
+    public long getNanosToDeadline() {
+        if (itemCount == 0) {
+            return Long.MAX_VALUE;
+        }
+        return windowOpenedAt + timeoutNanos - System.nanoTime();
+    }
+
+    /**
+     * Checks if the current window has to be closed
+     *
+     * @return true if the window is full or timed out
+     */
+    public boolean isDue() {
+        return itemCount >= itemLimit || (itemCount > 0 && getNanosToDeadline() <= 0);
+    }
+
+    /**
+     * Closes the current window and opens the next one
+     *
+     * @return closed window
+     */
+    public int closeWindow() {
+        itemCount = 0;
+        return windowCount++;
+    }
+}
@@ -0,0 +1,172 @@
+package edu.tntech.graph.stream;
+
+import edu.tntech.graph.metrics.MetricRegistry;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes the outputs of the closed windows on its own thread, so the ingestion does not wait for the disk.
+ * <p>
+ * Windows are written in the order they closed, and each one is acknowledged to the stream source only once its
+ * outputs are on disk. At most a configured number of windows are in flight: closing one more blocks the
+ * processing thread until the oldest is acknowledged. A window that could not be written is not acknowledged,
+ * nor any window after it, so their items are delivered again (at least once delivery).
+ */
+public class WindowWriter implements Runnable {
+    private static final Logger log = Logger.getLogger(WindowWriter.class.getName());
+
+    public static final String IN_FLIGHT_WINDOWS_PROPERTY = "writer-in-flight-windows";
+    public static final String DEFAULT_IN_FLIGHT_WINDOWS = "2";
+
+    /**
+     * Outputs of a closed window
+     */
+    @FunctionalInterface
+    public interface WindowOutput {
+
+        /**
+         * Writes the outputs, returning once they are on disk
+         *
+         * @throws IOException
+         */
+        void write() throws IOException;
+    }
+
+    /**
+     * Closed window waiting to be written
+     */
+    private static final class Window {
+        private final int windowCount;
+        private final long deliveryTag;
+        private final WindowOutput output;
+
+        private Window(int windowCount, long deliveryTag, WindowOutput output) {
+            this.windowCount = windowCount;
+            this.deliveryTag = deliveryTag;
+            this.output = output;
+        }
+    }
+
+    //wakes the writer up on shutdown
+    private static final Window END = new Window(-1, -1, null);
+
+    private final StreamSource source;
+    private final CompletableFuture<Void> failed;
+    private final BlockingQueue<Window> windows;
+    private final int inFlightLimit;
+    private final Semaphore inFlight;
+    private final Thread thread;
+
+    private volatile long writtenWindowCount;
+    private volatile long lastWriteMillis;
+    private volatile long acknowledgedTag;
+
+    /**
+     * Creates the writer, started with {@link #start()}
+     *
+     * @param source          source acknowledging the written windows
+     * @param inFlightWindows maximum number of closed windows not yet acknowledged
+     * @param failed          completed if a window could not be written
+     */
+    public WindowWriter(StreamSource source, int inFlightWindows, CompletableFuture<Void> failed) {
+        this.source = source;
+        this.failed = failed;
+        this.windows = new LinkedBlockingQueue<>();
+        this.inFlightLimit = Math.max(1, inFlightWindows);
+        this.inFlight = new Semaphore(inFlightLimit);
+        this.thread = new Thread(this, "window-writer");
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Queues the outputs of a closed window, waiting while too many windows are in flight
+     *
+     * @param windowCount window that was closed
+     * @param deliveryTag delivery tag of the last item of the window
+     * @param output      outputs of the window, built from snapshots the stream does not change
+     * @throws InterruptedException
+     */
+    public void submit(int windowCount, long deliveryTag, WindowOutput output) throws InterruptedException {
+        if (failed.isDone()) {
+            log.log(Level.FINE, "Window {0} not written, a previous window failed", windowCount);
+            return;
+        }
+        inFlight.acquire();
+        windows.put(new Window(windowCount, deliveryTag, output));
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            Window window;
+            try {
+                window = windows.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (window == END) {
+                return;
+            }
+            try {
+                this._write(window);
+            } finally {
+                inFlight.release();
+            }
+        }
+    }
+
+    /**
+     * Writes the windows in flight and stops the writer thread
+     *
+     * @throws InterruptedException
+     */
+    public void shutdown() throws InterruptedException {
+        windows.put(END);
+        thread.join();
+    }
+
+    /**
+     * Exports the counters of the writer
+     *
+     * @param metrics registry to export to
+     */
+    public void registerMetrics(MetricRegistry metrics) {
+        metrics.gauge("writer.in-flight-windows", () -> inFlightLimit - inFlight.availablePermits());
+        metrics.gauge("writer.written-windows", () -> writtenWindowCount);
+        metrics.gauge("writer.last-write-millis", () -> lastWriteMillis);
+        metrics.gauge("writer.acknowledged-tag", () -> acknowledgedTag);
+    }
+
+    /**
+     * Writes the window and acknowledges every item up to its last one
+     *
+     * @param window closed window
+     */
+    private void _write(Window window) {
+        if (failed.isDone()) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            window.output.write();
+            lastWriteMillis = (System.nanoTime() - start) / 1000000;
+            source.acknowledge(window.deliveryTag);
+            acknowledgedTag = window.deliveryTag;
+            writtenWindowCount++;
+            MetricRegistry.getInstance().report();
+        } catch (Exception e) {
+            log.log(Level.SEVERE, "Could not write window " + window.windowCount + ", stopping consumption", e);
+            failed.complete(null);
+        }
+    }
+}
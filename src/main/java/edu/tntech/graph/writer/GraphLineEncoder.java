@@ -0,0 +1,237 @@
+package edu.tntech.graph.writer;
+
+import edu.tntech.graph.collection.IntObjectMap;
+import edu.tntech.graph.enumerator.EdgeType;
+import edu.tntech.graph.helper.SymbolTable;
+import edu.tntech.graph.pojo.Edge;
+import edu.tntech.graph.pojo.GraphProperty;
+import edu.tntech.graph.pojo.Node;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes the lines of a GBAD graph file straight into one reusable direct buffer, written to the channel
+ * only when the buffer is full.
+ * <p>
+ * Numbers are encoded digit by digit, and the bytes of labels are cached by their index in the label
+ * dictionary, so encoding a line without comment allocates nothing once its labels are cached. Comments are
+ * mostly unique (time stamps), they are encoded on every write rather than kept for the life of the encoder.
+ * Not thread safe.
+ */
+public class GraphLineEncoder {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+    //longest fixed part of a line: prefix, two ids and separators
+    private static final int MAX_FIXED_LENGTH = 64;
+
+    private static final byte[] XP_PREFIX = "XP # ".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NODE_PREFIX = "v ".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DIRECTED_PREFIX = (EdgeType.DIRECTED.getLabel() + " ").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] UN_DIRECTED_PREFIX = (EdgeType.UN_DIRECTED.getLabel() + " ")
+            .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] COMMENT_PREFIX = "//".getBytes(StandardCharsets.UTF_8);
+    private static final byte SPACE = ' ';
+    private static final byte QUOTE = '"';
+    private static final byte NEW_LINE = '\n';
+
+    private final ByteBuffer buffer;
+    //label dictionary index -> encoded label
+    private final IntObjectMap<byte[]> labelBytes;
+    private final byte[] digits;
+    private WritableByteChannel channel;
+
+    public GraphLineEncoder() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    public GraphLineEncoder(int bufferSize) {
+        this.buffer = ByteBuffer.allocateDirect(Math.max(MAX_FIXED_LENGTH, bufferSize));
+        this.labelBytes = new IntObjectMap<>();
+        this.digits = new byte[10];
+    }
+
+    /**
+     * Starts encoding into the channel, dropping anything left from a previous channel
+     *
+     * @param channel channel the lines are written to
+     */
+    public void open(WritableByteChannel channel) {
+        this.channel = channel;
+        buffer.clear();
+    }
+
+    /**
+     * Encodes the positive graph line
+     *
+     * @param xp number of the graph in the file
+     * @throws IOException
+     */
+    public void writeXP(int xp) throws IOException {
+        this._ensure(MAX_FIXED_LENGTH);
+        buffer.put(XP_PREFIX);
+        this._putInt(xp);
+        buffer.put(NEW_LINE);
+    }
+
+    /**
+     * Encodes a comment line
+     *
+     * @param comment comment
+     * @throws IOException
+     */
+    public void writeComment(String comment) throws IOException {
+        this._ensure(COMMENT_PREFIX.length);
+        buffer.put(COMMENT_PREFIX);
+        this._putBytes(comment.getBytes(StandardCharsets.UTF_8));
+        this._ensure(1);
+        buffer.put(NEW_LINE);
+    }
+
+    /**
+     * Encodes the node line, preceded by its comment line
+     *
+     * @param node   node
+     * @param nodeId id written for the node
+     * @throws IOException
+     */
+    public void writeNode(Node node, int nodeId) throws IOException {
+        this._putComment(node);
+        this._ensure(MAX_FIXED_LENGTH);
+        buffer.put(NODE_PREFIX);
+        this._putInt(nodeId);
+        buffer.put(SPACE);
+        this._putLabel(node);
+        buffer.put(NEW_LINE);
+    }
+
+    /**
+     * Encodes the edge line, preceded by its comment line
+     *
+     * @param edge   edge
+     * @param source id written for the source node, negative to write the streamed source id
+     * @param target id written for the target node, negative to write the streamed target id
+     * @throws IOException
+     */
+    public void writeEdge(Edge edge, int source, int target) throws IOException {
+        this._putComment(edge);
+        this._ensure(MAX_FIXED_LENGTH);
+        buffer.put(edge.isDirected() ? DIRECTED_PREFIX : UN_DIRECTED_PREFIX);
+        this._putId(source, edge.getSource());
+        buffer.put(SPACE);
+        this._putId(target, edge.getTarget());
+        if (edge.getLabelIndex() >= 0) {
+            buffer.put(SPACE);
+            this._putLabel(edge);
+        }
+        buffer.put(NEW_LINE);
+    }
+
+    /**
+     * Writes the encoded lines to the channel
+     *
+     * @throws IOException
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void _putId(int id, String streamedId) throws IOException {
+        if (id >= 0) {
+            this._putInt(id);
+        } else {
+            this._putBytes(String.valueOf(streamedId).getBytes(StandardCharsets.UTF_8));
+            this._ensure(MAX_FIXED_LENGTH);
+        }
+    }
+
+    private void _putLabel(GraphProperty property) throws IOException {
+        if (property.getLabelIndex() < 0) {
+            return;
+        }
+        this._ensure(1);
+        buffer.put(QUOTE);
+        this._putBytes(this._getLabelBytes(property.getLabelIndex()));
+        this._ensure(MAX_FIXED_LENGTH);
+        buffer.put(QUOTE);
+    }
+
+    private void _putComment(GraphProperty property) throws IOException {
+        String comment = property.getComment();
+        if (comment != null) {
+            this.writeComment(comment);
+        }
+    }
+
+    /**
+     * Gets the encoded label, encoding it on first use
+     *
+     * @param index index in the label dictionary
+     * @return label bytes
+     */
+    private byte[] _getLabelBytes(int index) {
+        byte[] bytes = labelBytes.get(index);
+        if (bytes == null) {
+            bytes = SymbolTable.getLabels().getSymbol(index).getBytes(StandardCharsets.UTF_8);
+            labelBytes.put(index, bytes);
+        }
+        return bytes;
+    }
+
+    /**
+     * Puts the decimal digits of the number, room for them must have been ensured
+     *
+     * @param value number
+     */
+    private void _putInt(int value) {
+        long number = value;
+        if (number < 0) {
+            buffer.put((byte) '-');
+            number = -number;
+        }
+        int length = 0;
+        do {
+            digits[length++] = (byte) ('0' + number % 10);
+            number /= 10;
+        } while (number > 0);
+        while (length > 0) {
+            buffer.put(digits[--length]);
+        }
+    }
+
+    /**
+     * Puts bytes of any length, writing full buffers to the channel
+     *
+     * @param bytes bytes to put
+     * @throws IOException
+     */
+    private void _putBytes(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                this.flush();
+            }
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    /**
+     * Writes the buffer to the channel if it has less room than the length
+     *
+     * @param length bytes about to be put
+     * @throws IOException
+     */
+    private void _ensure(int length) throws IOException {
+        if (buffer.remaining() < length) {
+            this.flush();
+        }
+    }
+}
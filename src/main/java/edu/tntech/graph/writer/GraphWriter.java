@@ -1,29 +1,34 @@
 package edu.tntech.graph.writer;
 
-import edu.tntech.graph.enumerator.EdgeType;
+import edu.tntech.graph.collection.IntObjectMap;
 import edu.tntech.graph.helper.ConfigReader;
 import edu.tntech.graph.helper.GraphHelper;
 import edu.tntech.graph.helper.Helper;
+import edu.tntech.graph.helper.SymbolTable;
 import edu.tntech.graph.pojo.Edge;
-import edu.tntech.graph.pojo.GraphProperty;
 import edu.tntech.graph.pojo.Node;
 import edu.tntech.graph.pojo.Sample;
 import edu.tntech.graph.sampler.Sampler;
 
 import java.io.IOException;
 import java.io.RandomAccessFile;
-import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 public class GraphWriter {
     private static final Logger log = Logger.getLogger(GraphWriter.class.getName());
     private static final String GRAPH_FILE_PROPERTY_KEY = "graph-file";
 
+    //one encoder per writing thread, its buffer and encoded labels are reused by every write
+    private static final ThreadLocal<GraphLineEncoder> encoders = ThreadLocal.withInitial(GraphLineEncoder::new);
+
     private Sample sample;
+    //slot of a node in the map of its graph -> written node id, reused by every graph
+    private int[] nodeIds = new int[0];
 
 
     public GraphWriter(boolean isStored) throws IOException {
@@ -36,241 +41,155 @@ public class GraphWriter {
         }
     }
 
+    public GraphWriter(Sample sample) {
+        this.sample = sample;
+    }
+
     /**
      * Write graph to the file
      *
      * @throws IOException
      */
     public void write() throws IOException {
-        log.log(Level.FINE,"Writing the graph to the file");
-        String graphFile = Helper.getInstance()
-                .getAbsolutePath(ConfigReader.getInstance().getProperty(GRAPH_FILE_PROPERTY_KEY));
-        try (RandomAccessFile fileStream = new RandomAccessFile(graphFile, "rw");
-             FileChannel channel = fileStream.getChannel()) {
-            channel.truncate(0); //empty the file first
-            _writeGraph(channel);
-            _reset();
-        }
+        this.write(ConfigReader.getInstance().getProperty(GRAPH_FILE_PROPERTY_KEY));
     }
 
     /**
-     * Reset the graph writer
+     * Write graph to the given file
      *
+     * @param graphFile path of the graph file, relative to the jar
      * @throws IOException
      */
-    private void _reset() throws IOException {
-        log.log(Level.FINE,"Resetting the graph writer sample");
-        sample = null;
-
-        //Setting the sample from the file for next time window
-        Sampler.getInstance().setSample();
+    public void write(String graphFile) throws IOException {
+        this.write(Paths.get(Helper.getInstance().getAbsolutePath(graphFile)));
     }
 
     /**
-     * Writes the graph
+     * Write graph to the file at the given path, returning once the file is on disk
      *
-     * @param channel
+     * @param graphFile path of the graph file
      * @throws IOException
      */
-    private void _writeGraph(FileChannel channel) throws IOException {
-        Integer xpCount = 0;
-        for (String xp : sample.getSampleNodes().keySet()) {
-            String xpLine = _getXPLine((++xpCount).toString());
-            _writeToFile(channel, xpLine);
-            _writeNodeToFile(channel, xp);
-            _writeEdgeToFile(channel, xp);
-        }
+    public void write(Path graphFile) throws IOException {
+        this.write(graphFile, null);
     }
 
     /**
-     * Write each node to the graph file
+     * Write the given graphs to the file at the given path, each one preceded by a comment line with its graph
+     * id, returning once the file is on disk
      *
-     * @param channel
-     * @param xp
+     * @param graphFile path of the graph file
+     * @param graphs    graph index -> any value, graphs without sampled nodes are skipped. Null to write every
+     *                  graph without graph id lines
      * @throws IOException
      */
-    private void _writeNodeToFile(FileChannel channel, String xp)
-            throws IOException {
-
-        List<Node> nodesInXp = new ArrayList<>(this.sample.getSampleNodes().get(xp).values());
-        Integer nodeCount = 1;
-        for (Node node : nodesInXp) {
-            String oldNodeId = node.getId(); //get old node id
-            node.setId(nodeCount.toString()); // set incremental node id
-            _orderEdges(node, oldNodeId, xp);
-            String nodeLine = _getNodeLine(node);
-            _writeToFile(channel, nodeLine);
-            nodeCount++;
-        }
-    }
-
-
-    /**
-     * Orders the node in incremental fashion
-     *
-     * @param newNode
-     * @param oldNodeId
-     * @param xp
-     */
-    private void _orderEdges(Node newNode, String oldNodeId, String xp) {
-        if (!oldNodeId.equals(newNode.getId()) && !this.sample.getSampleEdges().isEmpty()
-                && this.sample.getSampleEdges().get(xp) != null) {
-
-            Map<Integer, Edge> edgesForXp = this.sample.getSampleEdges().get(xp).values().stream()
-                    .map(e -> _updateEdge(e, oldNodeId, newNode))
-                    .collect(Collectors.toMap(Edge::getIdNumber, e -> e));
-
-            this._setSampledEdgesForGraph(xp, edgesForXp);
+    public void write(Path graphFile, IntObjectMap<?> graphs) throws IOException {
+        log.log(Level.FINE,"Writing the graph to the file");
+        try (RandomAccessFile fileStream = new RandomAccessFile(graphFile.toFile(), "rw");
+             FileChannel channel = fileStream.getChannel()) {
+            channel.truncate(0); //empty the file first
+            GraphLineEncoder encoder = encoders.get();
+            encoder.open(channel);
+            _writeGraph(encoder, graphs);
+            encoder.flush();
+            channel.force(true);
+            _reset();
         }
     }
 
     /**
-     * Updates the edges source and target with incremental node id
+     * Reset the graph writer
      *
-     * @param edge
-     * @param oldNodeId
-     * @param newNode
-     * @return
+     * @throws IOException
      */
-    private Edge _updateEdge(Edge edge, String oldNodeId, Node newNode) {
-        if (edge.getSource().equals(oldNodeId)) {
-            edge.setSource(newNode.getId());
-            edge.setSourceVertex(newNode);
-        } else if (edge.getTarget().equals(oldNodeId)) {
-            edge.setTarget(newNode.getId());
-            edge.setTargetVertex(newNode);
-        }
-        return edge;
+    private void _reset() throws IOException {
+        log.log(Level.FINE,"Resetting the graph writer sample");
+        sample = null;
     }
 
     /**
-     * Writes edge to the file
+     * Writes the graph
      *
-     * @param channel
-     * @param xp
+     * @param encoder encoder writing to the graph file
+     * @param graphs  graphs to write, null for every graph
      * @throws IOException
      */
-    private void _writeEdgeToFile(FileChannel channel, String xp) throws IOException {
-        if (!this.sample.getSampleEdges().isEmpty() && this.sample.getSampleEdges().get(xp) != null)
-            for (Edge edge : this.sample.getSampleEdges().get(xp).values()) {
-                String edgeLine = _getEdgeLine(edge);
-                _writeToFile(channel, edgeLine);
+    private void _writeGraph(GraphLineEncoder encoder, IntObjectMap<?> graphs) throws IOException {
+        int xpCount = 0;
+        IntObjectMap<?> xps = graphs == null ? sample.getNodesByGraph() : graphs;
+        SymbolTable symbols = SymbolTable.getInstance();
+        for (int i = 0; i < xps.capacity(); i++) {
+            if (xps.valueAt(i) == null) {
+                continue;
             }
-    }
-
-    /**
-     * Gets the node line to be written to the file
-     *
-     * @param node
-     * @return
-     */
-    private String _getNodeLine(Node node) {
-        StringBuilder nodeLineBuilder = new StringBuilder();
-        String comment = _getCommentString(node);
-        if (comment != null) {
-            nodeLineBuilder.append(comment);
-        }
-
-        nodeLineBuilder.append("v ");
-        nodeLineBuilder.append(node.getId());
-        nodeLineBuilder.append(" ");
-
-        String label = GraphHelper.getGraphLabel(node);
-        if (label != null) {
-            nodeLineBuilder.append(label);
+            int xp = xps.keyAt(i);
+            if (graphs != null) {
+                if (sample.getGraphNodes(xp) == null) {
+                    continue;
+                }
+                encoder.writeComment(GraphHelper.GRAPH_ID_KEY + " " + symbols.getSymbol(xp));
+            }
+            encoder.writeXP(++xpCount);
+            _writeNodeToFile(encoder, xp);
+            _writeEdgeToFile(encoder, xp);
         }
-        nodeLineBuilder.append("\n");
-
-        return nodeLineBuilder.toString();
     }
 
     /**
-     * Gets the edge line to be written to the file
+     * Write each node to the graph file, numbering the nodes of the graph from 1. The sampled nodes keep their
+     * ids, the written id of each node is kept by the slot of the node in the map of the graph.
      *
-     * @param edge
-     * @return
+     * @param encoder
+     * @param xp
+     * @throws IOException
      */
-    private String _getEdgeLine(Edge edge) {
-        StringBuilder edgeLineBuilder = new StringBuilder();
-        String comment = _getCommentString(edge);
-        if (comment != null) {
-            edgeLineBuilder.append(comment);
+    private void _writeNodeToFile(GraphLineEncoder encoder, int xp) throws IOException {
+        IntObjectMap<Node> nodesInXp = this.sample.getGraphNodes(xp);
+        if (nodeIds.length < nodesInXp.capacity()) {
+            nodeIds = new int[nodesInXp.capacity()];
         }
-
-        edgeLineBuilder.append(edge.isDirected() ? EdgeType.DIRECTED.getLabel() : EdgeType.UN_DIRECTED.getLabel());
-        edgeLineBuilder.append(" ");
-        edgeLineBuilder.append(edge.getSource());
-        edgeLineBuilder.append(" ");
-        edgeLineBuilder.append(edge.getTarget());
-
-        String label = GraphHelper.getGraphLabel(edge);
-        if (label != null) {
-            edgeLineBuilder.append(" ");
-            edgeLineBuilder.append(label);
+        int nodeCount = 1;
+        for (int i = 0; i < nodesInXp.capacity(); i++) {
+            Node node = nodesInXp.valueAt(i);
+            if (node == null) {
+                continue;
+            }
+            nodeIds[i] = nodeCount;
+            encoder.writeNode(node, nodeCount);
+            nodeCount++;
         }
-
-        edgeLineBuilder.append("\n");
-
-        return edgeLineBuilder.toString();
     }
 
     /**
-     * Gets the positive graph line
+     * Writes edge to the file
      *
+     * @param encoder
      * @param xp
-     * @return
-     */
-    private String _getXPLine(String xp) {
-        StringBuilder xpLineBuilder = new StringBuilder();
-        xpLineBuilder.append("XP # ");
-        xpLineBuilder.append(xp);
-        xpLineBuilder.append("\n");
-        return xpLineBuilder.toString();
-    }
-
-    /**
-     * Writes the content to the file
-     *
-     * @param channel
-     * @param content
      * @throws IOException
      */
-    private void _writeToFile(FileChannel channel, String content)
-            throws IOException {
-        byte[] contentBytes = content.getBytes();
-        ByteBuffer buffer = ByteBuffer.allocate(contentBytes.length);
-        buffer.put(contentBytes);
-        buffer.flip();
-        channel.write(buffer);
-    }
-
-    /**
-     * Gets the comment string
-     *
-     * @param property
-     * @return
-     */
-    private String _getCommentString(GraphProperty property) {
-        String comment = GraphHelper.getGraphComment(property);
-        if (comment != null) {
-            StringBuilder commentBuilder = new StringBuilder("//");
-            commentBuilder.append(comment);
-            commentBuilder.append("\n");
-            return commentBuilder.toString();
-        }
-        return null;
+    private void _writeEdgeToFile(GraphLineEncoder encoder, int xp) throws IOException {
+        IntObjectMap<Node> nodesInXp = this.sample.getGraphNodes(xp);
+        IntObjectMap<Edge> edgesInXp = this.sample.getGraphEdges(xp);
+        if (edgesInXp != null)
+            for (int i = 0; i < edgesInXp.capacity(); i++) {
+                Edge edge = edgesInXp.valueAt(i);
+                if (edge != null) {
+                    encoder.writeEdge(edge, _getNodeId(nodesInXp, edge.getSourceId()),
+                            _getNodeId(nodesInXp, edge.getTargetId()));
+                }
+            }
     }
 
     /**
-     * Sets the sample edges for graph
+     * Gets the id written for the node
      *
-     * @param graphId
-     * @param sampledEdgesForGraph
+     * @param nodesInXp sampled nodes of the graph
+     * @param oldId     id of the node in the sample
+     * @return written id, -1 if the node was not written
      */
-    public void _setSampledEdgesForGraph(String graphId, Map<Integer, Edge> sampledEdgesForGraph) {
-        if (this.sample.getSampleEdges().containsKey(graphId)) {
-            this.sample.getSampleEdges().put(graphId, sampledEdgesForGraph);
-        }
+    private int _getNodeId(IntObjectMap<Node> nodesInXp, int oldId) {
+        int slot = nodesInXp.slotOf(oldId);
+        return slot < 0 ? -1 : nodeIds[slot];
     }
 
     /*
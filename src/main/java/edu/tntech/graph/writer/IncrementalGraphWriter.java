@@ -0,0 +1,163 @@
+package edu.tntech.graph.writer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.tntech.graph.collection.IntObjectMap;
+import edu.tntech.graph.helper.SymbolTable;
+import edu.tntech.graph.pojo.Sample;
+import edu.tntech.graph.pojo.SegmentManifest;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes the samples of successive windows as segment files next to the graph file, instead of rewriting the
+ * whole graph file every window.
+ * <p>
+ * The first window writes every sampled graph to a full segment, the next windows only the graphs that changed
+ * in the window (see {@link Sample#getChangedGraphs()}), so readers tail the new segments listed in the
+ * {@link SegmentManifest}. Once the manifest lists the segment limit, the next window is compacted into a new
+ * full segment and the older segments are deleted. Segments and manifest are on disk before a write returns,
+ * and the manifest is replaced atomically, so it only ever lists complete segments. Not thread safe.
+ */
+public class IncrementalGraphWriter {
+    private static final Logger log = Logger.getLogger(IncrementalGraphWriter.class.getName());
+
+    public static final String GRAPH_OUTPUT_PROPERTY = "graph-output";
+    public static final String REWRITE_OUTPUT = "rewrite";
+    public static final String INCREMENTAL_OUTPUT = "incremental";
+    public static final String SEGMENT_LIMIT_PROPERTY = "graph-segment-limit";
+    public static final String DEFAULT_SEGMENT_LIMIT = "32";
+
+    private static final String MANIFEST_SUFFIX = ".manifest.json";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final String baseName;
+    private final String extension;
+    private final Path manifestFile;
+    private final int segmentLimit;
+    private final ObjectMapper mapper;
+
+    //null until the first window is written
+    private SegmentManifest manifest;
+
+    /**
+     * Creates the writer of the segments of a graph file
+     *
+     * @param graphFile    path of the graph file the segments are named after
+     * @param segmentLimit segments listed in the manifest before compacting them
+     */
+    public IncrementalGraphWriter(Path graphFile, int segmentLimit) {
+        String fileName = graphFile.getFileName().toString();
+        int extensionIndex = fileName.lastIndexOf('.');
+        this.directory = graphFile.toAbsolutePath().getParent();
+        this.baseName = extensionIndex > 0 ? fileName.substring(0, extensionIndex) : fileName;
+        this.extension = extensionIndex > 0 ? fileName.substring(extensionIndex) : "";
+        this.manifestFile = directory.resolve(baseName + MANIFEST_SUFFIX);
+        this.segmentLimit = Math.max(1, segmentLimit);
+        this.mapper = new ObjectMapper();
+    }
+
+    /**
+     * Writes the segment of the window and lists it in the manifest, nothing if no graph changed
+     *
+     * @param sample      snapshot of the sample at the end of the window
+     * @param windowCount window that was closed
+     * @throws IOException
+     */
+    public void write(Sample sample, int windowCount) throws IOException {
+        boolean full = manifest == null || manifest.getSegments().size() >= segmentLimit;
+        IntObjectMap<?> graphs = full ? sample.getNodesByGraph() : sample.getChangedGraphs();
+        if (!full && graphs.isEmpty()) {
+            return;
+        }
+        SegmentManifest.Segment segment = this._getSegment(sample, graphs, windowCount, full);
+        new GraphWriter(sample).write(directory.resolve(segment.getFile()), graphs);
+
+        List<SegmentManifest.Segment> obsolete = Collections.emptyList();
+        if (full) {
+            obsolete = manifest != null ? manifest.getSegments() : this._readObsoleteSegments();
+            manifest = new SegmentManifest();
+        }
+        manifest.getSegments().add(segment);
+        this._writeManifest();
+
+        for (SegmentManifest.Segment obsoleteSegment : obsolete) {
+            if (!obsoleteSegment.getFile().equals(segment.getFile())) {
+                Files.deleteIfExists(directory.resolve(obsoleteSegment.getFile()));
+            }
+        }
+        log.log(Level.FINE, "Wrote segment {0} of {1} graphs", new Object[]{segment.getFile(),
+                segment.getGraphs().size()});
+    }
+
+    /**
+     * Describes the segment of the window
+     *
+     * @param sample      snapshot of the sample
+     * @param graphs      graphs written to the segment, graphs no longer sampled are removed
+     * @param windowCount window that was closed
+     * @param full        true if every sampled graph is written
+     * @return manifest entry of the segment
+     */
+    private SegmentManifest.Segment _getSegment(Sample sample, IntObjectMap<?> graphs, int windowCount,
+                                                boolean full) {
+        SymbolTable symbols = SymbolTable.getInstance();
+        SegmentManifest.Segment segment = new SegmentManifest.Segment();
+        segment.setWindow(windowCount);
+        segment.setFile(String.format("%s.%06d%s", baseName, windowCount, extension));
+        segment.setFull(full);
+        // same order as the XPs of the segment
+        for (int i = 0; i < graphs.capacity(); i++) {
+            if (graphs.valueAt(i) == null) {
+                continue;
+            }
+            String graphId = symbols.getSymbol(graphs.keyAt(i));
+            if (sample.getGraphNodes(graphs.keyAt(i)) != null) {
+                segment.getGraphs().add(graphId);
+            } else {
+                segment.getRemovedGraphs().add(graphId);
+            }
+        }
+        return segment;
+    }
+
+    /**
+     * Reads the segments of the manifest left by a previous run, replaced by the first full segment
+     *
+     * @return segments of the previous run
+     */
+    private List<SegmentManifest.Segment> _readObsoleteSegments() {
+        if (!Files.exists(manifestFile)) {
+            return Collections.emptyList();
+        }
+        try {
+            return mapper.readValue(manifestFile.toFile(), SegmentManifest.class).getSegments();
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Could not read the previous manifest " + manifestFile, e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Replaces the manifest, through a synced temporary file moved over it
+     *
+     * @throws IOException
+     */
+    private void _writeManifest() throws IOException {
+        Path temporaryFile = directory.resolve(manifestFile.getFileName() + TEMPORARY_SUFFIX);
+        try (FileOutputStream stream = new FileOutputStream(temporaryFile.toFile())) {
+            stream.write(mapper.writeValueAsBytes(manifest));
+            stream.getFD().sync();
+        }
+        Files.move(temporaryFile, manifestFile, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,233 @@
+package edu.tntech.graph.collection;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class IntObjectMapTest {
+
+    @Test
+    public void putGetAndReplace() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        assertNull(map.put(1, "a"));
+        assertNull(map.put(-7, "b"));
+        assertEquals("a", map.put(1, "c"));
+
+        assertEquals(2, map.size());
+        assertEquals("c", map.get(1));
+        assertEquals("b", map.get(-7));
+        assertNull(map.get(2));
+        assertTrue(map.containsKey(-7));
+        assertFalse(map.containsKey(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNullValues() {
+        new IntObjectMap<String>().put(1, null);
+    }
+
+    @Test
+    public void growsPastTheInitialCapacity() {
+        IntObjectMap<Integer> map = new IntObjectMap<>(4);
+        for (int i = 0; i < 1000; i++) {
+            map.put(i * 31, i);
+        }
+        assertEquals(1000, map.size());
+        assertTrue(map.capacity() >= 1000);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(Integer.valueOf(i), map.get(i * 31));
+        }
+    }
+
+    @Test
+    public void removeShiftsBackTheProbeChainAcrossTheEnd() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        int last = map.capacity() - 1;
+        int[] keys = _getKeysWithHomeSlot(map, last, 3);
+        for (int key : keys) {
+            map.put(key, "k" + key);
+        }
+        // the chain starts in the last slot and wraps to the first two
+        assertEquals(last, map.slotOf(keys[0]));
+        assertEquals(0, map.slotOf(keys[1]));
+        assertEquals(1, map.slotOf(keys[2]));
+
+        assertEquals("k" + keys[0], map.remove(keys[0]));
+        assertNull(map.get(keys[0]));
+        assertEquals("k" + keys[1], map.get(keys[1]));
+        assertEquals("k" + keys[2], map.get(keys[2]));
+        assertEquals(last, map.slotOf(keys[1]));
+        assertEquals(0, map.slotOf(keys[2]));
+        assertNull(map.valueAt(1));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    public void removeKeepsEntriesAtTheirHomeSlot() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        int[] chain = _getKeysWithHomeSlot(map, 3, 2);
+        int[] home = _getKeysWithHomeSlot(map, 5, 1);
+        map.put(chain[0], "a");
+        map.put(chain[1], "b");
+        map.put(home[0], "c");
+        // slots 3, 4 and 5 are taken, the key of slot 5 must not move into slot 4
+        map.remove(chain[0]);
+        assertEquals(3, map.slotOf(chain[1]));
+        assertEquals(5, map.slotOf(home[0]));
+        assertNull(map.valueAt(4));
+    }
+
+    @Test
+    public void randomRemovalsMatchAHashMap() {
+        Random random = new Random(42);
+        IntObjectMap<Integer> map = new IntObjectMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(512);
+            if (random.nextBoolean()) {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int key = 0; key < 512; key++) {
+            assertEquals(expected.get(key), map.get(key));
+            assertEquals(expected.containsKey(key), map.slotOf(key) >= 0);
+        }
+    }
+
+    @Test
+    public void iteratesOverTheRemainingEntriesAfterRemoval() {
+        IntObjectMap<Integer> map = new IntObjectMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i);
+        }
+        for (int i = 0; i < 100; i += 3) {
+            map.remove(i);
+        }
+        Set<Integer> keys = new HashSet<>();
+        for (int slot = 0; slot < map.capacity(); slot++) {
+            if (map.valueAt(slot) != null) {
+                assertEquals(map.valueAt(slot), Integer.valueOf(map.keyAt(slot)));
+                assertEquals(slot, map.slotOf(map.keyAt(slot)));
+                keys.add(map.keyAt(slot));
+            }
+        }
+        assertEquals(map.size(), keys.size());
+        assertEquals(map.size(), map.values().size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i % 3 != 0, keys.contains(i));
+        }
+    }
+
+    @Test
+    public void copyIsIndependentOfTheOriginal() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(1, "a");
+        map.put(2, "b");
+        IntObjectMap<String> copy = new IntObjectMap<>(map);
+        map.remove(1);
+        map.put(3, "c");
+
+        assertEquals(2, copy.size());
+        assertEquals("a", copy.get(1));
+        assertEquals("b", copy.get(2));
+        assertNull(copy.get(3));
+        copy.put(4, "d");
+        assertNull(map.get(4));
+    }
+
+    @Test
+    public void getRandomReturnsEveryValue() {
+        Random random = new Random(7);
+        IntObjectMap<Integer> map = new IntObjectMap<>();
+        assertNull(map.getRandom(random));
+        for (int i = 0; i < 10; i++) {
+            map.put(i * 1000, i);
+        }
+        int[] draws = new int[10];
+        for (int i = 0; i < 10000; i++) {
+            Integer value = map.getRandom(random);
+            assertNotNull(value);
+            draws[value]++;
+        }
+        for (int count : draws) {
+            assertTrue(count > 500);
+        }
+    }
+
+    @Test
+    public void getRandomFindsTheOnlyValueOfASparseMap() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, "v" + i);
+        }
+        for (int i = 0; i < 999; i++) {
+            map.remove(i);
+        }
+        assertSame(map.get(999), map.getRandom(new Random(1)));
+    }
+
+    @Test
+    public void getRandomIsUniformOverAClusterOfASparseMap() {
+        IntObjectMap<String> map = new IntObjectMap<>(10000);
+        // three keys in adjacent slots, a walk from a random empty slot would nearly always stop at the first
+        int[] cluster = _getKeysWithHomeSlot(map, 100, 3);
+        Map<String, Integer> draws = new HashMap<>();
+        for (int key : cluster) {
+            map.put(key, "k" + key);
+            draws.put("k" + key, 0);
+        }
+        Random random = new Random(3);
+        for (int i = 0; i < 3000; i++) {
+            draws.merge(map.getRandom(random), 1, Integer::sum);
+        }
+        for (int count : draws.values()) {
+            assertTrue(count > 800);
+        }
+    }
+
+    @Test
+    public void shrinksOnceMostlyEmpty() {
+        IntObjectMap<Integer> map = new IntObjectMap<>();
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, i);
+        }
+        int capacity = map.capacity();
+        for (int i = 0; i < 990; i++) {
+            map.remove(i);
+        }
+        assertTrue(map.capacity() < capacity / 8);
+        assertEquals(10, map.size());
+        for (int i = 990; i < 1000; i++) {
+            assertEquals(Integer.valueOf(i), map.get(i));
+        }
+    }
+
+    /**
+     * Finds keys hashed to the slot of a map of the same capacity, with the hash of the map
+     */
+    private static int[] _getKeysWithHomeSlot(IntObjectMap<String> map, int slot, int count) {
+        int[] keys = new int[count];
+        int found = 0;
+        for (int key = 0; found < count; key++) {
+            int hash = key * 0x9E3779B9;
+            if (((hash ^ (hash >>> 16)) & (map.capacity() - 1)) == slot) {
+                keys[found++] = key;
+            }
+        }
+        return keys;
+    }
+}
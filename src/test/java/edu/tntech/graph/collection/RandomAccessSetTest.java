@@ -0,0 +1,107 @@
+package edu.tntech.graph.collection;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RandomAccessSetTest {
+
+    @Test
+    public void removeMovesTheLastElementIntoTheGap() {
+        RandomAccessSet<String> set = new RandomAccessSet<>();
+        set.add(10, "a");
+        set.add(20, "b");
+        set.add(30, "c");
+        assertEquals("a", set.remove(10));
+        assertNull(set.remove(10));
+
+        assertEquals(2, set.size());
+        assertEquals("c", set.get(0));
+        assertEquals("b", set.get(1));
+        assertTrue(set.contains(30));
+        assertFalse(set.contains(10));
+        assertEquals("c", set.remove(30));
+        assertEquals("b", set.get(0));
+    }
+
+    @Test
+    public void addReplacesTheElementOfTheKey() {
+        RandomAccessSet<String> set = new RandomAccessSet<>();
+        assertNull(set.add(-1L << 40, "a"));
+        assertEquals("a", set.add(-1L << 40, "b"));
+        assertEquals(1, set.size());
+        assertEquals("b", set.get(0));
+    }
+
+    @Test
+    public void randomOperationsMatchAHashMap() {
+        RandomAccessSet<Long> set = new RandomAccessSet<>();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 20000; i++) {
+            // keys spread over graphs in the high bits, like the sample keys
+            long key = ((long) random.nextInt(8) << 32) | random.nextInt(300);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), set.remove(key));
+            } else {
+                assertEquals(expected.put(key, key), set.add(key, key));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        Set<Long> elements = new HashSet<>();
+        for (int i = 0; i < set.size(); i++) {
+            elements.add(set.get(i));
+        }
+        assertEquals(expected.keySet(), elements);
+        expected.keySet().forEach(key -> assertTrue(set.contains(key)));
+    }
+
+    @Test
+    public void drawsUniformlyAfterRemovals() {
+        RandomAccessSet<Integer> set = new RandomAccessSet<>();
+        for (int i = 0; i < 100; i++) {
+            set.add(i, i);
+        }
+        for (int i = 0; i < 100; i += 2) {
+            set.remove(i);
+        }
+
+        int draws = 100000;
+        Map<Integer, Integer> counts = new HashMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < draws; i++) {
+            counts.merge(set.getRandom(random), 1, Integer::sum);
+        }
+        assertEquals(50, counts.size());
+        for (Map.Entry<Integer, Integer> count : counts.entrySet()) {
+            assertEquals(1, count.getKey() % 2);
+            // expected 2000 draws each, the bound is well over 5 standard deviations
+            assertEquals(2000, count.getValue(), 300);
+        }
+    }
+
+    @Test
+    public void copyIsIndependentOfTheOriginal() {
+        RandomAccessSet<String> set = new RandomAccessSet<>();
+        set.add(1, "a");
+        set.add(2, "b");
+        RandomAccessSet<String> copy = new RandomAccessSet<>(set);
+        set.remove(1);
+        copy.add(3, "c");
+
+        assertEquals(1, set.size());
+        assertFalse(set.contains(3));
+        assertEquals(3, copy.size());
+        assertTrue(copy.contains(1));
+        assertNull(new RandomAccessSet<String>().getRandom(new Random()));
+    }
+}
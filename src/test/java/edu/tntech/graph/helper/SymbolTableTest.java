@@ -0,0 +1,95 @@
+package edu.tntech.graph.helper;
+
+import edu.tntech.graph.pojo.Edge;
+import edu.tntech.graph.pojo.Node;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class SymbolTableTest {
+
+    @Test
+    public void internsOnce() {
+        SymbolTable symbols = SymbolTable.getInstance();
+        int index = symbols.intern("symbol-table-test");
+        assertEquals(index, symbols.intern("symbol-table-test"));
+        assertEquals("symbol-table-test", symbols.getSymbol(index));
+        assertEquals(-1, symbols.intern(null));
+        assertNull(symbols.getSymbol(-1));
+    }
+
+    @Test
+    public void internsLabelsButNotComments() {
+        SymbolTable labels = SymbolTable.getLabels();
+        Node node = new Node();
+        node.setLabel("symbol-table-label");
+        int size = labels.size();
+        for (int i = 0; i < 1000; i++) {
+            node.setComment("2026-10-17T00:00:" + i);
+        }
+        assertEquals(size, labels.size());
+        assertEquals("2026-10-17T00:00:999", node.getComment());
+        assertEquals("symbol-table-label", node.getLabel());
+    }
+
+    @Test
+    public void keysEveryDistinctIdApart() {
+        String[] ids = {"0", "7", "007", "+7", "-7", "2147483647", "2147483648", "99999999999", "node-a", "node-b"};
+        Set<Integer> keys = new HashSet<>();
+        for (String id : ids) {
+            Edge edge = new Edge();
+            edge.setId(id);
+            edge.setSource(id);
+            assertEquals(edge.getIdNumber(), edge.getSourceId());
+            keys.add(edge.getIdNumber());
+        }
+        assertEquals(ids.length, keys.size());
+        assertFalse(keys.contains(-1));
+
+        Node node = new Node();
+        node.setId("2147483647");
+        assertEquals(Integer.MAX_VALUE, node.getIdNumber());
+        node.setId("node-a");
+        int key = node.getIdNumber();
+        node.setId("node-a");
+        assertEquals(key, node.getIdNumber());
+        node.setId(null);
+        assertEquals(-1, node.getIdNumber());
+    }
+
+    @Test
+    public void readsWhileOtherThreadsInternAndGrowTheTable() throws Exception {
+        SymbolTable symbols = SymbolTable.getInstance();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < 20000; i++) {
+                        String symbol = "concurrent-" + i;
+                        int index = symbols.intern(symbol);
+                        assertEquals(symbol, symbols.getSymbol(index));
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        for (int i = 0; i < 20000; i++) {
+            assertEquals("concurrent-" + i, symbols.getSymbol(symbols.intern("concurrent-" + i)));
+        }
+    }
+}
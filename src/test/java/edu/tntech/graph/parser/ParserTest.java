@@ -0,0 +1,83 @@
+package edu.tntech.graph.parser;
+
+import edu.tntech.graph.pojo.Edge;
+import edu.tntech.graph.pojo.GraphProperty;
+import edu.tntech.graph.pojo.Node;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ParserTest {
+
+    @Test
+    public void readsNodesAndEdgesWithTheTimeStampOfTheirGraph() throws Exception {
+        List<GraphProperty> items = this._parse("XP # 1 //1194700146\n"
+                + "v 1 \"provider\"\n"
+                + "v 2 \"Internal Medicine\"\n"
+                + "d 1 2 \"specialty\"\n"
+                + "XP # 2\n"
+                + "v 1 x\n"
+                + "u 1 1\n");
+
+        assertEquals(5, items.size());
+        Node provider = (Node) items.get(0);
+        assertEquals("1", provider.getGraphId());
+        assertEquals("1", provider.getId());
+        assertEquals("provider", provider.getLabel());
+        assertEquals("1194700146", provider.getTimeStamp());
+        assertEquals("Internal Medicine", items.get(1).getLabel());
+
+        Edge edge = (Edge) items.get(2);
+        assertEquals("1", edge.getSource());
+        assertEquals("2", edge.getTarget());
+        assertTrue(edge.isDirected());
+        assertEquals("specialty", edge.getLabel());
+        assertEquals("1194700146", edge.getTimeStamp());
+
+        assertEquals("2", items.get(3).getGraphId());
+        assertNull(items.get(3).getTimeStamp());
+        Edge loop = (Edge) items.get(4);
+        assertFalse(loop.isDirected());
+        assertNull(loop.getLabel());
+    }
+
+    @Test
+    public void skipsNegativeGraphs() throws Exception {
+        List<GraphProperty> items = this._parse("XP # 1\n"
+                + "v 1 a\n"
+                + "XN # 1\n"
+                + "v 1 negative\n"
+                + "v 2 negative\n"
+                + "d 1 2 negative\n"
+                + "XP # 2\n"
+                + "v 1 b\n");
+
+        assertEquals(2, items.size());
+        assertEquals("a", items.get(0).getLabel());
+        assertEquals("1", items.get(0).getGraphId());
+        assertEquals("b", items.get(1).getLabel());
+        assertEquals("2", items.get(1).getGraphId());
+    }
+
+    private List<GraphProperty> _parse(String graph) throws IOException, InterruptedException {
+        Path file = Files.createTempFile("parser-test", ".g");
+        try {
+            Files.write(file, graph.getBytes(StandardCharsets.UTF_8));
+            List<GraphProperty> items = new ArrayList<>();
+            assertEquals(new Parser(items::add).parse(file), items.size());
+            return items;
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
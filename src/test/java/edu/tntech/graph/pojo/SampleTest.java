@@ -0,0 +1,131 @@
+package edu.tntech.graph.pojo;
+
+import edu.tntech.graph.helper.SymbolTable;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SampleTest {
+
+    @Test
+    public void snapshotsShareTheGraphsThatDidNotChange() {
+        Sample sample = new Sample();
+        _addNodes(sample, "sample-changed", 3);
+        _addNodes(sample, "sample-unchanged", 2);
+        int changed = SymbolTable.getInstance().intern("sample-changed");
+        int unchanged = SymbolTable.getInstance().intern("sample-unchanged");
+
+        Sample snapshot = sample.snapshot();
+        assertSame(sample.getGraphNodes(unchanged), snapshot.getGraphNodes(unchanged));
+        assertSame(sample.getGraphNodes(changed), snapshot.getGraphNodes(changed));
+
+        // the sample copies the maps of a graph before changing them, the snapshot keeps its content
+        sample.removeNode(changed, 0);
+        sample.addNode(_createNode("sample-changed", 3), 0.5);
+        assertNotSame(sample.getGraphNodes(changed), snapshot.getGraphNodes(changed));
+        assertSame(sample.getGraphNodes(unchanged), snapshot.getGraphNodes(unchanged));
+        assertEquals(3, snapshot.getGraphNodes(changed).size());
+        assertTrue(snapshot.sampleGraphContainsNode(changed, 0));
+        assertEquals(5, snapshot.getNodeCount());
+        assertTrue(Double.isNaN(snapshot.getPriority(changed, 3)));
+        assertEquals(0.5, sample.getPriority(changed, 3), 0);
+
+        sample.removeGraph(unchanged);
+        assertEquals(2, snapshot.getGraphNodes(unchanged).size());
+        assertEquals(3, sample.getNodeCount());
+        assertEquals(2, sample.getChangedGraphs().size());
+        assertEquals(2, snapshot.getChangedGraphs().size());
+    }
+
+    @Test
+    public void drawsFromASnapshot() {
+        Sample sample = new Sample();
+        _addNodes(sample, "sample-draw", 4);
+        Sample snapshot = sample.snapshot();
+        sample.reset();
+
+        Random random = new Random(1);
+        for (int i = 0; i < 10; i++) {
+            Node node = snapshot.getRandomNode(random);
+            assertNotNull(node);
+            assertEquals("sample-draw", node.getGraphId());
+        }
+        assertEquals(4, snapshot.getNodeCount());
+        assertEquals(0, sample.getNodeCount());
+    }
+
+    @Test
+    public void drawsNodesUniformlyOverTheGraphs() {
+        Sample sample = new Sample();
+        _addNodes(sample, "sample-small", 1);
+        _addNodes(sample, "sample-large", 9);
+
+        int small = 0;
+        Random random = new Random(2);
+        for (int i = 0; i < 10000; i++) {
+            if ("sample-small".equals(sample.getRandomNode(random).getGraphId())) {
+                small++;
+            }
+        }
+        // one node in ten, not one graph in two
+        assertEquals(1000, small, 200);
+    }
+
+    @Test
+    public void removesANodeWithItsIncidentEdgesOnly() {
+        Sample sample = new Sample();
+        Node[] nodes = _addNodes(sample, "sample-incident", 4);
+        int graphIndex = SymbolTable.getInstance().intern("sample-incident");
+        sample.addEdge(_createEdge(nodes[0], nodes[1], 1));
+        sample.addEdge(_createEdge(nodes[1], nodes[2], 2));
+        sample.addEdge(_createEdge(nodes[2], nodes[3], 3));
+        sample.addEdge(_createEdge(nodes[1], nodes[1], 4));
+        assertEquals(3, sample.getIncidentEdges(graphIndex, 1).size());
+
+        // an edge sampled again with the same id replaces the previous one in the index
+        sample.addEdge(_createEdge(nodes[0], nodes[3], 1));
+        assertEquals(2, sample.getIncidentEdges(graphIndex, 1).size());
+        assertEquals(2, sample.getIncidentEdges(graphIndex, 3).size());
+
+        sample.removeNodeWithEdges(graphIndex, 1);
+        assertFalse(sample.sampleGraphContainsNode(graphIndex, 1));
+        assertEquals(2, sample.getEdgeCount());
+        assertTrue(sample.getIncidentEdges(graphIndex, 1).isEmpty());
+        assertEquals(1, sample.getIncidentEdges(graphIndex, 2).size());
+        assertEquals(3, sample.getIncidentEdges(graphIndex, 2).get(0).getIdNumber());
+        assertEquals(2, sample.getIncidentEdges(graphIndex, 3).size());
+        assertEquals(3, sample.getNodeCount());
+    }
+
+    private static Node[] _addNodes(Sample sample, String graphId, int nodeCount) {
+        Node[] nodes = new Node[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i] = _createNode(graphId, i);
+            sample.addNode(nodes[i]);
+        }
+        return nodes;
+    }
+
+    private static Node _createNode(String graphId, int id) {
+        Node node = new Node();
+        node.setGraphId(graphId);
+        node.setId(String.valueOf(id));
+        return node;
+    }
+
+    private static Edge _createEdge(Node source, Node target, int id) {
+        Edge edge = new Edge();
+        edge.setGraphId(source.getGraphId());
+        edge.setId(String.valueOf(id));
+        edge.setSource(source.getId());
+        edge.setTarget(target.getId());
+        return edge;
+    }
+}
@@ -0,0 +1,104 @@
+package edu.tntech.graph.sampler;
+
+import edu.tntech.graph.collection.IntObjectMap;
+import edu.tntech.graph.pojo.Edge;
+import edu.tntech.graph.pojo.Node;
+import edu.tntech.graph.pojo.Sample;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PrioritySamplingStrategyTest {
+
+    private static final int GRAPHS = 10;
+    private static final int NODES = 30;
+    private static final int SAMPLE_SIZE = 20;
+
+    @Test
+    public void keysDependOnTheIdsAndTheSaltOnly() {
+        long salt = PrioritySamplingStrategy.getSalt(42);
+        Node node = _createNode("priority-key", "7");
+        double key = PrioritySamplingStrategy.getPriority(salt, node);
+        assertTrue(key >= 0 && key < 1);
+        assertEquals(key, PrioritySamplingStrategy.getPriority(salt, _createNode("priority-key", "7")), 0);
+        assertEquals(key, PrioritySamplingStrategy.getPriority(PrioritySamplingStrategy.getSalt(42), node), 0);
+        assertNotEquals(key, PrioritySamplingStrategy.getPriority(PrioritySamplingStrategy.getSalt(43), node), 0);
+        assertNotEquals(key, PrioritySamplingStrategy.getPriority(salt, _createNode("priority-key", "8")), 0);
+    }
+
+    @Test
+    public void mergesWorkerSamplesIntoTheSampleOfTheWholeStream() {
+        long salt = PrioritySamplingStrategy.getSalt(42);
+        Sampler whole = _createSampler(salt, 1);
+        Sampler even = _createSampler(salt, 2);
+        Sampler odd = _createSampler(salt, 3);
+        List<Node> nodes = new ArrayList<>();
+        for (int graph = 0; graph < GRAPHS; graph++) {
+            Node[] path = new Node[NODES];
+            for (int i = 0; i < NODES; i++) {
+                path[i] = _createNode("priority-graph-" + graph, String.valueOf(i));
+                nodes.add(path[i]);
+            }
+            for (int i = 1; i < NODES; i++) {
+                Edge edge = _createEdge(path[i - 1], path[i]);
+                whole.createSampleGraphFromStream(edge, 0);
+                (graph % 2 == 0 ? even : odd).createSampleGraphFromStream(edge, 0);
+            }
+        }
+
+        // bottom-k of every node of the stream
+        nodes.sort(Comparator.comparingDouble(node -> PrioritySamplingStrategy.getPriority(salt, node)));
+        Set<String> expected = new HashSet<>();
+        nodes.subList(0, SAMPLE_SIZE).forEach(node -> expected.add(_getKey(node)));
+        assertEquals(expected, _getNodes(whole.getSample()));
+
+        Sample merged = new SampleMerger(new Random(5)).mergeByPriority(
+                Arrays.asList(even.getSample().snapshot(), odd.getSample().snapshot()), SAMPLE_SIZE);
+        assertEquals(expected, _getNodes(merged));
+        assertEquals(whole.getSample().getEdgeCount(), merged.getEdgeCount());
+    }
+
+    private static Sampler _createSampler(long salt, long seed) {
+        return Sampler.create(SAMPLE_SIZE, new PrioritySamplingStrategy(salt), new Random(seed));
+    }
+
+    private static Node _createNode(String graphId, String id) {
+        Node node = new Node();
+        node.setGraphId(graphId);
+        node.setId(id);
+        return node;
+    }
+
+    private static Edge _createEdge(Node source, Node target) {
+        Edge edge = new Edge();
+        edge.setGraphId(source.getGraphId());
+        edge.setId(source.getId() + "-" + target.getId());
+        edge.setSource(source.getId());
+        edge.setTarget(target.getId());
+        edge.setSourceVertex(source);
+        edge.setTargetVertex(target);
+        return edge;
+    }
+
+    private static String _getKey(Node node) {
+        return node.getGraphId() + "/" + node.getId();
+    }
+
+    private static Set<String> _getNodes(Sample sample) {
+        Set<String> nodes = new HashSet<>();
+        for (IntObjectMap<Node> graphNodes : sample.getNodesByGraph().values()) {
+            graphNodes.values().forEach(node -> nodes.add(_getKey(node)));
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,66 @@
+package edu.tntech.graph.sampler;
+
+import edu.tntech.graph.collection.IntObjectMap;
+import edu.tntech.graph.helper.SymbolTable;
+import edu.tntech.graph.pojo.Node;
+import edu.tntech.graph.pojo.Sample;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SampleMergerTest {
+
+    @Test
+    public void mergesTheQuotaOfEveryPartition() {
+        List<Sample> samples = Arrays.asList(_createSample("merger-a", 100), _createSample("merger-b", 100));
+        Sample merged = new SampleMerger(new Random(1)).merge(samples, new long[]{3, 1}, 40);
+
+        assertEquals(40, merged.getNodeCount());
+        assertEquals(30, _getNodes(merged, "merger-a").size());
+        assertEquals(10, _getNodes(merged, "merger-b").size());
+    }
+
+    @Test
+    public void mergesTheSameNodesWhileThePartitionsDoNotChange() {
+        SampleMerger merger = new SampleMerger(new Random(1));
+        Sample partition = _createSample("merger-stable", 100);
+        Set<String> first = _getNodes(merger.merge(Arrays.asList(partition), new long[]{1}, 20), "merger-stable");
+        Set<String> second = _getNodes(merger.merge(Arrays.asList(partition), new long[]{1}, 20), "merger-stable");
+        assertEquals(first, second);
+
+        // a merged node leaving the partition sample is replaced, the other merged nodes stay
+        String removed = first.iterator().next();
+        partition.removeNode(SymbolTable.getInstance().intern("merger-stable"), Integer.parseInt(removed));
+        Set<String> third = _getNodes(merger.merge(Arrays.asList(partition), new long[]{1}, 20), "merger-stable");
+        first.remove(removed);
+        assertEquals(20, third.size());
+        assertTrue(third.containsAll(first));
+    }
+
+    private static Sample _createSample(String graphId, int nodeCount) {
+        Sample sample = new Sample();
+        for (int i = 0; i < nodeCount; i++) {
+            Node node = new Node();
+            node.setGraphId(graphId);
+            node.setId(String.valueOf(i));
+            sample.addNode(node);
+        }
+        return sample;
+    }
+
+    private static Set<String> _getNodes(Sample sample, String graphId) {
+        Set<String> nodes = new HashSet<>();
+        IntObjectMap<Node> graphNodes = sample.getGraphNodes(SymbolTable.getInstance().intern(graphId));
+        if (graphNodes != null) {
+            graphNodes.values().forEach(node -> nodes.add(node.getId()));
+        }
+        return nodes;
+    }
+}
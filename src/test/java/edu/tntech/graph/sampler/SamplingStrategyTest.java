@@ -0,0 +1,233 @@
+package edu.tntech.graph.sampler;
+
+import edu.tntech.graph.collection.IntObjectMap;
+import edu.tntech.graph.helper.ConfigReader;
+import edu.tntech.graph.pojo.Edge;
+import edu.tntech.graph.pojo.Node;
+import edu.tntech.graph.pojo.Sample;
+import org.junit.Test;
+
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SamplingStrategyTest {
+
+    private static final int GRAPHS = 5;
+    private static final int NODES = 40;
+    private static final int EDGES = 3000;
+    private static final int SAMPLE_SIZE = 30;
+    private static final int RUNS = 200;
+
+    @Test
+    public void createsTheConfiguredStrategy() {
+        assertTrue(_create(null) instanceof NodeReplacementStrategy);
+        assertTrue(_create("edge-replacement") instanceof EdgeReplacementStrategy);
+        assertTrue(_create("reservoir-skip") instanceof ReservoirSkipStrategy);
+        assertTrue(_create("stratified") instanceof StratifiedStrategy);
+    }
+
+    @Test
+    public void nodeReplacementKeepsTheSampleWithinItsSize() {
+        _assertSampleWithinSize(new NodeReplacementStrategy(), 1);
+    }
+
+    @Test
+    public void edgeReplacementKeepsTheSampleWithinItsSize() {
+        _assertSampleWithinSize(new EdgeReplacementStrategy(), 2);
+    }
+
+    @Test
+    public void reservoirSkipKeepsTheSampleWithinItsSize() {
+        _assertSampleWithinSize(new ReservoirSkipStrategy(), 3);
+    }
+
+    @Test
+    public void reservoirSkipLooksAtFewEdgesAndKeepsEarlyAndLateOnes() {
+        int early = 0;
+        int late = 0;
+        long lookedAt = 0;
+        for (long seed = 0; seed < RUNS; seed++) {
+            Sampler sampler = Sampler.create(SAMPLE_SIZE, new ReservoirSkipStrategy(), new Random(seed));
+            lookedAt += _stream(sampler, new Random(-seed), "reservoir-" + seed);
+            for (IntObjectMap<Edge> graphEdges : sampler.getSample().getEdgesByGraph().values()) {
+                for (Edge edge : graphEdges.values()) {
+                    if (edge.getIdNumber() < EDGES / 2) {
+                        early++;
+                    } else {
+                        late++;
+                    }
+                }
+            }
+        }
+        // about k ln(n / k) edges of the stream reach the strategy, with a reservoir of k edges
+        assertTrue(lookedAt / RUNS < EDGES / 10);
+        // both halves of the stream are kept at about the same rate
+        assertTrue(early > late * 3 / 4 && late > early * 3 / 4);
+    }
+
+    @Test
+    public void reservoirSkipIsReproducibleWithASeed() {
+        Sampler first = Sampler.create(SAMPLE_SIZE, new ReservoirSkipStrategy(), new Random(5));
+        Sampler second = Sampler.create(SAMPLE_SIZE, new ReservoirSkipStrategy(), new Random(5));
+        assertEquals(_stream(first, new Random(6), "reservoir-seeded"),
+                _stream(second, new Random(6), "reservoir-seeded"));
+        assertEquals(first.getSample().getSampleEdges().toString(), second.getSample().getSampleEdges().toString());
+    }
+
+    /**
+     * Streams random edges through the sampler, skipping the edges its strategy leaves out
+     *
+     * @param sampler sampler
+     * @param random  source of the stream
+     * @param prefix  prefix of the graph ids
+     * @return number of edges handed to the strategy
+     */
+    private static long _stream(Sampler sampler, Random random, String prefix) {
+        Node[][] nodes = _createNodes(prefix);
+        long lookedAt = 0;
+        for (int i = 0; i < EDGES; i++) {
+            Node[] graph = nodes[random.nextInt(GRAPHS)];
+            Edge edge = _createEdge(graph[random.nextInt(NODES)], graph[random.nextInt(NODES)], i);
+            if (!sampler.skipEdge()) {
+                sampler.createSampleGraphFromStream(edge, 0);
+                lookedAt++;
+            }
+        }
+        return lookedAt;
+    }
+
+    @Test
+    public void stratifiedKeepsEveryGraphWithinItsFixedQuota() {
+        int quota = SAMPLE_SIZE / GRAPHS;
+        Sampler sampler = Sampler.create(SAMPLE_SIZE, new StratifiedStrategy(String.valueOf(quota)), new Random(7));
+        int[] nodeCounts = _streamBurst(sampler, "stratified-fixed");
+        for (int graph = 0; graph < GRAPHS; graph++) {
+            assertTrue(nodeCounts[graph] <= quota);
+            // the graphs outside the burst keep their place
+            assertTrue(nodeCounts[graph] >= 2);
+        }
+        _assertEdgesBetweenSampledNodes(sampler.getSample());
+    }
+
+    @Test
+    public void stratifiedStaysWithinTheSampleSizeWhenTheQuotasExceedIt() {
+        Sampler sampler = Sampler.create(SAMPLE_SIZE, new StratifiedStrategy("8"), new Random(7));
+        int[] nodeCounts = _streamBurst(sampler, "stratified-overlapping");
+        for (int graph = 0; graph < GRAPHS; graph++) {
+            assertTrue(nodeCounts[graph] <= 8);
+        }
+    }
+
+    @Test
+    public void stratifiedSharesTheSampleInProportionToTheStream() {
+        Sampler sampler = Sampler.create(SAMPLE_SIZE, new StratifiedStrategy("proportional"), new Random(8));
+        int[] nodeCounts = _streamBurst(sampler, "stratified-proportional");
+        // the burst graph has 60% of the stream, the others 10% each
+        assertTrue(nodeCounts[0] >= SAMPLE_SIZE / 2 - 2 && nodeCounts[0] <= SAMPLE_SIZE * 6 / 10 + 2);
+        for (int graph = 1; graph < GRAPHS; graph++) {
+            assertTrue(nodeCounts[graph] >= 2 && nodeCounts[graph] <= SAMPLE_SIZE / 10 + 2);
+        }
+        _assertEdgesBetweenSampledNodes(sampler.getSample());
+    }
+
+    /**
+     * Streams random edges, most of them from the first graph, checking the sample stays within its size
+     *
+     * @param sampler sampler
+     * @param prefix  prefix of the graph ids
+     * @return sampled node count of every graph
+     */
+    private static int[] _streamBurst(Sampler sampler, String prefix) {
+        Node[][] nodes = _createNodes(prefix);
+        Random random = new Random(9);
+        for (int i = 0; i < EDGES; i++) {
+            int draw = random.nextInt(10);
+            Node[] graph = nodes[draw < 6 ? 0 : draw - 5];
+            sampler.createSampleGraphFromStream(
+                    _createEdge(graph[random.nextInt(NODES)], graph[random.nextInt(NODES)], i), 0);
+            assertTrue(sampler.getTotalSampledNodeCount() <= sampler.getSampleSize());
+        }
+        int[] nodeCounts = new int[GRAPHS];
+        for (int graph = 0; graph < GRAPHS; graph++) {
+            IntObjectMap<Node> graphNodes = sampler.getSample().getGraphNodes(nodes[graph][0].getGraphIndex());
+            nodeCounts[graph] = graphNodes == null ? 0 : graphNodes.size();
+        }
+        return nodeCounts;
+    }
+
+    /**
+     * Streams random edges and checks the sample after every edge: within the sample size, and edges only
+     * between sampled nodes
+     *
+     * @param strategy strategy to check
+     * @param seed     seed of the stream and the sampler
+     */
+    private static void _assertSampleWithinSize(SamplingStrategy strategy, long seed) {
+        Sampler sampler = Sampler.create(SAMPLE_SIZE, strategy, new Random(seed));
+        Random random = new Random(seed);
+        Node[][] nodes = _createNodes("strategy-" + seed);
+        int replacements = 0;
+        for (int i = 0; i < EDGES; i++) {
+            Node[] graph = nodes[random.nextInt(GRAPHS)];
+            Edge edge = _createEdge(graph[random.nextInt(NODES)], graph[random.nextInt(NODES)], i);
+            boolean full = sampler.getTotalSampledNodeCount() >= SAMPLE_SIZE;
+            if (!sampler.skipEdge()) {
+                sampler.createSampleGraphFromStream(edge, 0);
+            }
+            // the last edge of the fill phase may bring two new nodes
+            assertTrue(sampler.getTotalSampledNodeCount() <= SAMPLE_SIZE + 1);
+            if (full && sampler.getSample().sampleGraphContainsEdge(edge)) {
+                replacements++;
+            }
+        }
+        assertTrue(replacements > 0);
+        _assertEdgesBetweenSampledNodes(sampler.getSample());
+    }
+
+    private static void _assertEdgesBetweenSampledNodes(Sample sample) {
+        int edgeCount = 0;
+        for (IntObjectMap<Edge> graphEdges : sample.getEdgesByGraph().values()) {
+            for (Edge edge : graphEdges.values()) {
+                assertTrue(sample.sampleGraphContainsNode(edge.getGraphIndex(), edge.getSourceId()));
+                assertTrue(sample.sampleGraphContainsNode(edge.getGraphIndex(), edge.getTargetId()));
+                edgeCount++;
+            }
+        }
+        assertEquals(edgeCount, sample.getEdgeCount());
+    }
+
+    private static Node[][] _createNodes(String prefix) {
+        Node[][] nodes = new Node[GRAPHS][NODES];
+        for (int graph = 0; graph < GRAPHS; graph++) {
+            for (int i = 0; i < NODES; i++) {
+                Node node = new Node();
+                node.setGraphId(prefix + "-" + graph);
+                node.setId(String.valueOf(i));
+                nodes[graph][i] = node;
+            }
+        }
+        return nodes;
+    }
+
+    private static Edge _createEdge(Node source, Node target, int id) {
+        Edge edge = new Edge();
+        edge.setGraphId(source.getGraphId());
+        edge.setId(String.valueOf(id));
+        edge.setSource(source.getId());
+        edge.setTarget(target.getId());
+        edge.setSourceVertex(source);
+        edge.setTargetVertex(target);
+        return edge;
+    }
+
+    private static SamplingStrategy _create(String name) {
+        Properties properties = new Properties();
+        if (name != null) {
+            properties.setProperty(SamplingStrategy.STRATEGY_PROPERTY, name);
+        }
+        return SamplingStrategy.create(new ConfigReader(properties));
+    }
+}
@@ -0,0 +1,83 @@
+package edu.tntech.graph.stream;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ExpiryWheelTest {
+
+    @Test
+    public void expiresItemsOlderThanTheHorizon() {
+        List<String> expired = new ArrayList<>();
+        ExpiryWheel<String> wheel = new ExpiryWheel<>(2, expired::add);
+        wheel.add("a", 0);
+        wheel.add("b", 1);
+        wheel.add("c", 1);
+
+        wheel.expire(2);
+        assertTrue(expired.isEmpty());
+        wheel.expire(3);
+        assertEquals(Collections.singletonList("a"), expired);
+        wheel.expire(4);
+        assertEquals(Arrays.asList("a", "b", "c"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void keepsLateItemsInTheOldestWindow() {
+        List<String> expired = new ArrayList<>();
+        ExpiryWheel<String> wheel = new ExpiryWheel<>(1, expired::add);
+        wheel.expire(5);
+        wheel.add("late", 2);
+        assertEquals(1, wheel.size());
+        wheel.expire(5);
+        assertTrue(expired.isEmpty());
+        wheel.expire(6);
+        assertEquals(Collections.singletonList("late"), expired);
+    }
+
+    @Test
+    public void expiresBeforeAddingPastTheRing() {
+        List<String> expired = new ArrayList<>();
+        ExpiryWheel<String> wheel = new ExpiryWheel<>(1, expired::add);
+        wheel.add("a", 0);
+        wheel.add("b", 1);
+        // the ring holds 3 windows: window 3 would land in the bucket of window 0 without expiring it first
+        wheel.add("c", 3);
+        assertEquals(Collections.singletonList("a"), expired);
+        assertEquals(2, wheel.size());
+
+        wheel.expire(3);
+        assertEquals(Arrays.asList("a", "b"), expired);
+        wheel.expire(5);
+        assertEquals(Arrays.asList("a", "b", "c"), expired);
+    }
+
+    @Test
+    public void skipsManyWindowsWithoutLosingItems() {
+        List<Integer> expired = new ArrayList<>();
+        ExpiryWheel<Integer> wheel = new ExpiryWheel<>(3, expired::add);
+        for (int timeStep = 0; timeStep < 5; timeStep++) {
+            wheel.add(timeStep, timeStep);
+        }
+        wheel.add(1000000, 1000000);
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), expired);
+        assertEquals(1, wheel.size());
+
+        // the item of the far window is still kept for the horizon, in a bucket that was reused
+        wheel.add(1000001, 1000001);
+        wheel.expire(1000003);
+        assertEquals(5, expired.size());
+        wheel.expire(1000004);
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 1000000), expired);
+        wheel.expire(Integer.MAX_VALUE - 10);
+        assertEquals(7, expired.size());
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,87 @@
+package edu.tntech.graph.stream;
+
+import edu.tntech.graph.pojo.Edge;
+import edu.tntech.graph.pojo.GraphProperty;
+import edu.tntech.graph.pojo.Node;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JsonStreamItemDecoderTest {
+
+    private static final String[] ITEMS = {
+            "{\"node\":{\"id\":\"3\",\"timeStamp\":\"1194700146\",\"attributes\":{\"id\":\"3\","
+                    + "\"graph_id\":\"decoder-1\",\"label\":\"provider\",\"comment\":\"1194700146\"}}}",
+            "{\"node\":{\"attributes\":{\"label\":\"provider\",\"graph_id\":\"decoder-1\",\"id\":\"node-a\","
+                    + "\"zip\":\"38505\"},\"id\":\"ignored\"}}",
+            "{\"edge\":{\"id\":\"7\",\"source\":\"1\",\"target\":\"2\",\"directed\":true,\"timeStamp\":\"12\","
+                    + "\"attributes\":{\"id\":\"7\",\"graph_id\":\"decoder-2\",\"source\":\"1\",\"target\":\"2\","
+                    + "\"label\":\"prescribe\"}}}",
+            "{\"edge\":{\"directed\":false,\"attributes\":{\"id\":\"8\",\"graph_id\":\"decoder-2\",\"source\":\"2\","
+                    + "\"target\":\"2147483648\",\"label\":\"prescribe\",\"weight\":\"0.5\"}}}"
+    };
+
+    @Test
+    public void decodesLikeTheTreeDecoder() throws IOException {
+        StreamItemDecoder streaming = StreamItemDecoder.create(StreamItemDecoder.STREAMING_DECODER);
+        StreamItemDecoder tree = StreamItemDecoder.create(StreamItemDecoder.TREE_DECODER);
+        for (String item : ITEMS) {
+            byte[] data = item.getBytes(StandardCharsets.UTF_8);
+            _assertSameItem(tree.decode(data, 0, data.length), streaming.decode(data, 0, data.length));
+        }
+    }
+
+    @Test
+    public void decodesAnItemInTheMiddleOfABuffer() throws IOException {
+        byte[] item = ITEMS[2].getBytes(StandardCharsets.UTF_8);
+        byte[] data = new byte[item.length + 8];
+        System.arraycopy(item, 0, data, 5, item.length);
+        data[4] = '{';
+
+        Edge edge = (Edge) new JsonStreamItemDecoder().decode(data, 5, item.length);
+        assertEquals("7", edge.getId());
+        assertEquals(1, edge.getSourceId());
+        assertEquals(2, edge.getTargetId());
+        assertTrue(edge.isDirected());
+        assertEquals("decoder-2", edge.getGraphId());
+    }
+
+    @Test
+    public void skipsNestedAttributesAndEmptyEnvelopes() throws IOException {
+        JsonStreamItemDecoder decoder = new JsonStreamItemDecoder();
+        byte[] empty = "{}".getBytes(StandardCharsets.UTF_8);
+        assertNull(decoder.decode(empty, 0, empty.length));
+
+        byte[] nested = ("{\"node\":{\"attributes\":{\"position\":{\"x\":1},\"tags\":[\"a\"],\"id\":\"4\","
+                + "\"graph_id\":\"decoder-3\"}}}").getBytes(StandardCharsets.UTF_8);
+        Node node = (Node) decoder.decode(nested, 0, nested.length);
+        assertEquals(4, node.getIdNumber());
+        assertEquals("decoder-3", node.getGraphId());
+        assertEquals(0, node.getExtraAttributeCount());
+    }
+
+    private static void _assertSameItem(GraphProperty expected, GraphProperty actual) {
+        assertEquals(expected.getClass(), actual.getClass());
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getIdNumber(), actual.getIdNumber());
+        assertEquals(expected.getGraphIndex(), actual.getGraphIndex());
+        assertEquals(expected.getLabelIndex(), actual.getLabelIndex());
+        assertEquals(expected.getComment(), actual.getComment());
+        assertEquals(expected.getTimeStamp(), actual.getTimeStamp());
+        assertEquals(expected.getAttributes(), actual.getAttributes());
+        if (expected instanceof Edge) {
+            Edge expectedEdge = (Edge) expected;
+            Edge actualEdge = (Edge) actual;
+            assertEquals(expectedEdge.getSource(), actualEdge.getSource());
+            assertEquals(expectedEdge.getTarget(), actualEdge.getTarget());
+            assertEquals(expectedEdge.getSourceId(), actualEdge.getSourceId());
+            assertEquals(expectedEdge.getTargetId(), actualEdge.getTargetId());
+            assertEquals(expectedEdge.isDirected(), actualEdge.isDirected());
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package edu.tntech.graph.stream;
+
+import edu.tntech.graph.enumerator.EvictionPolicy;
+import edu.tntech.graph.helper.SymbolTable;
+import edu.tntech.graph.pojo.Edge;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PendingEdgeStoreTest {
+
+    @Test
+    public void resolvesAnEdgeOnceBothNodesArrived() {
+        PendingEdgeStore store = new PendingEdgeStore();
+        Edge first = _createEdge("pending-a", 1, 1, 2);
+        Edge second = _createEdge("pending-a", 2, 2, 3);
+        store.add(first, true, true);
+        store.add(second, true, false);
+
+        List<Edge> resolved = new ArrayList<>();
+        store.resolve(first.getGraphIndex(), 2, resolved);
+        assertEquals(Collections.singletonList(second), resolved);
+        assertEquals(1, store.size());
+
+        resolved.clear();
+        store.resolve(first.getGraphIndex(), 1, resolved);
+        assertEquals(Collections.singletonList(first), resolved);
+        assertTrue(store.isEmpty());
+        assertEquals(0, store.getBytes());
+    }
+
+    @Test
+    public void unlinksAnEdgeFromTheMiddleOfTheNodeList() {
+        PendingEdgeStore store = new PendingEdgeStore();
+        PendingEdgeStore.Entry[] entries = new PendingEdgeStore.Entry[4];
+        int graphIndex = SymbolTable.getInstance().intern("pending-b");
+        for (int i = 0; i < 3; i++) {
+            entries[i] = store.add(_createEdge("pending-b", i, 5, 10 + i), true, true);
+        }
+        // a loop is linked once into the list of its node
+        entries[3] = store.add(_createEdge("pending-b", 3, 5, 5), true, true);
+
+        assertTrue(store.remove(entries[1]));
+        assertTrue(entries[1].isRemoved());
+        assertFalse(store.remove(entries[1]));
+        assertEquals(3, store.size());
+
+        assertEquals(3, store.remove(graphIndex, 5));
+        assertTrue(entries[0].isRemoved() && entries[2].isRemoved() && entries[3].isRemoved());
+        assertTrue(store.isEmpty());
+
+        // the lists of the other endpoints were unlinked too
+        assertEquals(0, store.remove(graphIndex, 10));
+        List<Edge> resolved = new ArrayList<>();
+        store.resolve(graphIndex, 12, resolved);
+        assertTrue(resolved.isEmpty());
+    }
+
+    @Test
+    public void evictsTheOldestEdgesBeyondTheCountBound() {
+        PendingEdgeStore store = new PendingEdgeStore(2, Long.MAX_VALUE, EvictionPolicy.OLDEST);
+        PendingEdgeStore.Entry first = store.add(_createEdge("pending-c", 1, 1, 2), true, true);
+        PendingEdgeStore.Entry second = store.add(_createEdge("pending-d", 2, 1, 2), true, true);
+        PendingEdgeStore.Entry third = store.add(_createEdge("pending-c", 3, 3, 4), true, true);
+
+        assertTrue(first.isRemoved());
+        assertFalse(second.isRemoved() || third.isRemoved());
+        assertEquals(2, store.size());
+        assertEquals(1, store.getEvictedCount());
+    }
+
+    @Test
+    public void releasesTheEdgesThatLeftTheStore() {
+        PendingEdgeStore store = new PendingEdgeStore(1, Long.MAX_VALUE, EvictionPolicy.OLDEST);
+        Edge resolvedEdge = _createEdge("pending-i", 1, 1, 2);
+        PendingEdgeStore.Entry evicted = store.add(resolvedEdge, true, false);
+        PendingEdgeStore.Entry kept = store.add(_createEdge("pending-i", 2, 3, 4), true, true);
+
+        // the entry may still be held by the expiry, not its edge
+        assertTrue(evicted.isRemoved());
+        assertNull(evicted.getEdge());
+        assertEquals(1, store.size());
+        assertEquals(1, store.getEvictedCount());
+
+        List<Edge> resolved = new ArrayList<>();
+        store.resolve(resolvedEdge.getGraphIndex(), 1, resolved);
+        assertTrue(resolved.isEmpty());
+        store.resolve(resolvedEdge.getGraphIndex(), 3, resolved);
+        store.resolve(resolvedEdge.getGraphIndex(), 4, resolved);
+        assertEquals(1, resolved.size());
+        assertNull(kept.getEdge());
+        assertTrue(store.isEmpty());
+        assertEquals(0, store.getBytes());
+        assertFalse(store.remove(evicted));
+    }
+
+    @Test
+    public void evictsTheOldestEdgesBeyondTheByteBound() {
+        PendingEdgeStore unbounded = new PendingEdgeStore();
+        unbounded.add(_createEdge("pending-e", 1, 1, 2), true, true);
+        long edgeBytes = unbounded.getBytes();
+        assertTrue(edgeBytes > 0);
+
+        PendingEdgeStore store = new PendingEdgeStore(Integer.MAX_VALUE, 2 * edgeBytes + edgeBytes / 2,
+                EvictionPolicy.OLDEST);
+        List<PendingEdgeStore.Entry> entries = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            entries.add(store.add(_createEdge("pending-e", i, 1, 2), true, true));
+        }
+        assertTrue(entries.get(0).isRemoved());
+        assertEquals(2, store.size());
+        assertEquals(2 * edgeBytes, store.getBytes());
+
+        // an edge larger than the bound evicts everything, itself included
+        PendingEdgeStore tiny = new PendingEdgeStore(Integer.MAX_VALUE, edgeBytes / 2, EvictionPolicy.OLDEST);
+        assertTrue(tiny.add(_createEdge("pending-e", 4, 1, 2), true, true).isRemoved());
+        assertTrue(tiny.isEmpty());
+        assertEquals(0, tiny.getBytes());
+    }
+
+    @Test
+    public void evictsFromTheGraphWithTheMostPendingEdges() {
+        PendingEdgeStore store = new PendingEdgeStore(4, Long.MAX_VALUE, EvictionPolicy.LARGEST_GRAPH);
+        PendingEdgeStore.Entry small = store.add(_createEdge("pending-small", 1, 1, 2), true, true);
+        List<PendingEdgeStore.Entry> large = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            large.add(store.add(_createEdge("pending-large", i, i, i + 1), true, true));
+        }
+
+        store.add(_createEdge("pending-small", 2, 2, 3), true, true);
+        assertFalse(small.isRemoved());
+        assertTrue(large.get(0).isRemoved());
+
+        // both graphs hold two edges, one more makes the small graph the largest one
+        store.add(_createEdge("pending-small", 3, 3, 4), true, true);
+        assertTrue(small.isRemoved());
+        assertFalse(large.get(1).isRemoved() || large.get(2).isRemoved());
+        assertEquals(4, store.size());
+        assertEquals(2, store.getEvictedCount());
+    }
+
+    @Test
+    public void keepsTheLargestGraphAcrossRemovals() {
+        PendingEdgeStore store = new PendingEdgeStore(4, Long.MAX_VALUE, EvictionPolicy.LARGEST_GRAPH);
+        List<PendingEdgeStore.Entry> first = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            first.add(store.add(_createEdge("pending-f", i, i, i + 1), true, true));
+        }
+        PendingEdgeStore.Entry second = store.add(_createEdge("pending-g", 1, 1, 2), true, true);
+
+        // removals shrink the first graph, the second one grows past it
+        store.remove(first.get(0));
+        store.remove(first.get(1));
+        store.add(_createEdge("pending-g", 2, 2, 3), true, true);
+        store.add(_createEdge("pending-g", 3, 3, 4), true, true);
+        store.add(_createEdge("pending-h", 1, 1, 2), true, true);
+
+        assertTrue(second.isRemoved());
+        assertFalse(first.get(2).isRemoved());
+        assertEquals(4, store.size());
+        assertEquals(1, store.getEvictedCount());
+    }
+
+    private static Edge _createEdge(String graphId, int id, int source, int target) {
+        Edge edge = new Edge();
+        edge.setGraphId(graphId);
+        edge.setId(String.valueOf(id));
+        edge.setSource(String.valueOf(source));
+        edge.setTarget(String.valueOf(target));
+        return edge;
+    }
+}
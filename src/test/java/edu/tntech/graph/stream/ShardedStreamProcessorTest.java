@@ -0,0 +1,92 @@
+package edu.tntech.graph.stream;
+
+import edu.tntech.graph.collection.IntObjectMap;
+import edu.tntech.graph.helper.ConfigReader;
+import edu.tntech.graph.metrics.MetricRegistry;
+import edu.tntech.graph.pojo.Edge;
+import edu.tntech.graph.pojo.Sample;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ShardedStreamProcessorTest {
+
+    private static final int GRAPHS = 8;
+    private static final int NODES = 5;
+
+    @Before
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.setProperty("seed", "7");
+        properties.setProperty("processor-shard-batch-size", "3");
+        ConfigReader.setInstance(new ConfigReader(properties));
+    }
+
+    @Test
+    public void routesRawAndDecodedItemsOfAGraphToOneShard() throws IOException {
+        ShardedStreamProcessor processor = new ShardedStreamProcessor(4, 1000);
+        try {
+            // nodes are routed from their raw bytes, edges from their decoded graph id
+            _stream(processor);
+            Sample sample = processor.closeWindow(0);
+            assertEquals(GRAPHS * NODES, sample.getNodeCount());
+            assertEquals(GRAPHS * (NODES - 1), sample.getEdgeCount());
+
+            MetricRegistry metrics = MetricRegistry.getInstance();
+            processor.registerMetrics(metrics);
+            assertEquals(0L, (long) metrics.snapshot().get("processor.pending-edges"));
+            assertEquals(GRAPHS * NODES, (long) metrics.snapshot().get("processor.processed-nodes"));
+        } finally {
+            processor.shutdown();
+        }
+    }
+
+    @Test
+    public void keepsTheMergedSampleWithinTheSampleSize() throws IOException {
+        ShardedStreamProcessor processor = new ShardedStreamProcessor(3, 10);
+        try {
+            _stream(processor);
+            Sample sample = processor.closeWindow(0);
+            assertTrue(sample.getNodeCount() <= 10);
+            assertTrue(sample.getNodeCount() > 0);
+            for (IntObjectMap<Edge> graphEdges : sample.getEdgesByGraph().values()) {
+                for (Edge edge : graphEdges.values()) {
+                    assertTrue(sample.sampleGraphContainsNode(edge.getGraphIndex(), edge.getSourceId()));
+                    assertTrue(sample.sampleGraphContainsNode(edge.getGraphIndex(), edge.getTargetId()));
+                }
+            }
+        } finally {
+            processor.shutdown();
+        }
+    }
+
+    /**
+     * Streams a path per graph, the graph ids written with spaces and escapes the raw routing has to read
+     *
+     * @param processor processor to stream to
+     * @throws IOException
+     */
+    private static void _stream(ShardedStreamProcessor processor) throws IOException {
+        StreamItemDecoder decoder = StreamItemDecoder.create(StreamItemDecoder.STREAMING_DECODER);
+        for (int graph = 0; graph < GRAPHS; graph++) {
+            String graphId = "shard-\\\"" + graph + "\\\"";
+            for (int i = 0; i < NODES; i++) {
+                byte[] node = ("{\"node\":{\"attributes\":{\"id\":\"" + i + "\",\"graph_id\" : \"" + graphId
+                        + "\",\"label\":\"shard\"}}}").getBytes(StandardCharsets.UTF_8);
+                processor.readStreamedItem(node, 0, node.length, 0);
+            }
+            for (int i = 1; i < NODES; i++) {
+                byte[] edge = ("{\"edge\":{\"directed\":true,\"attributes\":{\"id\":\"" + i + "\",\"graph_id\":\""
+                        + graphId + "\",\"source\":\"" + (i - 1) + "\",\"target\":\"" + i
+                        + "\",\"label\":\"next\"}}}").getBytes(StandardCharsets.UTF_8);
+                processor.processItem(decoder.decode(edge, 0, edge.length), 0);
+            }
+        }
+    }
+}
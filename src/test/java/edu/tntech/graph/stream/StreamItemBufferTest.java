@@ -0,0 +1,108 @@
+package edu.tntech.graph.stream;
+
+import edu.tntech.graph.pojo.Node;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class StreamItemBufferTest {
+
+    @Test
+    public void returnsCopiedMessagesInOrderAcrossTheRing() throws InterruptedException {
+        StreamItemBuffer buffer = new StreamItemBuffer(3);
+        long tag = 0;
+        for (int round = 0; round < 4; round++) {
+            byte[] data = ("message-" + round + "-" + _repeat('x', round * 400)).getBytes(StandardCharsets.UTF_8);
+            buffer.publish(data, 0, data.length, ++tag);
+            Node node = new Node();
+            buffer.publish(node, ++tag);
+            // the slot holds a copy of the message
+            data[0] = 'X';
+
+            assertEquals(2, buffer.awaitBatch(8, 0, TimeUnit.MILLISECONDS));
+            StreamItemBuffer.Slot message = buffer.getSlot(0);
+            assertEquals("message-" + round + "-" + _repeat('x', round * 400),
+                    new String(message.getBody(), 0, message.getLength(), StandardCharsets.UTF_8));
+            assertEquals(tag - 1, message.getDeliveryTag());
+            assertNull(message.getItem());
+            assertSame(node, buffer.getSlot(1).getItem());
+            assertEquals(tag, buffer.getSlot(1).getDeliveryTag());
+            buffer.release(2);
+            assertEquals(0, buffer.getDepth());
+        }
+    }
+
+    @Test
+    public void limitsTheBatchAndTimesOutWhenEmpty() throws InterruptedException {
+        StreamItemBuffer buffer = new StreamItemBuffer(4);
+        assertEquals(0, buffer.awaitBatch(2, 10, TimeUnit.MILLISECONDS));
+        for (int i = 1; i <= 3; i++) {
+            buffer.publish(new Node(), i);
+        }
+        assertEquals(2, buffer.awaitBatch(2, 0, TimeUnit.MILLISECONDS));
+        buffer.release(2);
+        assertEquals(1, buffer.awaitBatch(2, 0, TimeUnit.MILLISECONDS));
+        assertEquals(3, buffer.getSlot(0).getDeliveryTag());
+    }
+
+    @Test
+    public void blocksPublishersWhileFullAndWakesThemOnRelease() throws Exception {
+        StreamItemBuffer buffer = new StreamItemBuffer(2);
+        buffer.publish(new Node(), 1);
+        buffer.publish(new Node(), 2);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Void> published = CompletableFuture.runAsync(() -> {
+            try {
+                started.countDown();
+                buffer.publish(new Node(), 3);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        started.await();
+        Thread.sleep(50);
+        assertFalse(published.isDone());
+        assertEquals(2, buffer.getDepth());
+
+        buffer.release(1);
+        published.get(5, TimeUnit.SECONDS);
+        assertEquals(2, buffer.getDepth());
+        assertEquals(2, buffer.getSlot(0).getDeliveryTag());
+        assertEquals(3, buffer.getSlot(1).getDeliveryTag());
+    }
+
+    @Test
+    public void wakesTheWaitingConsumerOnPublish() throws Exception {
+        StreamItemBuffer buffer = new StreamItemBuffer(2);
+        CompletableFuture<Integer> batch = CompletableFuture.supplyAsync(() -> {
+            try {
+                return buffer.awaitBatch(2, 10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        long start = System.nanoTime();
+        buffer.publish(new Node(), 1);
+        assertEquals(1, (int) batch.get(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    }
+
+    private static String _repeat(char character, int count) {
+        StringBuilder builder = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            builder.append(character);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,144 @@
+package edu.tntech.graph.stream;
+
+import edu.tntech.graph.collection.IntObjectMap;
+import edu.tntech.graph.exception.PropertyNotFoundException;
+import edu.tntech.graph.helper.ConfigReader;
+import edu.tntech.graph.metrics.MetricRegistry;
+import edu.tntech.graph.pojo.Node;
+import edu.tntech.graph.sampler.EdgeReplacementStrategy;
+import edu.tntech.graph.sampler.NodeReplacementStrategy;
+import edu.tntech.graph.sampler.ReservoirSkipStrategy;
+import edu.tntech.graph.sampler.Sampler;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class StreamProcessorTest {
+
+    @Before
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.setProperty("expiry-horizon", "1");
+        ConfigReader.setInstance(new ConfigReader(properties));
+    }
+
+    @Test
+    public void keepsItsCountersOnAddAndExpiry() throws IOException {
+        Sampler sampler = Sampler.create(10, new NodeReplacementStrategy(), new Random(1));
+        StreamProcessor processor = new StreamProcessor(sampler);
+        processor.readStreamedItem(_node("counter", 0), 0);
+        processor.readStreamedItem(_node("counter", 1), 0);
+        processor.readStreamedItem(_node("counter", 0), 0);
+        processor.readStreamedItem(_edge("counter", 1, 0, 1), 0);
+        processor.readStreamedItem(_edge("counter", 2, 1, 2), 0);
+
+        MetricRegistry metrics = MetricRegistry.getInstance();
+        processor.registerMetrics(metrics);
+        Map<String, Long> values = metrics.snapshot();
+        assertEquals(2L, (long) values.get("processor.processed-nodes"));
+        assertEquals(1L, (long) values.get("processor.pending-edges"));
+        assertEquals(2L, (long) values.get("sample.nodes"));
+        assertEquals(1L, (long) values.get("sample.edges"));
+        assertEquals(_countProcessedNodes(processor), processor.getProcessedNodeCount());
+
+        processor.closeWindow(0);
+        processor.readStreamedItem(_node("counter", 3), 1);
+        processor.closeWindow(1);
+        assertEquals(3, processor.getProcessedNodeCount());
+
+        // the items of the first window fall out of the horizon
+        processor.closeWindow(2);
+        values = metrics.snapshot();
+        assertEquals(1L, (long) values.get("processor.processed-nodes"));
+        assertEquals(2L, (long) values.get("processor.expired-nodes"));
+        assertEquals(0L, (long) values.get("processor.pending-edges"));
+        assertEquals(1L, values.get("processor.dropped-edges") + values.get("processor.expired-edges"));
+        assertEquals(_countProcessedNodes(processor), processor.getProcessedNodeCount());
+        // the sample keeps what it sampled
+        assertEquals(2, sampler.getTotalSampledNodeCount());
+    }
+
+    @Test
+    public void feedsEveryEnsembleSamplerFromOneStream() throws IOException {
+        Sampler sampler = Sampler.create(4, new NodeReplacementStrategy(), new Random(1));
+        StreamProcessor processor = new StreamProcessor(sampler);
+        Sampler large = Sampler.create(100, new EdgeReplacementStrategy(), new Random(2));
+        Sampler skipping = Sampler.create(4, new ReservoirSkipStrategy(), new Random(3));
+        processor.addEnsembleSampler(large);
+        processor.addEnsembleSampler(skipping);
+        for (int i = 0; i < 20; i++) {
+            processor.readStreamedItem(_node("ensemble", i), 0);
+        }
+        for (int i = 1; i < 20; i++) {
+            processor.readStreamedItem(_edge("ensemble", i, i - 1, i), 0);
+        }
+
+        assertEquals(20, large.getTotalSampledNodeCount());
+        assertEquals(19, large.getTotalSampledEdgeCount());
+        assertTrue(sampler.getTotalSampledNodeCount() <= 5);
+        assertTrue(skipping.getTotalSampledNodeCount() <= 5);
+        assertNotSame(sampler.getSample(), skipping.getSample());
+        assertSame(processor, large.getStreamProcessor());
+
+        MetricRegistry metrics = MetricRegistry.getInstance();
+        processor.registerMetrics(metrics);
+        // the gauges read the current sample of every ensemble sampler
+        large.getSample().reset();
+        assertEquals(0L, (long) metrics.snapshot().get("sample.2.nodes"));
+        assertEquals((long) skipping.getTotalSampledEdgeCount(), (long) metrics.snapshot().get("sample.3.edges"));
+    }
+
+    @Test
+    public void configuresEnsembleSamplersFromTheirPrefixedProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("sample-size", "10");
+        properties.setProperty("graph-file", "out/sample.g");
+        properties.setProperty("sampler.2.sample-size", "20");
+        properties.setProperty("sampler.2.sampling-strategy", "edge-replacement");
+        properties.setProperty("sampler.3.graph-file", "other.g");
+        ConfigReader config = new ConfigReader(properties);
+
+        Sampler second = Sampler.create(config, 2);
+        assertEquals(20, (int) second.getSampleSize());
+        assertTrue(second.getSamplingStrategy() instanceof EdgeReplacementStrategy);
+        assertEquals("out/sample-2.g", second.getGraphFile());
+        Sampler third = Sampler.create(config, 3);
+        assertEquals(10, (int) third.getSampleSize());
+        assertTrue(third.getSamplingStrategy() instanceof NodeReplacementStrategy);
+        assertEquals("other.g", third.getGraphFile());
+    }
+
+    @Test(expected = PropertyNotFoundException.class)
+    public void requiresTheGraphFileOfAnEnsembleSampler() {
+        Properties properties = new Properties();
+        properties.setProperty("sample-size", "10");
+        Sampler.create(new ConfigReader(properties), 2);
+    }
+
+    private static int _countProcessedNodes(StreamProcessor processor) {
+        int count = 0;
+        for (IntObjectMap<Node> graphNodes : processor.getProcessedNodeList().values()) {
+            count += graphNodes.size();
+        }
+        return count;
+    }
+
+    private static String _node(String graphId, int id) {
+        return "{\"node\":{\"attributes\":{\"id\":\"" + id + "\",\"graph_id\":\"" + graphId
+                + "\",\"label\":\"counter\"}}}";
+    }
+
+    private static String _edge(String graphId, int id, int source, int target) {
+        return "{\"edge\":{\"directed\":true,\"attributes\":{\"id\":\"" + id + "\",\"graph_id\":\"" + graphId
+                + "\",\"source\":\"" + source + "\",\"target\":\"" + target + "\",\"label\":\"next\"}}}";
+    }
+}
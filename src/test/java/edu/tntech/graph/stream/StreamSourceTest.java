@@ -0,0 +1,129 @@
+package edu.tntech.graph.stream;
+
+import edu.tntech.graph.helper.ConfigReader;
+import edu.tntech.graph.pojo.Edge;
+import edu.tntech.graph.pojo.GraphProperty;
+import edu.tntech.graph.pojo.Sample;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StreamSourceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.setProperty("ingest-buffer-size", "4");
+        properties.setProperty("ingest-batch-size", "2");
+        ConfigReader.setInstance(new ConfigReader(properties));
+    }
+
+    @Test
+    public void deliversTheInProcessQueueInOrderAndAcknowledgesItsWindows() throws Exception {
+        InProcessStreamSource source = new InProcessStreamSource(2);
+        RecordingProcessor processor = new RecordingProcessor();
+        IngestionPipeline pipeline = new IngestionPipeline(processor, new WindowScheduler(4, 60000),
+                (windowCount, deliveryTag) -> source.acknowledge(deliveryTag));
+        pipeline.start();
+        CompletableFuture<Void> delivered = source.start(pipeline);
+        List<String> messages = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            messages.add("{\"item\":" + i + "}");
+            // waits on the full queue for the delivery thread
+            source.put(messages.get(i).getBytes(StandardCharsets.UTF_8));
+        }
+        source.complete();
+
+        try {
+            delivered.get(5, TimeUnit.SECONDS);
+        } finally {
+            pipeline.shutdown(true);
+        }
+        assertEquals(messages, processor.messages);
+        assertEquals(10, source.getDeliveredTag());
+        assertEquals(10, source.getAcknowledgedTag());
+        assertEquals(0, source.getQueueDepth());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsItemsOnceCompleted() throws InterruptedException {
+        InProcessStreamSource source = new InProcessStreamSource(2);
+        source.complete();
+        source.put(new byte[0]);
+    }
+
+    @Test
+    public void replaysTheGraphFileDecoded() throws Exception {
+        Path graphFile = folder.newFile("stream.g").toPath();
+        Files.write(graphFile, ("XP # 1\n"
+                + "v 1 \"provider\"\n"
+                + "v 2 \"patient\"\n"
+                + "d 1 2 \"treats\"\n"
+                + "XP # 2\n"
+                + "v 1 \"provider\"\n").getBytes(StandardCharsets.UTF_8));
+        FileStreamSource source = new FileStreamSource(graphFile);
+        RecordingProcessor processor = new RecordingProcessor();
+        List<Long> tags = Collections.synchronizedList(new ArrayList<>());
+        IngestionPipeline pipeline = new IngestionPipeline(processor, new WindowScheduler(3, 60000),
+                (windowCount, deliveryTag) -> tags.add(deliveryTag));
+        pipeline.start();
+        try {
+            source.start(pipeline).get(5, TimeUnit.SECONDS);
+        } finally {
+            pipeline.shutdown(true);
+        }
+
+        assertTrue(processor.messages.isEmpty());
+        assertEquals(4, processor.items.size());
+        assertEquals(Arrays.asList("1", "1", "1", "2"), _getGraphIds(processor.items));
+        assertTrue(processor.items.get(2) instanceof Edge);
+        assertEquals(Arrays.asList(3L, 4L), tags);
+    }
+
+    private static List<String> _getGraphIds(List<GraphProperty> items) {
+        List<String> graphIds = new ArrayList<>();
+        items.forEach(item -> graphIds.add(item.getGraphId()));
+        return graphIds;
+    }
+
+    /**
+     * Processor recording the raw and the decoded items it is handed
+     */
+    private static class RecordingProcessor implements GraphStreamProcessor {
+        private final List<String> messages = Collections.synchronizedList(new ArrayList<>());
+        private final List<GraphProperty> items = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void readStreamedItem(byte[] data, int offset, int length, Integer windowCount) {
+            messages.add(new String(data, offset, length, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void processItem(GraphProperty item, Integer windowCount) {
+            items.add(item);
+        }
+
+        @Override
+        public Sample closeWindow(int windowCount) {
+            return new Sample().snapshot();
+        }
+    }
+}
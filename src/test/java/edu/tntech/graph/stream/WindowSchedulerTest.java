@@ -0,0 +1,123 @@
+package edu.tntech.graph.stream;
+
+import edu.tntech.graph.helper.ConfigReader;
+import edu.tntech.graph.pojo.GraphProperty;
+import edu.tntech.graph.pojo.Sample;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WindowSchedulerTest {
+
+    @Before
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.setProperty("ingest-buffer-size", "4");
+        properties.setProperty("ingest-batch-size", "2");
+        ConfigReader.setInstance(new ConfigReader(properties));
+    }
+
+    @Test
+    public void closesOnTheItemLimit() {
+        WindowScheduler scheduler = new WindowScheduler(3, 60000);
+        assertFalse(scheduler.isDue());
+        assertEquals(Long.MAX_VALUE, scheduler.getNanosToDeadline());
+        assertFalse(scheduler.itemProcessed());
+        assertFalse(scheduler.itemProcessed());
+        assertTrue(scheduler.itemProcessed());
+        assertTrue(scheduler.isDue());
+
+        assertEquals(0, scheduler.closeWindow());
+        assertEquals(1, scheduler.getWindowCount());
+        assertEquals(0, scheduler.getItemCount());
+        assertFalse(scheduler.isDue());
+    }
+
+    @Test
+    public void closesOnTheDeadlineOfTheFirstItem() throws InterruptedException {
+        WindowScheduler scheduler = new WindowScheduler(1000, 20);
+        Thread.sleep(40);
+        // the deadline runs from the first item, an empty window never closes
+        assertFalse(scheduler.isDue());
+        scheduler.itemProcessed();
+        assertFalse(scheduler.isDue());
+        assertTrue(scheduler.getNanosToDeadline() <= TimeUnit.MILLISECONDS.toNanos(20));
+        Thread.sleep(40);
+        assertTrue(scheduler.isDue());
+    }
+
+    @Test
+    public void firesCountWindowsBeforeTheNextItem() throws Exception {
+        RecordingProcessor processor = new RecordingProcessor();
+        List<String> windows = Collections.synchronizedList(new ArrayList<>());
+        IngestionPipeline pipeline = new IngestionPipeline(processor, new WindowScheduler(3, 60000),
+                (windowCount, deliveryTag) -> windows.add(windowCount + "@" + deliveryTag));
+        pipeline.start();
+        for (int tag = 1; tag <= 7; tag++) {
+            pipeline.publish(("{\"item\":" + tag + "}").getBytes(StandardCharsets.UTF_8), tag);
+        }
+        pipeline.shutdown(true);
+
+        assertEquals(Arrays.asList("0@3", "1@6", "2@7"), windows);
+        assertEquals(Arrays.asList(0, 0, 0, 1, 1, 1, 2), processor.windowCounts);
+        assertEquals(7, pipeline.getProcessedItemCount());
+        assertEquals(7, pipeline.getProcessedDeliveryTag());
+        assertTrue(pipeline.getMaxBatchSize() <= 2);
+    }
+
+    @Test
+    public void firesAnIncompleteWindowOnItsDeadline() throws Exception {
+        CountDownLatch closed = new CountDownLatch(1);
+        List<Long> tags = Collections.synchronizedList(new ArrayList<>());
+        IngestionPipeline pipeline = new IngestionPipeline(new RecordingProcessor(), new WindowScheduler(1000, 50),
+                (windowCount, deliveryTag) -> {
+                    tags.add(deliveryTag);
+                    closed.countDown();
+                });
+        pipeline.start();
+        long start = System.nanoTime();
+        pipeline.publish("{}".getBytes(StandardCharsets.UTF_8), 1);
+        pipeline.publish("{}".getBytes(StandardCharsets.UTF_8), 2);
+        try {
+            assertTrue(closed.await(5, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+            assertEquals(Collections.singletonList(2L), tags);
+        } finally {
+            pipeline.shutdown();
+        }
+    }
+
+    /**
+     * Processor recording the window of every item
+     */
+    private static class RecordingProcessor implements GraphStreamProcessor {
+        private final List<Integer> windowCounts = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void readStreamedItem(byte[] data, int offset, int length, Integer windowCount) {
+            windowCounts.add(windowCount);
+        }
+
+        @Override
+        public void processItem(GraphProperty item, Integer windowCount) {
+            windowCounts.add(windowCount);
+        }
+
+        @Override
+        public Sample closeWindow(int windowCount) {
+            return new Sample().snapshot();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package edu.tntech.graph.writer;
+
+import edu.tntech.graph.pojo.Edge;
+import edu.tntech.graph.pojo.GraphProperty;
+import edu.tntech.graph.pojo.Node;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+public class GraphLineEncoderTest {
+
+    @Test
+    public void encodesTheLinesOfTheStringWriter() throws IOException {
+        Node provider = _createNode("1", "provider", "1194700146");
+        Node patient = _createNode("2", "patient \u00e9l\u00e8ve", null);
+        Node unlabeled = _createNode("3", null, null);
+        Edge directed = _createEdge("1", "2", "treats", true, "12");
+        Edge undirected = _createEdge("2", "2", null, false, null);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        // the smallest buffer, flushed in the middle of the long comment
+        GraphLineEncoder encoder = new GraphLineEncoder(8);
+        encoder.open(Channels.newChannel(output));
+        encoder.writeXP(1);
+        encoder.writeNode(provider, 1);
+        encoder.writeNode(patient, 2);
+        encoder.writeNode(unlabeled, Integer.MAX_VALUE);
+        encoder.writeEdge(directed, 1, 2);
+        encoder.writeEdge(undirected, 2, 2);
+        encoder.writeXP(10);
+        encoder.writeComment("graph_id " + _repeat('g', 200));
+        encoder.flush();
+
+        String expected = "XP # 1\n"
+                + _getNodeLine(provider, "1")
+                + _getNodeLine(patient, "2")
+                + _getNodeLine(unlabeled, String.valueOf(Integer.MAX_VALUE))
+                + _getEdgeLine(directed, "1", "2")
+                + _getEdgeLine(undirected, "2", "2")
+                + "XP # 10\n"
+                + "//graph_id " + _repeat('g', 200) + "\n";
+        assertEquals(expected, new String(output.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void writesTheStreamedIdsOfNodesThatWereNotWritten() throws IOException {
+        Edge edge = _createEdge("source-a", "7", "link", true, null);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        GraphLineEncoder encoder = new GraphLineEncoder();
+        encoder.open(Channels.newChannel(output));
+        encoder.writeEdge(edge, -1, -1);
+        encoder.flush();
+        assertEquals(_getEdgeLine(edge, "source-a", "7"), new String(output.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Builds the node line the way the string based writer did
+     */
+    private static String _getNodeLine(Node node, String nodeId) {
+        return _getComment(node) + "v " + nodeId + " " + _getLabel(node, "") + "\n";
+    }
+
+    /**
+     * Builds the edge line the way the string based writer did
+     */
+    private static String _getEdgeLine(Edge edge, String source, String target) {
+        return _getComment(edge) + (edge.isDirected() ? "d " : "u ") + source + " " + target
+                + _getLabel(edge, " ") + "\n";
+    }
+
+    private static String _getComment(GraphProperty property) {
+        return property.getComment() == null ? "" : "//" + property.getComment() + "\n";
+    }
+
+    private static String _getLabel(GraphProperty property, String separator) {
+        return property.getLabel() == null ? "" : separator + "\"" + property.getLabel() + "\"";
+    }
+
+    private static Node _createNode(String id, String label, String comment) {
+        Node node = new Node();
+        node.setGraphId("encoder");
+        node.setId(id);
+        node.setLabel(label);
+        node.setComment(comment);
+        return node;
+    }
+
+    private static Edge _createEdge(String source, String target, String label, boolean directed, String comment) {
+        Edge edge = new Edge();
+        edge.setGraphId("encoder");
+        edge.setId(source + "-" + target);
+        edge.setSource(source);
+        edge.setTarget(target);
+        edge.setLabel(label);
+        edge.setDirected(directed);
+        edge.setComment(comment);
+        return edge;
+    }
+
+    private static String _repeat(char character, int count) {
+        StringBuilder builder = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            builder.append(character);
+        }
+        return builder.toString();
+    }
+}
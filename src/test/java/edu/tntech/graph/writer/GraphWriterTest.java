@@ -0,0 +1,108 @@
+package edu.tntech.graph.writer;
+
+import edu.tntech.graph.collection.IntObjectMap;
+import edu.tntech.graph.pojo.Edge;
+import edu.tntech.graph.pojo.Node;
+import edu.tntech.graph.pojo.Sample;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class GraphWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void renumbersTheNodesOfEveryGraphWithoutChangingTheSample() throws IOException {
+        Sample sample = new Sample();
+        // the written ids start at 1, an original id 1 must not be confused with a renumbered one
+        Node[] nodes = {_createNode("writer-renumber", "100", "a"), _createNode("writer-renumber", "1", "b"),
+                _createNode("writer-renumber", "7", "c")};
+        for (Node node : nodes) {
+            sample.addNode(node);
+        }
+        sample.addEdge(_createEdge(nodes[0], nodes[1], "1"));
+        sample.addEdge(_createEdge(nodes[1], nodes[2], "2"));
+        sample.addEdge(_createEdge(nodes[2], nodes[0], "3"));
+        sample.addNode(_createNode("writer-other", "42", "d"));
+        Map<Integer, String> idsBefore = _getIds(sample);
+
+        Path graphFile = folder.getRoot().toPath().resolve("sample.g");
+        new GraphWriter(sample).write(graphFile);
+        List<String> lines = Files.readAllLines(graphFile, StandardCharsets.UTF_8);
+
+        // node id -> label of every graph, then the edges by label
+        Map<String, String> labels = new HashMap<>();
+        Set<String> edges = new HashSet<>();
+        Set<String> writtenIds = new HashSet<>();
+        int xpCount = 0;
+        for (String line : lines) {
+            String[] fields = line.split(" ");
+            if (line.startsWith("XP # ")) {
+                assertEquals(String.valueOf(++xpCount), fields[2]);
+                labels.clear();
+            } else if (line.startsWith("v ")) {
+                labels.put(fields[1], fields[2]);
+                writtenIds.add(xpCount + "/" + fields[1]);
+            } else if (line.startsWith("d ")) {
+                edges.add(labels.get(fields[1]) + "->" + labels.get(fields[2]));
+            }
+        }
+        assertEquals(2, xpCount);
+        assertEquals(new HashSet<>(Arrays.asList("\"a\"->\"b\"", "\"b\"->\"c\"", "\"c\"->\"a\"")), edges);
+        assertEquals(new HashSet<>(Arrays.asList("1/1", "1/2", "1/3", "2/1")), writtenIds);
+        assertEquals(idsBefore, _getIds(sample));
+    }
+
+    /**
+     * Gets the ids held by the sample, to check that writing leaves them alone
+     *
+     * @param sample sample
+     * @return identity hash of every node and edge -> its ids
+     */
+    private static Map<Integer, String> _getIds(Sample sample) {
+        Map<Integer, String> ids = new HashMap<>();
+        for (IntObjectMap<Node> graphNodes : sample.getNodesByGraph().values()) {
+            graphNodes.values().forEach(node -> ids.put(System.identityHashCode(node),
+                    node.getId() + "/" + node.getIdNumber()));
+        }
+        for (IntObjectMap<Edge> graphEdges : sample.getEdgesByGraph().values()) {
+            graphEdges.values().forEach(edge -> ids.put(System.identityHashCode(edge),
+                    edge.getSource() + "/" + edge.getSourceId() + "->" + edge.getTarget() + "/" + edge.getTargetId()));
+        }
+        assertEquals(7, ids.size());
+        return ids;
+    }
+
+    private static Node _createNode(String graphId, String id, String label) {
+        Node node = new Node();
+        node.setGraphId(graphId);
+        node.setId(id);
+        node.setLabel(label);
+        return node;
+    }
+
+    private static Edge _createEdge(Node source, Node target, String id) {
+        Edge edge = new Edge();
+        edge.setGraphId(source.getGraphId());
+        edge.setId(id);
+        edge.setSource(source.getId());
+        edge.setTarget(target.getId());
+        edge.setDirected(true);
+        return edge;
+    }
+}
@@ -0,0 +1,129 @@
+package edu.tntech.graph.writer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.tntech.graph.helper.SymbolTable;
+import edu.tntech.graph.pojo.Node;
+import edu.tntech.graph.pojo.Sample;
+import edu.tntech.graph.pojo.SegmentManifest;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IncrementalGraphWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replaysTheGraphsRemovedFromASample() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        IncrementalGraphWriter writer = new IncrementalGraphWriter(directory.resolve("sample.g"), 32);
+        Sample sample = new Sample();
+        _addNodes(sample, "writer-kept", 3);
+        _addNodes(sample, "writer-evicted", 2);
+        writer.write(sample.snapshot(), 1);
+
+        sample.removeGraph(SymbolTable.getInstance().intern("writer-evicted"));
+        sample.addNode(_createNode("writer-kept", 3));
+        writer.write(sample.snapshot(), 2);
+
+        assertEquals(Collections.singletonMap("writer-kept", 4), _replay(directory));
+    }
+
+    @Test
+    public void writesOnlyTheChangesOfARebuiltSample() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        IncrementalGraphWriter writer = new IncrementalGraphWriter(directory.resolve("sample.g"), 32);
+        Sample first = new Sample();
+        Node[] kept = _addNodes(first, "writer-merged-kept", 3);
+        _addNodes(first, "writer-merged-evicted", 2);
+        first.setChangedSince(null);
+        writer.write(first.snapshot(), 1);
+
+        // the next window rebuilds the sample from the same nodes, without the evicted graph
+        Sample second = new Sample();
+        for (Node node : kept) {
+            second.addNode(node);
+        }
+        second.setChangedSince(first);
+        writer.write(second.snapshot(), 2);
+
+        List<SegmentManifest.Segment> segments = _readManifest(directory).getSegments();
+        assertEquals(2, segments.size());
+        assertFalse(segments.get(1).isFull());
+        assertTrue(segments.get(1).getGraphs().isEmpty());
+        assertEquals(Collections.singletonList("writer-merged-evicted"), segments.get(1).getRemovedGraphs());
+        assertEquals(Collections.singletonMap("writer-merged-kept", 3), _replay(directory));
+
+        // an unchanged sample writes no segment
+        Sample third = new Sample();
+        for (Node node : kept) {
+            third.addNode(node);
+        }
+        third.setChangedSince(second);
+        writer.write(third.snapshot(), 3);
+        assertEquals(2, _readManifest(directory).getSegments().size());
+    }
+
+    private static Node[] _addNodes(Sample sample, String graphId, int nodeCount) {
+        Node[] nodes = new Node[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i] = _createNode(graphId, i);
+            sample.addNode(nodes[i]);
+        }
+        return nodes;
+    }
+
+    private static Node _createNode(String graphId, int id) {
+        Node node = new Node();
+        node.setGraphId(graphId);
+        node.setId(String.valueOf(id));
+        node.setLabel("writer");
+        return node;
+    }
+
+    private static SegmentManifest _readManifest(Path directory) throws IOException {
+        return new ObjectMapper().readValue(directory.resolve("sample.manifest.json").toFile(),
+                SegmentManifest.class);
+    }
+
+    /**
+     * Replays the segments of the manifest the way a reader would
+     *
+     * @param directory directory of the segments
+     * @return graph id -> node count
+     * @throws IOException
+     */
+    private static Map<String, Integer> _replay(Path directory) throws IOException {
+        Map<String, Integer> graphs = new HashMap<>();
+        for (SegmentManifest.Segment segment : _readManifest(directory).getSegments()) {
+            if (segment.isFull()) {
+                graphs.clear();
+            }
+            String graphId = null;
+            for (String line : Files.readAllLines(directory.resolve(segment.getFile()), StandardCharsets.UTF_8)) {
+                if (line.startsWith("//graph_id ")) {
+                    graphId = line.substring("//graph_id ".length()).trim();
+                    graphs.put(graphId, 0);
+                } else if (line.startsWith("v ") && graphId != null) {
+                    graphs.merge(graphId, 1, Integer::sum);
+                }
+            }
+            segment.getRemovedGraphs().forEach(graphs::remove);
+        }
+        return graphs;
+    }
+}